@@ -6,4 +6,15 @@ rmdir /s /q "%OUT%" 2>nul
 mkdir "%OUT%"
 dir /s /b "%ROOT%src\*.java" > "%ROOT%.sources"
 javac -encoding UTF-8 -d "%OUT%" @%ROOT%.sources
+rem Архив CDS приложения: тренировочный запуск записывает загруженные классы для быстрого холодного старта
+rem (CDS работает только с jar в classpath, поэтому классы дополнительно упаковываются в jar)
+jar --create --file "%OUT%\dungeon.jar" -C "%OUT%" com
+rem Запуск идёт во временном каталоге с копией мира, чтобы кэш мира и файлы игры не попали в исходники
+set "TRAIN=%TEMP%\dungeon-cds-%RANDOM%"
+mkdir "%TRAIN%"
+copy /y "%ROOT%world.txt" "%TRAIN%\" >nul
+pushd "%TRAIN%"
+echo look| java -XX:ArchiveClassesAtExit="%OUT%\app.jsa" -cp "%OUT%\dungeon.jar" com.example.dungeon.Main >nul
+popd
+rmdir /s /q "%TRAIN%"
 echo Build OK. Run run.bat
@@ -6,4 +6,13 @@ rm -rf "$OUT"
 mkdir -p "$OUT"
 find "$ROOT/src" -name "*.java" > "$ROOT/.sources"
 javac -encoding UTF-8 -d "$OUT" @"$ROOT/.sources"
+# Архив CDS приложения: тренировочный запуск записывает загруженные классы для быстрого холодного старта
+# (CDS работает только с jar в classpath, поэтому классы дополнительно упаковываются в jar)
+jar --create --file "$OUT/dungeon.jar" -C "$OUT" com
+# Запуск идёт во временном каталоге с копией мира, чтобы кэш мира и файлы игры не попали в исходники
+TRAIN="$(mktemp -d)"
+cp "$ROOT/world.txt" "$TRAIN/"
+(cd "$TRAIN" && printf 'look\nhelp\n' | java -XX:ArchiveClassesAtExit="$OUT/app.jsa" -cp "$OUT/dungeon.jar" com.example.dungeon.Main > /dev/null) \
+  || echo "Архив CDS не создан, игра будет работать без него."
+rm -rf "$TRAIN"
 echo "Build OK. Run ./run.sh"
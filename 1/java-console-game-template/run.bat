@@ -1,3 +1,7 @@
 @echo off
 set ROOT=%~dp0
-java -cp "%ROOT%out" com.example.dungeon.Main
+if exist "%ROOT%out\app.jsa" (
+  java -XX:SharedArchiveFile="%ROOT%out\app.jsa" -cp "%ROOT%out\dungeon.jar" com.example.dungeon.Main %*
+) else (
+  java -cp "%ROOT%out" com.example.dungeon.Main %*
+)
@@ -1,4 +1,8 @@
 #!/usr/bin/env bash
 set -euo pipefail
 ROOT="$(cd "$(dirname "$0")" && pwd)"
-java -cp "$ROOT/out" com.example.dungeon.Main
+JSA="$ROOT/out/app.jsa"
+if [ -f "$JSA" ]; then
+  exec java -XX:SharedArchiveFile="$JSA" -cp "$ROOT/out/dungeon.jar" com.example.dungeon.Main "$@"
+fi
+exec java -cp "$ROOT/out" com.example.dungeon.Main "$@"
@@ -1,6 +1,15 @@
 package com.example.dungeon;
 
 import com.example.dungeon.core.Game;
+import com.example.dungeon.core.Replay;
+import com.example.dungeon.core.StartupProfile;
+import com.example.dungeon.core.WorldLint;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Главный класс приложения.
@@ -10,9 +19,73 @@ public class Main {
     /**
      * Точка входа в приложение.
      * Создает и запускает игру.
-     * @param args аргументы командной строки (не используются)
+     * @param args аргументы командной строки: --startup-report выводит профиль запуска,
+     *             --lint [файлы...] проверяет файлы мира и сохранений вместо запуска игры,
+     *             --http &lt;порт&gt; дополнительно запускает API ботов на localhost,
+     *             --replay &lt;журнал&gt; [команд] повторяет журнал воспроизведения без вывода игры
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--lint")) {
+            System.exit(lint(Arrays.asList(args).subList(1, args.length)));
+        }
+        if (args.length > 1 && args[0].equals("--replay")) {
+            long limit = args.length > 2 ? number(args[2], Long.MAX_VALUE, "--replay <журнал> [команд]") : 0;
+            if (limit < 0) System.exit(2);
+            System.exit(Replay.run(Paths.get(args[1]), limit, System.out));
+        }
+        if (Arrays.asList(args).contains("--startup-report")) {
+            StartupProfile.enable();
+        }
+        int http = Arrays.asList(args).indexOf("--http");
+        if (http >= 0) {
+            long port = http + 1 < args.length && !args[http + 1].startsWith("--") ? number(args[http + 1], 65535, "--http [порт от 0 до 65535]") : 8080;
+            if (port < 0) System.exit(2);
+            new Game().serve((int) port);
+            return;
+        }
         new Game().run();
     }
+
+    /**
+     * Разбирает числовой аргумент командной строки; при ошибке выводит подсказку по использованию.
+     * @param s строка с числом
+     * @param max наибольшее допустимое значение
+     * @param usage подсказка по использованию флага
+     * @return число от 0 до max или -1, если аргумент неверен
+     */
+    private static long number(String s, long max, String usage) {
+        try {
+            long n = Long.parseLong(s);
+            if (n >= 0 && n <= max) return n;
+        } catch (NumberFormatException ignored) {
+            // подсказка ниже
+        }
+        System.out.println("Неверный аргумент «" + s + "». Использование: " + usage);
+        return -1;
+    }
+
+    /**
+     * Проверяет файлы мира и сохранений и выводит найденные проблемы по одной на строку.
+     * @param files файлы (по умолчанию world.txt)
+     * @return код завершения: 0 — проблем нет, 1 — найдены проблемы, 2 — файл не прочитан
+     */
+    private static int lint(List<String> files) {
+        List<Path> paths = new ArrayList<>();
+        for (String f : files.isEmpty() ? List.of("world.txt") : files) paths.add(Paths.get(f));
+        int total = 0;
+        for (Path path : paths) {
+            long start = System.nanoTime();
+            List<WorldLint.Problem> problems;
+            try {
+                problems = WorldLint.lint(path);
+            } catch (RuntimeException e) {
+                System.out.println(path + ": не удалось проверить: " + e.getMessage());
+                return 2;
+            }
+            problems.forEach(System.out::println);
+            System.out.printf("%s: проблем: %d (%d мс)%n", path, problems.size(), (System.nanoTime() - start) / 1_000_000);
+            total += problems.size();
+        }
+        return total == 0 ? 0 : 1;
+    }
 }
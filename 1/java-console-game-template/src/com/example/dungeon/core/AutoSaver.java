@@ -0,0 +1,177 @@
+package com.example.dungeon.core;
+
+import com.example.dungeon.model.GameState;
+import com.example.dungeon.model.StateSnapshot;
+import com.example.dungeon.model.TimerWheel;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Фоновое сохранение игры и автосохранение.
+ * Снимок состояния (GameState.snapshot) снимается в потоке команд между командами и стоит
+ * пропорционально числу изменённых комнат, а сериализация и запись в файл идут в отдельном потоке,
+ * так что игрок может продолжать вводить команды. Сохранения пишутся по одному, в порядке снимков:
+ * ручное сохранение встаёт в очередь за текущим, а автосохранение пропускается, пока предыдущее не записано.
+ * Автосохранение срабатывает по интервалу времени или по числу несохранённых команд;
+ * настраивается свойствами dungeon.autosave.seconds и dungeon.autosave.commands (0 — отключено).
+ * Автосохранение пишет свой файл (SaveLoad.autoSavePath), поэтому не затирает ручное сохранение.
+ * Интервал отсчитывается таймером на колесе реального времени, которое продвигает поток команд,
+ * поэтому снимок всегда снимается между командами.
+ */
+public class AutoSaver {
+    // Поток записи сохранений (демон, чтобы не мешать завершению игры)
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "save-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    // Число снятых, но ещё не записанных сохранений
+    private final AtomicInteger pending = new AtomicInteger();
+    // Интервал автосохранения в наносекундах (0 — отключено)
+    private final long intervalNanos;
+    // Порог несохранённых команд (0 — отключено)
+    private final int maxUnsaved;
+    // Колесо таймеров реального времени и длительность его тика
+    private final TimerWheel clock;
+    private final long tickNanos;
+    // Таймер автосохранения по времени (null — не запланирован)
+    private TimerWheel.Timer timer;
+
+    // Количество команд с момента последнего снимка (меняется только потоком команд)
+    private int unsaved;
+
+    // Метрики, читаемые командой save-stats
+    private volatile long lastDurationNanos;
+    private volatile long lastLagNanos;
+    private volatile long completed;
+    private volatile long skipped;
+
+    /**
+     * Конструктор с настройками из системных свойств.
+     * @param clock колесо таймеров реального времени
+     * @param tickMillis длительность тика колеса в миллисекундах
+     */
+    public AutoSaver(TimerWheel clock, long tickMillis) {
+        this(clock, tickMillis, Long.getLong("dungeon.autosave.seconds", 120), Integer.getInteger("dungeon.autosave.commands", 50));
+    }
+
+    /**
+     * Конструктор с явными настройками.
+     * @param clock колесо таймеров реального времени
+     * @param tickMillis длительность тика колеса в миллисекундах
+     * @param intervalSeconds интервал автосохранения в секундах (0 — отключено)
+     * @param maxUnsaved порог несохранённых команд (0 — отключено)
+     */
+    public AutoSaver(TimerWheel clock, long tickMillis, long intervalSeconds, int maxUnsaved) {
+        this.clock = clock;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(intervalSeconds);
+        this.maxUnsaved = maxUnsaved;
+    }
+
+    /**
+     * Учитывает выполненную команду и при необходимости запускает автосохранение.
+     * Вызывается потоком команд после каждой успешной команды.
+     * @param s состояние игры
+     */
+    public void afterCommand(GameState s) {
+        unsaved++;
+        if (maxUnsaved > 0 && unsaved >= maxUnsaved) {
+            saveAsync(s, false);
+        } else if (timer == null) {
+            scheduleTimer(s);
+        }
+    }
+
+    /**
+     * Снимает снимок и ставит его запись в очередь потока записи.
+     * @param s состояние игры
+     * @param manual true — ручное сохранение в основной файл с записью в таблицу лидеров
+     *               (встаёт в очередь за уже идущим сохранением), false — автосохранение в свой файл
+     * @return true, если сохранение запущено; false, если это автосохранение, а предыдущее ещё не записано
+     */
+    public boolean saveAsync(GameState s, boolean manual) {
+        if (!manual && pending.get() > 0) {
+            skipped++;
+            return false;
+        }
+        StateSnapshot snapshot = s.snapshot();
+        pending.incrementAndGet();
+        long takenAt = System.nanoTime();
+        unsaved = 0;
+        // Интервал отсчитывается от последнего снимка
+        clock.cancel(timer);
+        scheduleTimer(s);
+        writer.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                SaveLoad.write(snapshot, manual ? SaveLoad.savePath() : SaveLoad.autoSavePath(), manual);
+                completed++;
+            } catch (UncheckedIOException e) {
+                System.out.println("Ошибка сохранения: " + e.getMessage());
+            } finally {
+                long end = System.nanoTime();
+                lastDurationNanos = end - start;
+                lastLagNanos = end - takenAt;
+                pending.decrementAndGet();
+            }
+        });
+        return true;
+    }
+
+    // Планирует автосохранение по времени; оно срабатывает, только если есть несохранённые команды
+    private void scheduleTimer(GameState s) {
+        timer = null;
+        if (intervalNanos <= 0) return;
+        timer = clock.schedule((intervalNanos + tickNanos - 1) / tickNanos, () -> {
+            timer = null;
+            if (unsaved > 0) saveAsync(s, false);
+        });
+    }
+
+    /**
+     * Дожидается записи уже запущенного сохранения (перед загрузкой файла сохранения).
+     */
+    public void await() {
+        try {
+            writer.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RejectedExecutionException e) {
+            // Поток записи уже остановлен: ждать нечего
+        }
+    }
+
+    /**
+     * Дожидается завершения текущего сохранения, чтобы не потерять его при выходе.
+     */
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Возвращает сводку метрик сохранения.
+     * @return строка с метриками
+     */
+    public String stats() {
+        return "Сохранений: " + completed
+                + ", пропущено автосохранений (предыдущее ещё шло): " + skipped
+                + ", в очереди записи: " + pending.get()
+                + "\nПоследняя запись: " + TimeUnit.NANOSECONDS.toMillis(lastDurationNanos) + " мс"
+                + ", отставание от снимка: " + TimeUnit.NANOSECONDS.toMillis(lastLagNanos) + " мс"
+                + "\nНесохранённых команд: " + unsaved
+                + " (порог " + (maxUnsaved > 0 ? maxUnsaved : "нет")
+                + ", интервал " + (intervalNanos > 0 ? TimeUnit.NANOSECONDS.toSeconds(intervalNanos) + " с" : "нет") + ")";
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.dungeon.core;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP/JSON API для ботов и интеграционных тестов на встроенном HttpServer JDK (только localhost).
+ * POST /sessions/{id}/commands с телом {"commands": ["look", "move north", ...]} (или просто
+ * массивом строк) выполняет команды сессии по порядку и возвращает одним ответом для каждой
+ * команды вывод, ошибку и изменившиеся поля состояния, а затем итоговое состояние сессии.
+ * GET /sessions/{id} возвращает состояние сессии без выполнения команд.
+ * Пачка из сотен команд — один запрос вместо сотен строк ввода и ожиданий ответа.
+ */
+public class BotServer {
+    // Предел размера тела запроса
+    private static final int MAX_BODY = 1 << 20;
+
+    static {
+        // HttpServer пишет заголовки и тело ответа отдельно: с алгоритмом Нейгла и отложенным ACK
+        // каждый запрос по keep-alive соединению ждёт ~40 мс. Свойство читается при загрузке
+        // HttpServer, поэтому задаётся до его создания (явное значение пользователя не трогаем).
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /**
+     * Результат одной команды пачки.
+     * @param command строка команды
+     * @param ok команда выполнена без ошибки
+     * @param output вывод команды
+     * @param error текст ошибки или null
+     * @param delta поля состояния, изменившиеся после команды
+     */
+    public record CommandResult(String command, boolean ok, String output, String error, Map<String, Object> delta) {
+    }
+
+    /**
+     * Результат пачки команд.
+     * @param results результаты по командам
+     * @param gameOver игра сессии окончена
+     * @param state итоговое состояние сессии
+     */
+    public record Batch(List<CommandResult> results, boolean gameOver, Map<String, Object> state) {
+    }
+
+    /**
+     * Выполняет пачку команд сессии.
+     */
+    @FunctionalInterface
+    public interface Runner {
+        /**
+         * Выполняет команды сессии по порядку.
+         * @param session id сессии
+         * @param commands строки команд (пустой список — только состояние)
+         * @return результат пачки
+         * @throws IllegalArgumentException если id сессии недопустим
+         */
+        Batch run(String session, List<String> commands);
+    }
+
+    // HTTP-сервер и его потоки
+    private final HttpServer server;
+    private final ExecutorService workers;
+    // Выполнение пачек
+    private final Runner runner;
+    // Метрики
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong commands = new AtomicLong();
+
+    /**
+     * Создаёт сервер на localhost.
+     * @param port порт (0 — любой свободный)
+     * @param threads потоков обработки запросов
+     * @param runner выполнение пачек команд
+     * @throws IOException если порт занят
+     */
+    public BotServer(int port, int threads, Runner runner) throws IOException {
+        this.runner = runner;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.workers = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "http-api");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(workers);
+        server.createContext("/sessions/", this::handle);
+    }
+
+    /**
+     * Запускает приём запросов.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Останавливает сервер, давая текущим запросам секунду на завершение.
+     */
+    public void stop() {
+        server.stop(1);
+        workers.shutdown();
+    }
+
+    /**
+     * Возвращает порт сервера.
+     * @return порт
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Возвращает сводку о запросах.
+     * @return строка с метриками
+     */
+    public String stats() {
+        return "Запросов API: " + requests.get() + ", команд: " + commands.get();
+    }
+
+    // Разбирает путь и метод, выполняет пачку и отвечает JSON
+    private void handle(HttpExchange ex) throws IOException {
+        requests.incrementAndGet();
+        try {
+            String[] path = ex.getRequestURI().getPath().split("/");
+            // "", "sessions", id[, "commands"]
+            if (path.length < 3 || path.length > 4 || (path.length == 4 && !path[3].equals("commands"))) {
+                reply(ex, 404, error("Нет такого адреса: " + ex.getRequestURI().getPath()));
+                return;
+            }
+            String method = ex.getRequestMethod();
+            boolean post = path.length == 4;
+            if (!method.equals(post ? "POST" : "GET")) {
+                ex.getResponseHeaders().set("Allow", post ? "POST" : "GET");
+                reply(ex, 405, error("Метод " + method + " не поддерживается"));
+                return;
+            }
+            try {
+                List<String> lines = post ? commands(readBody(ex.getRequestBody())) : List.of();
+                long start = System.nanoTime();
+                Batch batch = runner.run(path[2], lines);
+                commands.addAndGet(lines.size());
+                reply(ex, 200, json(path[2], batch, System.nanoTime() - start));
+            } catch (IllegalArgumentException e) {
+                reply(ex, 400, error(e.getMessage()));
+            }
+        } catch (RuntimeException e) {
+            reply(ex, 500, error(e.getClass().getSimpleName() + ": " + e.getMessage()));
+        } finally {
+            ex.close();
+        }
+    }
+
+    // Команды из тела запроса: {"commands": [...]} или [...]
+    private static List<String> commands(String body) {
+        Object doc = Json.parse(body);
+        if (doc instanceof Map<?, ?> map) doc = map.get("commands");
+        if (!(doc instanceof List<?> list)) throw new IllegalArgumentException("Ожидается {\"commands\": [\"команда\", ...]}");
+        List<String> lines = new ArrayList<>(list.size());
+        for (Object o : list) {
+            if (!(o instanceof String s)) throw new IllegalArgumentException("Команда должна быть строкой: " + o);
+            lines.add(s);
+        }
+        return lines;
+    }
+
+    // Тело запроса в UTF-8, не больше MAX_BODY
+    private static String readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_BODY + 1);
+        if (body.length > MAX_BODY) throw new IllegalArgumentException("Тело запроса больше " + MAX_BODY + " байт");
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    // Ответ с результатами пачки
+    private static String json(String session, Batch batch, long nanos) {
+        StringBuilder sb = new StringBuilder(256 + batch.results().size() * 128);
+        sb.append("{\"session\":");
+        Json.quote(sb, session).append(",\"results\":[");
+        for (int i = 0; i < batch.results().size(); i++) {
+            CommandResult r = batch.results().get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"command\":");
+            Json.quote(sb, r.command()).append(",\"ok\":").append(r.ok()).append(",\"output\":");
+            Json.quote(sb, r.output());
+            if (r.error() != null) Json.quote(sb.append(",\"error\":"), r.error());
+            Json.write(sb.append(",\"delta\":"), r.delta()).append('}');
+        }
+        sb.append("],\"gameOver\":").append(batch.gameOver());
+        Json.write(sb.append(",\"state\":"), batch.state());
+        return sb.append(",\"micros\":").append(nanos / 1000).append('}').toString();
+    }
+
+    // Ответ с ошибкой
+    private static String error(String message) {
+        return Json.quote(new StringBuilder("{\"error\":"), message).append('}').toString();
+    }
+
+    // Отправляет JSON-ответ
+    private static void reply(HttpExchange ex, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
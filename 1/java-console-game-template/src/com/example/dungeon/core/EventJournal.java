@@ -0,0 +1,56 @@
+package com.example.dungeon.core;
+
+import com.example.dungeon.model.EventRing;
+import com.example.dungeon.model.EventSink;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Журнал доменных событий: дописывает события в текстовый файл строками
+ * "время;номер;тип;комната;предмет". Работает в потоке потребителя буфера событий
+ * и сбрасывает буфер файла один раз на пачку событий, а не на каждое событие.
+ */
+public class EventJournal implements EventSink {
+    // Поток записи журнала
+    private final BufferedWriter out;
+
+    /**
+     * Открывает журнал для дописывания.
+     * @param path путь к файлу журнала
+     * @throws UncheckedIOException если файл не удалось открыть
+     */
+    public EventJournal(Path path) {
+        try {
+            out = Files.newBufferedWriter(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onEvent(EventRing.Event event, long sequence, boolean endOfBatch) {
+        try {
+            out.write(event.time() + ";" + sequence + ";" + event.type() + ";"
+                    + (event.room() == null ? "" : event.room()) + ";"
+                    + (event.subject() == null ? "" : event.subject()));
+            out.newLine();
+            if (endOfBatch) out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            System.err.println("Не удалось закрыть журнал событий: " + e.getMessage());
+        }
+    }
+}
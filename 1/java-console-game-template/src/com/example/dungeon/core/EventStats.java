@@ -0,0 +1,32 @@
+package com.example.dungeon.core;
+
+import com.example.dungeon.model.EventRing;
+import com.example.dungeon.model.EventSink;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Статистика доменных событий: количество событий каждого типа.
+ * Счётчики пишет только поток потребителя, а читает команда events.
+ */
+public class EventStats implements EventSink {
+    // Количество событий по порядковому номеру типа
+    private final AtomicLongArray counts = new AtomicLongArray(EventRing.Type.values().length);
+
+    @Override
+    public void onEvent(EventRing.Event event, long sequence, boolean endOfBatch) {
+        counts.incrementAndGet(event.type().ordinal());
+    }
+
+    /**
+     * Возвращает количество событий каждого типа.
+     * @return строка со счётчиками
+     */
+    public String stats() {
+        StringBuilder sb = new StringBuilder("События по типам:");
+        for (EventRing.Type type : EventRing.Type.values()) {
+            sb.append(' ').append(type).append('=').append(counts.get(type.ordinal()));
+        }
+        return sb.toString();
+    }
+}
@@ -5,7 +5,12 @@ import com.example.dungeon.model.*;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
 import java.util.stream.Collectors;
 
 /**
@@ -17,20 +22,160 @@ public class Game {
     private final GameState state = new GameState();
     // Карта команд, доступных игроку, где ключ - название команды, значение - функция выполнения
     private final Map<String, Command> commands = new LinkedHashMap<>();
+    // Команды, которые работают с текущей комнатой и могут её изменить (move учитывается отдельно)
+    private static final Set<String> ROOM_COMMANDS = Set.of("look", "take", "use", "fight");
+    // Команды, которые сами работают с историей и не открывают новый ход
+    private static final Set<String> HISTORY_COMMANDS = Set.of("undo", "rewind");
+    // Команды консоли: загрузка и перезагрузка меняют общий мир (save сессии пишет файл сессии)
+    private static final Set<String> CONSOLE_COMMANDS = Set.of("load", "reload-world", "session");
+    // Игровые действия, после которых мир делает ход (монстры бродят и нападают); осмотр look хода не тратит
+    private static final Set<String> TURN_COMMANDS = Set.of("move", "take", "use", "fight");
+    // Региональные шарды мира: учёт нагрузки по регионам комнат (свойство dungeon.shards, по умолчанию — по ядру)
+    private WorldShards shards;
+    // Длительность тика колеса реального времени
+    private static final long CLOCK_TICK_MILLIS = 100;
+    // Сколько комнат перечисляют команды find, where и rooms-with
+    private static final int FIND_LIMIT = 20;
+    // Радиус карты по умолчанию и наибольший (в комнатах от игрока)
+    private static final int MAP_RADIUS = 10;
+    private static final int MAP_MAX_RADIUS = 50;
+    // Колесо таймеров реального времени (автосохранение); продвигается потоком команд
+    private TimerWheel clock;
+    // Начало отсчёта реального времени колеса
+    private long clockStart;
+    // Фоновое сохранение и автосохранение
+    private AutoSaver saver;
+    // Статистика игроков за всё время с периодическим сбросом в файл
+    private StatsStore statsStore;
+    // Зерно всей случайности игры: генераторы сессий и симуляции монстров производны от него
+    private final long seed;
+    // Симуляция бродячих монстров, выполняется после каждого игрового действия
+    private MonsterSimulation monsters;
+    // Раскладка мира для команды map (общая для всех сессий; создаётся при первом обращении)
+    private WorldMap worldMap;
+    // Потребитель событий, считающий события по типам
+    private final EventStats eventStats = new EventStats();
+    // Горячая перезагрузка содержимого мира (создаётся при первом reload-world)
+    private WorldReloader reloader;
+    // Сессии других игроков в том же мире (создаются при первом обращении)
+    private Sessions sessions;
+    // Журнал воспроизведения (null — не пишется) и глубина вложенных execute (команда session)
+    private ReplayLog.Writer recorder;
+    private int depth;
+    // Повтор журнала: перезагруженный мир публикуется только там, где при записи
+    private boolean replaying;
+    private boolean reloadDue;
+    // Стартовая комната и характеристики игрока из файла мира — для новых сессий
+    private String startRoom;
+    private int startHp;
+    private int startAttack;
 
     static {
         WorldInfo.touch("Game");
     }
 
+    // Построен ли игровой мир (мир строится лениво, при первой команде)
+    private boolean worldReady;
+
     /**
      * Конструктор класса Game.
-     * Регистрирует команды и инициализирует игровой мир.
+     * Команды, игровой мир и подсистемы (шарды, сохранение, статистика, симуляция монстров)
+     * инициализируются лениво, при первой команде, чтобы первое приглашение появлялось как можно быстрее.
+     * Карта мира и перезагрузка мира создаются при первой своей команде.
+     * Зерно случайных чисел задаётся свойством dungeon.seed (по умолчанию — текущее время).
      */
     public Game() {
-        registerCommands();
-        bootstrapWorld();
+        this(Long.getLong("dungeon.seed", System.nanoTime()));
+    }
+
+    /**
+     * Конструктор с заданным зерном (повтор журнала).
+     * @param seed зерно всей случайности игры
+     */
+    Game(long seed) {
+        this.seed = seed;
+        state.setSeed(seed);
+        StartupProfile.mark("классы Game");
+    }
+
+    /**
+     * Возвращает карту команд, регистрируя команды при первом обращении.
+     * @return карта команд
+     */
+    private Map<String, Command> commands() {
+        if (commands.isEmpty()) {
+            registerCommands();
+            StartupProfile.mark("регистрация команд");
+        }
+        return commands;
+    }
+
+    /**
+     * Строит игровой мир и подсистемы игры при первом обращении.
+     */
+    private void ensureWorld() {
+        if (!worldReady) {
+            clock = new TimerWheel();
+            clockStart = System.nanoTime();
+            saver = new AutoSaver(clock, CLOCK_TICK_MILLIS);
+            statsStore = new StatsStore(clock, CLOCK_TICK_MILLIS);
+            shards = new WorldShards(Integer.getInteger("dungeon.shards", Runtime.getRuntime().availableProcessors()));
+            monsters = new MonsterSimulation(seed);
+            startEvents();
+            bootstrapWorld();
+            state.setStatsSource(statsStore::get);
+            state.getStats().discovered(state.getCurrent().getName());
+            startRoom = state.getCurrent().getName();
+            startHp = state.getPlayer().getHp();
+            startAttack = state.getPlayer().getAttack();
+            startRecording();
+            Runtime.getRuntime().addShutdownHook(new Thread(statsStore::shutdown, "stats-shutdown"));
+            worldReady = true;
+            StartupProfile.mark("загрузка мира");
+        }
     }
     
+    /**
+     * Подключает потребителей к буферу доменных событий, общему для всех сессий игры, и запускает
+     * их потоки: счёт (очко сессии за каждую её успешную команду), журнал (файл из свойства dungeon.journal; по умолчанию журнал
+     * не ведётся) и статистику. При завершении программы потребители
+     * дорабатывают опубликованные события, и журнал закрывается.
+     */
+    private void startEvents() {
+        EventRing events = state.getEvents();
+        events.addSink("score", (e, seq, endOfBatch) -> {
+            if (e.type() == EventRing.Type.COMMAND) e.session().addScore(1);
+        });
+        String journal = System.getProperty("dungeon.journal", "");
+        if (!journal.isEmpty()) {
+            try {
+                events.addSink("journal", new EventJournal(Paths.get(journal)));
+            } catch (UncheckedIOException e) {
+                System.out.println("Журнал событий отключён: " + e.getCause().getMessage());
+            }
+        }
+        events.addSink("stats", eventStats);
+        events.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(events::shutdown, "events-shutdown"));
+    }
+
+    /**
+     * Открывает журнал воспроизведения (файл из свойства dungeon.replay; по умолчанию
+     * запись не ведётся). В заголовок попадают зерно и файл мира с контрольной суммой.
+     */
+    private void startRecording() {
+        String file = System.getProperty("dungeon.replay", "");
+        if (file.isEmpty()) return;
+        Path world = Paths.get(System.getProperty("dungeon.world", "world.txt"));
+        try {
+            boolean fromFile = Files.exists(world);
+            recorder = ReplayLog.create(Paths.get(file), new ReplayLog.Header(seed, fromFile ? world.toString() : "",
+                    fromFile ? ReplayLog.crc(world) : 0, monsters.getMoveChance(), Door.RELOCK_TURNS));
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Журнал воспроизведения отключён: " + e.getMessage());
+        }
+    }
+
     // Примеры ошибок компиляции и выполнения:
     // Ошибка компиляции: следующая строка вызовет ошибку компиляции, 
     // так как строку нельзя привести к числу без преобразования
@@ -59,8 +204,12 @@ public class Game {
             long free = rt.freeMemory(), total = rt.totalMemory(), used = total - free;
             System.out.println("Память: used=" + used + " free=" + free + " total=" + total);
         });
-        // Команда alloc - выделяет большой объем памяти для демонстрации работы GC
-        commands.put("alloc", (ctx, a) -> {
+        // Команда heap-report - оценивает память мира по категориям и выводит паузы сборщика мусора
+        commands.put("heap-report", (ctx, a) -> System.out.print(HeapReport.report(ctx)));
+        // Команда alloc - выделяет большой объем памяти для демонстрации работы GC.
+        // Она заполняет кучу и вызывает System.gc(), что опасно в общей JVM, поэтому включается
+        // только свойством dungeon.alloc=true
+        if (Boolean.getBoolean("dungeon.alloc")) commands.put("alloc", (ctx, a) -> {
             System.out.println("Выделение большой памяти для демонстрации GC...");
             // Создаем массив объектов для заполнения памяти
             List<byte[]> memoryHog = new ArrayList<>();
@@ -94,23 +243,20 @@ public class Game {
                 throw new InvalidCommandException("Укажите направление: move <north|south|east|west>");
             }
             String direction = a.get(0).toLowerCase();
-            Room currentRoom = ctx.getCurrent();
-            Room nextRoom = currentRoom.getNeighbors().get(direction);
+            Room nextRoom = ctx.getCurrent().getNeighbors().get(direction);
             if (nextRoom == null) {
                 throw new InvalidCommandException("В этом направлении нет пути");
             }
             
-            // Проверяем, есть ли дверь между комнатами
-            // В текущей реализации двери не связаны с направлениями, 
-            // поэтому добавим специальную логику для комнаты с сокровищами
-            if (nextRoom.getName().equals("Комната сокровищ")) {
-                Door door = nextRoom.getDoor();
-                if (door != null && !door.canPass()) {
-                    throw new InvalidCommandException("Дверь в комнату сокровищ закрыта. Нужен ключ.");
-                }
+            // Дверь стоит на входе в комнату: войти можно, только если она открыта
+            Door door = nextRoom.getDoor();
+            if (door != null && !door.canPass()) {
+                throw new InvalidCommandException("Дверь «" + door.getName() + "» заперта. Нужен ключ.");
             }
-            
+            ctx.getHistory().roomChanged(ctx.getCurrent());
             ctx.setCurrent(nextRoom);
+            ctx.getEvents().publish(ctx, EventRing.Type.ROOM_ENTERED, nextRoom.getName(), null);
+            ctx.getStats().discovered(nextRoom.getName());
             System.out.println("Вы перешли в: " + nextRoom.getName());
         });
         // Команда take - позволяет игроку взять предмет из текущей комнаты
@@ -133,8 +279,11 @@ public class Game {
                 throw new InvalidCommandException("В этой комнате нет '" + itemName + "'");
             }
             
-            currentRoom.getItems().remove(itemToTake);
+            int index = currentRoom.getItems().indexOf(itemToTake);
+            currentRoom.getItems().remove(index);
             ctx.getPlayer().getInventory().add(itemToTake);
+            ctx.getHistory().itemTaken(currentRoom, itemToTake, index);
+            ctx.getEvents().publish(ctx, EventRing.Type.ITEM_TAKEN, currentRoom.getName(), itemToTake.getName());
             System.out.println("Взято: " + itemToTake.getName());
         });
         // Команда inventory - выводит содержимое инвентаря игрока с группировкой по типам предметов
@@ -183,6 +332,7 @@ public class Game {
             
             // Вызываем метод apply у предмета (полиморфизм)
             itemToUse.apply(ctx);
+            ctx.getStats().itemUsed();
         });
         // Команда fight - начинает бой между игроком и монстром в текущей комнате
         commands.put("fight", (ctx, a) -> {
@@ -202,17 +352,22 @@ public class Game {
             while (monster.getHp() > 0 && player.getHp() > 0) {
                 // Атака игрока
                 int playerDamage = playerAttack;
+                ctx.getHistory().hpChanged(monster, monster.getHp());
                 monster.setHp(monster.getHp() - playerDamage);
+                ctx.getStats().dealt(playerDamage);
                 System.out.println("Вы бьёте " + monster.getName() + " на " + playerDamage + ". HP монстра: " + Math.max(0, monster.getHp()));
                 
                 if (monster.getHp() <= 0) {
                     System.out.println("Вы победили " + monster.getName() + "!");
+                    ctx.getHistory().monsterChanged(currentRoom, monster);
                     currentRoom.setMonster(null); // Удаляем монстра из комнаты
+                    ctx.getEvents().publish(ctx, EventRing.Type.MONSTER_KILLED, currentRoom.getName(), monster.getName());
+                    ctx.getStats().killed(monster.getName());
                     
-                    // Выпадение лута (шанс 50%)
-                    if (Math.random() > 0.5) {
-                        Item loot = new Potion("Зелье опыта", 3);
+                    // Выпадение лута по таблице монстра; генератор случайных чисел — свой у сессии
+                    for (Item loot : ctx.lootTable(monster.getName()).roll(ctx.getRandom())) {
                         currentRoom.getItems().add(loot);
+                        ctx.getHistory().itemDropped(currentRoom, loot);
                         System.out.println("Монстр выбросил: " + loot.getName());
                     }
                     break;
@@ -220,42 +375,221 @@ public class Game {
                 
                 // Атака монстра
                 int monsterDamage = monsterAttack;
+                ctx.getHistory().hpChanged(player, player.getHp());
                 player.setHp(player.getHp() - monsterDamage);
+                ctx.getStats().taken(monsterDamage);
                 System.out.println("Монстр отвечает на " + monsterDamage + ". Ваше HP: " + Math.max(0, player.getHp()));
                 
                 if (player.getHp() <= 0) {
                     System.out.println("Вы были побеждены! Игра окончена.");
-                    System.exit(0); // Завершаем игру при смерти игрока
+                    ctx.getEvents().publish(ctx, EventRing.Type.PLAYER_DIED, currentRoom.getName(), monster.getName());
+                    ctx.endGame(); // Игра окончена: цикл команд завершится после этой команды
                     break;
                 }
-                
-                // Небольшая пауза для лучшего восприятия боя
+            }
+        });
+        // Команда undo - отменяет последние ходы, которые что-то изменили
+        commands.put("undo", (ctx, a) -> {
+            int n = a.isEmpty() ? 1 : parseCount(a.get(0), "undo [n]");
+            int undone = ctx.getHistory().undo(ctx, n);
+            System.out.println("Отменено ходов: " + undone + ". Вы в: " + ctx.getCurrent().getName());
+        });
+        // Команда rewind - откатывает мир на заданное количество ходов назад (включая ходы без изменений)
+        commands.put("rewind", (ctx, a) -> {
+            if (a.isEmpty()) {
+                throw new InvalidCommandException("Укажите количество ходов: rewind <ходов>");
+            }
+            int rewound = ctx.getHistory().rewind(ctx, parseCount(a.get(0), "rewind <ходов>"));
+            System.out.println("Откат на ходов: " + rewound + ". Вы в: " + ctx.getCurrent().getName());
+        });
+        // Команда save - сохраняет текущее состояние игры (другая сессия сохраняется в свой файл)
+        commands.put("save", (ctx, a) -> {
+            if (ctx != state) {
+                System.out.println("Сессия сохранена: " + sessions().save(ctx));
+            } else {
+                saver.saveAsync(ctx, true);
+                System.out.println("Сохранение в фоне: " + SaveLoad.savePath().toAbsolutePath());
+            }
+        });
+        // Команда save-stats - выводит длительность и отставание фоновых сохранений
+        commands.put("save-stats", (ctx, a) -> System.out.println(saver.stats()));
+        // Команда sim - выводит метрики симуляции монстров
+        commands.put("sim", (ctx, a) -> System.out.println(monsters.stats()));
+        // Команда find - показывает комнаты, где лежит предмет
+        commands.put("find", (ctx, a) -> {
+            if (a.isEmpty()) {
+                throw new InvalidCommandException("Укажите название предмета: find <предмет>");
+            }
+            String itemName = String.join(" ", a);
+            printRooms("Предмет «" + itemName + "»", ctx.getIndex().withItem(itemName));
+        });
+        // Команда where - показывает комнаты, где находится монстр
+        commands.put("where", (ctx, a) -> {
+            if (a.isEmpty()) {
+                throw new InvalidCommandException("Укажите название монстра: where <монстр>");
+            }
+            String monsterName = String.join(" ", a);
+            printRooms("Монстр «" + monsterName + "»", ctx.getIndex().withMonster(monsterName));
+        });
+        // Команда rooms-with - показывает комнаты с предметами заданного типа, монстрами или дверями
+        commands.put("rooms-with", (ctx, a) -> {
+            if (a.size() != 1) {
+                throw new InvalidCommandException("Укажите тип: rooms-with <potion|weapon|key|monster|door>");
+            }
+            printRooms("Тип «" + a.get(0) + "»", ctx.getIndex().withType(a.get(0)));
+        });
+        // Команда map - рисует открытые комнаты вокруг игрока по направлениям выходов
+        commands.put("map", (ctx, a) -> {
+            int radius = MAP_RADIUS;
+            if (!a.isEmpty()) {
                 try {
-                    Thread.sleep(500);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
+                    radius = Integer.parseInt(a.get(0));
+                } catch (NumberFormatException e) {
+                    radius = -1;
+                }
+                if (radius < 1 || radius > MAP_MAX_RADIUS) {
+                    throw new InvalidCommandException("Укажите радиус от 1 до " + MAP_MAX_RADIUS + ": map [радиус]");
                 }
             }
+            System.out.print(worldMap().render(ctx, radius));
+        });
+        // Команда stats - выводит статистику игрока за всё время
+        commands.put("stats", (ctx, a) -> {
+            System.out.println("Статистика игрока " + ctx.getPlayer().getName() + ":");
+            System.out.println(ctx.getStats().describe());
+            System.out.println(statsStore.stats());
+        });
+        // Команда reload-world - собирает мир из файла в фоне; новый мир подменит старый перед одной из следующих команд
+        commands.put("reload-world", (ctx, a) -> {
+            Path file = Paths.get(a.isEmpty() ? System.getProperty("dungeon.world", "world.txt") : String.join(" ", a));
+            if (!Files.exists(file)) {
+                throw new InvalidCommandException("Файл мира не найден: " + file);
+            }
+            if (reloader().reloadAsync(file)) {
+                System.out.println("Сборка мира из " + file + " запущена в фоне; игра продолжается в текущем мире.");
+            } else {
+                System.out.println("Предыдущая перезагрузка мира ещё не завершена. " + reloader.stats());
+            }
+        });
+        // Команда session - выполняет команду от имени другой сессии в том же мире
+        commands.put("session", (ctx, a) -> {
+            if (a.size() < 2) {
+                throw new InvalidCommandException("Укажите сессию и команду: session <id> <команда>");
+            }
+            String line = String.join(" ", a.subList(1, a.size()));
+            try {
+                String error = sessions().run(a.get(0), s -> execute(s, line));
+                if (error != null) System.out.println(error);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidCommandException(e.getMessage());
+            }
+        });
+        // Команда sessions - выводит активные и усыплённые сессии
+        commands.put("sessions", (ctx, a) -> System.out.println(sessions == null ? "Других сессий нет" : sessions.stats()));
+        // Команда shards - выводит нагрузку региональных шардов
+        commands.put("shards", (ctx, a) -> System.out.println(shards.stats()));
+        // Команда events - выводит метрики буфера событий и количество событий по типам
+        commands.put("events", (ctx, a) -> {
+            System.out.println(ctx.getEvents().stats());
+            System.out.println(eventStats.stats());
+        });
+        // Команда timers - выводит ожидающие таймеры и их опоздание
+        commands.put("timers", (ctx, a) -> {
+            System.out.println("Таймеры ходов сессии (тик — ход): " + ctx.getTimers().stats());
+            System.out.println("Таймеры мира (тик — ход любой сессии): " + ctx.getWorld().getTimers().stats());
+            System.out.println("Таймеры времени (тик — " + CLOCK_TICK_MILLIS + " мс): " + clock.stats());
+        });
+        // Команда load - загружает сохраненное состояние игры (load auto - из автосохранения)
+        commands.put("load", (ctx, a) -> {
+            boolean auto = !a.isEmpty() && a.get(0).equalsIgnoreCase("auto");
+            if (!a.isEmpty() && !auto) {
+                throw new InvalidCommandException("Использование: load [auto]");
+            }
+            Path save = auto ? SaveLoad.autoSavePath() : SaveLoad.savePath();
+            // Фоновое сохранение, запущенное командой save, должно успеть попасть в файл
+            saver.await();
+            // Журнал воспроизведения хранит загружаемый файл: при повторе его на диске может не быть
+            if (recorder != null) {
+                try {
+                    recorder.loaded(Files.exists(save) ? Files.readAllBytes(save) : null);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Не удалось прочитать сохранение", e);
+                }
+            }
+            // Комнаты мира заменены: другие сессии переходят в комнаты с теми же названиями
+            if (SaveLoad.load(ctx, save) && sessions != null) {
+                sessions.forEachActive(other -> WorldReloader.relocate(other, ctx.getCurrent()));
+            }
         });
-        // Команда save - сохраняет текущее состояние игры
-        commands.put("save", (ctx, a) -> SaveLoad.save(ctx));
-        // Команда load - загружает сохраненное состояние игры
-        commands.put("load", (ctx, a) -> SaveLoad.load(ctx));
         // Команда scores - выводит таблицу лидеров
         commands.put("scores", (ctx, a) -> SaveLoad.printScores());
         // Команда exit - завершает игру
         commands.put("exit", (ctx, a) -> {
             System.out.println("Пока!");
-            System.exit(0);
+            ctx.endGame(); // Цикл команд завершится и дождётся незавершённого сохранения
         });
     }
 
+    /**
+     * Выводит найденные по индексу комнаты; больше FIND_LIMIT комнат не перечисляется,
+     * поэтому вывод не растёт вместе с миром.
+     * @param what что искали
+     * @param found найденные комнаты
+     */
+    private static void printRooms(String what, Set<Room> found) {
+        if (found.isEmpty()) {
+            System.out.println(what + ": не найдено");
+            return;
+        }
+        List<String> names = new ArrayList<>(Math.min(found.size(), FIND_LIMIT));
+        for (Room room : found) {
+            if (names.size() == FIND_LIMIT) break;
+            names.add(room.getName());
+        }
+        String more = found.size() > FIND_LIMIT ? " и ещё " + (found.size() - FIND_LIMIT) : "";
+        System.out.println(what + " в комнатах (" + found.size() + "): " + String.join(", ", names) + more);
+    }
+
+    /**
+     * Разбирает положительное число ходов для undo/rewind.
+     * @param s строка с числом
+     * @param usage подсказка по использованию команды
+     * @return количество ходов
+     */
+    private static int parseCount(String s, String usage) {
+        try {
+            int n = Integer.parseInt(s);
+            if (n > 0) return n;
+        } catch (NumberFormatException ignored) {
+            // сообщение ниже
+        }
+        throw new InvalidCommandException("Ожидается положительное число: " + usage);
+    }
+
     /**
      * Инициализирует начальное состояние игрового мира.
-     * Создает игрока, комнаты, устанавливает связи между комнатами, размещает предметы и монстров.
+     * Мир загружается из файла мира (свойство dungeon.world, по умолчанию world.txt) через двоичный кэш;
+     * если файла нет, создается встроенный мир: игрок, комнаты, связи между ними, предметы и монстры.
      */
     private void bootstrapWorld() {
+        // Мир из внешнего файла (по умолчанию world.txt), если он есть
+        Path world = Paths.get(System.getProperty("dungeon.world", "world.txt"));
+        if (Files.exists(world)) {
+            try {
+                WorldLoader.load(world, state);
+                return;
+            } catch (WorldFormatException e) {
+                System.out.println("Ошибка в файле мира: " + e.getMessage());
+                System.out.println("Используется встроенный мир.");
+            }
+        }
+        buildDefaultWorld();
+    }
+
+    /**
+     * Строит встроенный мир, если внешний файл мира не найден.
+     */
+    private void buildDefaultWorld() {
         // Создаем игрока с начальными характеристиками
         Player hero = new Player("Герой", 20, 5);
         state.setPlayer(hero);
@@ -269,22 +603,24 @@ public class Game {
         Room treasureRoom = new Room("Комната сокровищ", "Таинственная комната с сокровищами.");
         Door secretDoor = new Door("Секретная дверь");
         treasureRoom.setDoor(secretDoor);
-        treasureRoom.getItems().add(new Weapon("Волшебный меч", 10)); // Добавляем ценное оружие в комнату сокровищ
+        treasureRoom.getItems().add(ItemCatalog.weapon("Волшебный меч", 10)); // Добавляем ценное оружие в комнату сокровищ
         
         // Устанавливаем связи между комнатами (направления переходов)
         square.getNeighbors().put("north", forest);
         forest.getNeighbors().put("south", square);
         forest.getNeighbors().put("east", cave);
         cave.getNeighbors().put("west", forest);
-        // Добавляем переход к комнате сокровищ через дверь (после открытия)
-        // Пока дверь закрыта, доступа комнате сокровищ нет
+        // Переход к комнате сокровищ закрыт дверью, ключ от которой лежит в пещере
+        cave.getNeighbors().put("east", treasureRoom);
+        treasureRoom.getNeighbors().put("west", cave);
         
         // Добавляем предметы и монстров в комнаты
-        forest.getItems().add(new Potion("Малое зелье", 5));
+        forest.getItems().add(ItemCatalog.potion("Малое зелье", 5));
         forest.setMonster(new Monster("Волк", 1, 8));
         
         // Добавляем ключ в пещеру
-        cave.getItems().add(new Key("Ключ от секретной двери", "Секретная дверь"));
+        cave.getItems().add(ItemCatalog.key("Ключ от секретной двери", "Секретная дверь"));
+        cave.getItems().add(ItemCatalog.potion("Эликсир регенерации", 12, 4)); // лечит 12 HP за 4 хода
 
         // Устанавливаем начальную комнату для игрока
         state.setCurrent(square);
@@ -296,44 +632,410 @@ public class Game {
         state.addRoom("Комната сокровищ", treasureRoom);
     }
 
+    /**
+     * Выполняет команду в потоке игрового цикла и учитывает её в нагрузке региональных шардов.
+     * @param s состояние сессии
+     * @param name название команды
+     * @param c команда
+     * @param args аргументы команды
+     */
+    private void dispatch(GameState s, String name, Command c, List<String> args) {
+        if (!HISTORY_COMMANDS.contains(name)) {
+            s.getHistory().beginTurn();
+        }
+        shards.assign(s);
+        Room room = s.getCurrent();
+        boolean inRoom = ROOM_COMMANDS.contains(name);
+        try {
+            c.execute(s, args);
+        } finally {
+            // Комната могла измениться (предметы, монстр, дверь) — следующий снимок её пересоберёт
+            if (inRoom) s.touch(room);
+        }
+        if (inRoom || name.equals("move")) {
+            shards.record(s.getPlayer(), s.getCurrent());
+        } else {
+            // Игрок мог сменить комнату не через move (load, undo, rewind)
+            shards.locate(s.getPlayer(), s.getCurrent());
+        }
+        tick(s, name);
+    }
+
+    /**
+     * Делает ход мира после игрового действия: срабатывают таймеры ходов сессии (возрождение,
+     * регенерация) и таймеры мира (запирание дверей), затем монстры бродят и нападают.
+     * Изменения сессии входят в тот же ход истории, что и команда игрока.
+     * @param s состояние сессии
+     * @param name название выполненной команды
+     */
+    private void tick(GameState s, String name) {
+        if (TURN_COMMANDS.contains(name) && !s.isGameOver()) {
+            s.getTimers().tick();
+            s.getWorld().getTimers().tick();
+            monsters.tick(s);
+        }
+    }
+
+    /**
+     * Выполняет строку команды в сессии; команда выводит результат сама, а ошибка возвращается.
+     * Команды всех сессий выполняются по очереди: мир, история, таймеры и симуляция монстров общие.
+     * Выполненная команда записывается в журнал воспроизведения; команда, которую выполнила
+     * другая команда (session), повторится вместе с ней и отдельно не пишется.
+     * @param s состояние сессии
+     * @param line строка команды
+     * @return текст ошибки или null, если команда выполнена
+     */
+    private synchronized String execute(GameState s, String line) {
+        depth++;
+        try {
+            return perform(s, line);
+        } finally {
+            if (--depth == 0 && recorder != null) {
+                String id = s == state ? null : s.getPlayer().getName();
+                if (recorder.command(id, line)) recorder.check(id, digest(s));
+            }
+        }
+    }
+
+    /**
+     * Разбирает и выполняет строку команды (см. execute).
+     * @param s состояние сессии
+     * @param line строка команды
+     * @return текст ошибки или null, если команда выполнена
+     */
+    private String perform(GameState s, String line) {
+        // Разбиваем строку на части по пробелам
+        List<String> parts = Arrays.asList(line.trim().split("\\s+"));
+        // Первая часть - команда, остальные - аргументы
+        String cmd = parts.get(0).toLowerCase(Locale.ROOT);
+        List<String> args = parts.subList(1, parts.size());
+        // Получаем команду из карты команд
+        Command c = commands().get(cmd);
+        try {
+            if (c == null) throw new InvalidCommandException("Неизвестная команда: " + cmd);
+            if (s != state && CONSOLE_COMMANDS.contains(cmd)) {
+                throw new InvalidCommandException("Команда доступна только в консоли: " + cmd);
+            }
+            ensureWorld();
+            // Мир, собранный командой reload-world, подменяет старый между командами
+            if (reloader != null) {
+                long version = reloader.version();
+                String reloaded = replaying && !reloadDue ? reloader.bind(s) : reloader.install(s);
+                reloadDue = false;
+                if (reloaded != null) System.out.println(reloaded);
+                if (reloader.version() != version) {
+                    // Мир опубликован: остальные сессии в памяти переходят на него сразу, а не по одной
+                    reloader.bind(state);
+                    if (sessions != null) sessions.forEachActive(reloader::bind);
+                    if (recorder != null) recorder.worldReloaded(reloader.file());
+                }
+            }
+            // Выполняем команду с переданными аргументами
+            dispatch(s, cmd, c, args);
+            // Успешная команда — событие; очко за неё начисляет сессии потребитель счёта
+            s.getEvents().publish(s, EventRing.Type.COMMAND, null, cmd);
+            s.getStats().command();
+            // Автосохранение (файл сохранения один — у консольной сессии) по числу команд или по времени
+            if (s == state) saver.afterCommand(s);
+            // Таймеры реального времени, срок которых наступил, пока ждали команду
+            clock.advanceTo((System.nanoTime() - clockStart) / 1_000_000 / CLOCK_TICK_MILLIS);
+            return null;
+        } catch (InvalidCommandException e) {
+            // Обработка пользовательских ошибок команд
+            return "Ошибка: " + e.getMessage();
+        } catch (Exception e) {
+            // Обработка непредвиденных ошибок
+            return "Непредвиденная ошибка: " + e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+    }
+
+    /**
+     * Выполняет пачку команд сессии для API ботов и генератора нагрузки: вывод каждой команды
+     * перехватывается (если установлен OutputCapture), а после неё сравнивается состояние игрока.
+     * Когда игра сессии окончена, остальные команды пачки не выполняются. Монитор игры берётся
+     * раньше блокировки сессии — в том же порядке, что и у консольной команды session.
+     * @param id id сессии
+     * @param lines строки команд
+     * @return результаты команд и итоговое состояние
+     * @throws IllegalArgumentException если id сессии недопустим
+     */
+    public synchronized BotServer.Batch play(String id, List<String> lines) {
+        ensureWorld();
+        return sessions().run(id, s -> {
+            List<BotServer.CommandResult> results = new ArrayList<>(lines.size());
+            Map<String, Object> before = view(s);
+            for (String line : lines) {
+                if (s.isGameOver()) {
+                    results.add(new BotServer.CommandResult(line, false, "", "Игра окончена", Map.of()));
+                    continue;
+                }
+                String[] error = new String[1];
+                String output = OutputCapture.capture(() -> error[0] = execute(s, line));
+                Map<String, Object> after = view(s);
+                Map<String, Object> delta = new LinkedHashMap<>();
+                for (Map.Entry<String, Object> e : after.entrySet()) {
+                    if (!e.getValue().equals(before.get(e.getKey()))) delta.put(e.getKey(), e.getValue());
+                }
+                results.add(new BotServer.CommandResult(line, error[0] == null, output, error[0], delta));
+                before = after;
+            }
+            return new BotServer.Batch(results, s.isGameOver(), before);
+        });
+    }
+
+    /**
+     * Возвращает состояние игрока сессии для ответов API.
+     * @param s состояние сессии
+     * @return поля состояния
+     */
+    private static Map<String, Object> view(GameState s) {
+        // Счёт начисляет потребитель событий — он догоняет опубликованные события
+        s.getEvents().awaitProcessed();
+        Map<String, Object> v = new LinkedHashMap<>();
+        Player p = s.getPlayer();
+        v.put("room", s.getCurrent().getName());
+        v.put("hp", p.getHp());
+        v.put("attack", p.getAttack());
+        v.put("score", s.getScore());
+        v.put("inventory", p.getInventory().stream().map(Item::getName).collect(Collectors.toList()));
+        return v;
+    }
+
+    /**
+     * Запускает API ботов на localhost и консольный цикл. Если ввод консоли закрыт,
+     * API продолжает работу до остановки процесса.
+     * Число потоков обработки запросов задаётся свойством dungeon.http.threads (по умолчанию 4).
+     * @param port порт (0 — любой свободный)
+     */
+    public void serve(int port) {
+        ensureWorld();
+        OutputCapture.install();
+        BotServer server;
+        try {
+            server = new BotServer(port, Integer.getInteger("dungeon.http.threads", 4), this::play);
+        } catch (IOException e) {
+            System.out.println("API ботов не запущен: " + e.getMessage());
+            return;
+        }
+        server.start();
+        System.out.println("API ботов: POST http://localhost:" + server.port() + "/sessions/<id>/commands");
+        loop();
+        if (!state.isGameOver()) {
+            System.out.println("Ввод консоли закрыт, API работает до остановки процесса.");
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop();
+                close();
+            }, "http-shutdown"));
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        server.stop();
+        close();
+    }
+
+    /**
+     * Возвращает раскладку мира для команды map, создавая её при первом обращении.
+     * @return раскладка мира
+     */
+    private WorldMap worldMap() {
+        if (worldMap == null) worldMap = new WorldMap();
+        return worldMap;
+    }
+
+    /**
+     * Возвращает перезагрузку мира, создавая её при первом обращении.
+     * @return перезагрузка мира
+     */
+    private WorldReloader reloader() {
+        if (reloader == null) reloader = new WorldReloader();
+        return reloader;
+    }
+
+    /**
+     * Возвращает сессии других игроков, создавая их при первом обращении.
+     * @return сессии
+     */
+    private Sessions sessions() {
+        if (sessions == null) {
+            sessions = new Sessions(this::newSession, s -> shards.leave(s.getPlayer()));
+            sessions.setListener(recorder);
+            // Сессии усыпляются между командами, под той же блокировкой, что и execute
+            sessions.setCommandExecutor(task -> {
+                synchronized (this) {
+                    task.run();
+                }
+            });
+        }
+        return sessions;
+    }
+
+    /**
+     * Создаёт состояние новой сессии: игрок с именем сессии и характеристиками из файла мира
+     * в стартовой комнате общего мира.
+     * @param id id сессии
+     * @return состояние сессии
+     */
+    private GameState newSession(String id) {
+        GameState s = new GameState();
+        s.shareWorld(state);
+        // Генератор сессии производен от зерна игры, чтобы повтор журнала дал те же броски
+        s.setSeed(seed ^ id.hashCode() * 0x9E3779B97F4A7C15L);
+        s.setPlayer(new Player(id, startHp, startAttack));
+        Room start = s.getRoom(startRoom);
+        s.setCurrent(start != null ? start : state.getCurrent());
+        return s;
+    }
+
     /**
      * Запускает основной игровой цикл.
      * Читает команды от пользователя и выполняет соответствующие действия.
      */
     public void run() {
+        loop();
+        close();
+    }
+
+    /**
+     * Читает команды консоли и выполняет их, пока ввод не закончится или игра не будет окончена.
+     */
+    private void loop() {
         System.out.println("DungeonMini (TEMPLATE). 'help' — команды.");
         // Используем try-with-resources для автоматического закрытия потока ввода
         try (BufferedReader in = new BufferedReader(new InputStreamReader(System.in))) {
+            StartupProfile.report();
             while (true) {
                 System.out.print("> "); // Приглашение для ввода команды
                 String line = in.readLine(); // Читаем строку ввода
                 if (line == null) break; // Если достигнут конец ввода, выходим из цикла
                 line = line.trim(); // Убираем пробелы в начале и конце
                 if (line.isEmpty()) continue; // Если строка пустая, пропускаем итерацию
-                // Разбиваем строку на части по пробелам
-                List<String> parts = Arrays.asList(line.split("\\s+"));
-                // Первая часть - команда, остальные - аргументы
-                String cmd = parts.get(0).toLowerCase(Locale.ROOT);
-                List<String> args = parts.subList(1, parts.size());
-                // Получаем команду из карты команд
-                Command c = commands.get(cmd);
-                try {
-                    if (c == null) throw new InvalidCommandException("Неизвестная команда: " + cmd);
-                    // Выполняем команду с переданными аргументами
-                    c.execute(state, args);
-                    // Увеличиваем счет за успешное выполнение команды
-                    state.addScore(1);
-                } catch (InvalidCommandException e) {
-                    // Обработка пользовательских ошибок команд
-                    System.out.println("Ошибка: " + e.getMessage());
-                } catch (Exception e) {
-                    // Обработка непредвиденных ошибок
-                    System.out.println("Непредвиденная ошибка: " + e.getClass().getSimpleName() + ": " + e.getMessage());
-                }
+                String error = execute(state, line);
+                if (error != null) System.out.println(error);
+                // Игрок погиб или вышел
+                if (state.isGameOver()) break;
             }
         } catch (IOException e) {
             // Обработка ошибок ввода/вывода
             System.out.println("Ошибка ввода/вывода: " + e.getMessage());
         }
     }
+
+    /**
+     * Завершает игру: дожидается фонового сохранения, усыпляет сессии, сбрасывает статистику
+     * и закрывает журнал воспроизведения отпечатком всей игры.
+     */
+    public synchronized void close() {
+        // Не было ни одной команды — подсистемы не создавались, закрывать нечего
+        if (saver == null) return;
+        // Ввод закончился: дожидаемся фонового сохранения, чтобы оно не потерялось
+        saver.shutdown();
+        // Активные сессии других игроков усыпляются на диск и продолжатся при следующем запуске
+        if (sessions != null) sessions.shutdown();
+        // Статистика сбрасывается сразу, а не в обработчике завершения JVM
+        statsStore.shutdown();
+        if (recorder != null) {
+            recorder.close(finalDigest());
+            recorder = null;
+        }
+    }
+
+    /**
+     * Отпечаток состояния сессии для журнала воспроизведения. Счёт начисляет
+     * потребитель событий, поэтому сначала он догоняет опубликованные события.
+     * @param s состояние сессии
+     * @return отпечаток
+     */
+    long digest(GameState s) {
+        s.getEvents().awaitProcessed();
+        return ReplayLog.digest(s);
+    }
+
+    /**
+     * Отпечаток всей игры: консольная сессия и мир.
+     * @return отпечаток
+     */
+    long finalDigest() {
+        state.getEvents().awaitProcessed();
+        return ReplayLog.gameDigest(state);
+    }
+
+    /**
+     * Возвращает состояние консольной сессии.
+     * @return состояние консоли
+     */
+    GameState console() {
+        return state;
+    }
+
+    /**
+     * Включает режим повтора журнала: перезагруженный мир публикуется только по replayReload.
+     */
+    void replayMode() {
+        replaying = true;
+    }
+
+    /**
+     * Повторяет команду из журнала.
+     * @param session id сессии или null для консоли
+     * @param line строка команды
+     * @return состояние сессии после команды
+     */
+    synchronized GameState replayCommand(String session, String line) {
+        ensureWorld();
+        if (session == null) {
+            execute(state, line);
+            return state;
+        }
+        return sessions().run(session, s -> {
+            execute(s, line);
+            return s;
+        });
+    }
+
+    /**
+     * Повторяет усыпление сессии.
+     * @param session id сессии
+     * @return true, если сессия была в памяти
+     */
+    boolean replayHibernate(String session) {
+        return sessions().hibernate(session);
+    }
+
+    /**
+     * Подкладывает файл, из которого сессия была разбужена при записи.
+     * @param session id сессии
+     * @param file содержимое файла
+     * @return прежнее содержимое файла сессии или null
+     */
+    byte[] replayThaw(String session, byte[] file) {
+        return sessions().restore(session, file);
+    }
+
+    /**
+     * Подкладывает сохранение, которое консоль загрузила при записи.
+     * Журнал не различает load и load auto, поэтому файл подкладывается в оба слота.
+     * @param file содержимое файла сохранения или null, если файла не было
+     */
+    void replayLoad(byte[] file) {
+        try {
+            for (Path save : List.of(SaveLoad.savePath(), SaveLoad.autoSavePath())) {
+                if (file == null) Files.deleteIfExists(save);
+                else Files.write(save, file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось подготовить сохранение", e);
+        }
+    }
+
+    /**
+     * Дожидается сборки перезагружаемого мира и публикует его перед следующей командой.
+     */
+    void replayReload() {
+        reloader().await();
+        reloadDue = true;
+    }
 }
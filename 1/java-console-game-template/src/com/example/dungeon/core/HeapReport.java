@@ -0,0 +1,215 @@
+package com.example.dungeon.core;
+
+import com.example.dungeon.model.*;
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Отчёт о занимаемой миром памяти и о паузах сборщика мусора (команда heap-report).
+ * Удерживаемый размер оценивается обходом мира без агента и без System.gc(): размер объекта
+ * считается по его полям (заголовок, ссылки с учётом сжатых указателей, выравнивание до 8 байт),
+ * общие объекты (строки, предметы каталога) учитываются один раз. Ёмкость ArrayList и HashMap
+ * восстанавливается по правилам их роста, поэтому оценка приблизительная, но её достаточно,
+ * чтобы подобрать размер кучи под размер мира. Паузы сборщика берутся из GC MXBean.
+ */
+public final class HeapReport {
+    // Раскладка объектов в этой JVM
+    private static final boolean COMPRESSED_OOPS = vmFlag("UseCompressedOops", true);
+    private static final int REF = COMPRESSED_OOPS ? 4 : 8;
+    private static final int HEADER = vmFlag("UseCompressedClassPointers", true) ? 12 : 16;
+    private static final int ARRAY_HEADER = align(HEADER + 4);
+    // Размеры объектов по классу
+    private static final Map<Class<?>, Long> SHALLOW = new HashMap<>();
+    // Размер узла HashMap: заголовок, hash и три ссылки (key, value, next)
+    private static final long MAP_NODE = align(HEADER + 4 + 3L * REF);
+
+    /**
+     * Строит отчёт о памяти мира и паузах сборщика.
+     * Вызывается потоком команд между командами, когда мир не меняется.
+     * @param s состояние игры
+     * @return текст отчёта
+     */
+    public static String report(GameState s) {
+        long start = System.nanoTime();
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        long rooms = 0;
+        long doors = 0;
+        long items = 0;
+        long monsters = 0;
+        long neighbors = 0;
+        long strings = 0;
+        int roomCount = 0;
+        for (Room room : s.getRooms().values()) {
+            roomCount++;
+            rooms += shallow(room);
+            strings += string(room.getName(), seen);
+            items += list(room.getItems());
+            for (Item item : room.getItems()) {
+                if (!seen.add(item)) continue;
+                items += shallow(item);
+                strings += string(item.getName(), seen);
+                if (item instanceof Key k) strings += string(k.getDoorName(), seen);
+            }
+            Monster m = room.getMonster();
+            if (m != null && seen.add(m)) {
+                monsters += shallow(m);
+                strings += string(m.getName(), seen);
+            }
+            Door d = room.getDoor();
+            if (d != null) {
+                doors += shallow(d);
+                strings += string(d.getName(), seen);
+            }
+            neighbors += map(room.getNeighbors().size());
+            for (String dir : room.getNeighbors().keySet()) strings += string(dir, seen);
+        }
+        long worldMap = map(s.getRooms().size());
+        long texts = TextPool.byteSize() + (long) TextPool.size() * ARRAY_HEADER;
+
+        // Инвентарь игрока: список и предметы, ещё не учтённые в комнатах
+        Player p = s.getPlayer();
+        long inventory = p == null ? 0 : list(p.getInventory());
+        if (p != null) {
+            for (Item item : p.getInventory()) {
+                if (seen.add(item)) inventory += shallow(item) + string(item.getName(), seen);
+            }
+        }
+
+        long total = rooms + doors + items + monsters + neighbors + strings + worldMap + texts + inventory;
+        StringBuilder sb = new StringBuilder();
+        sb.append("Оценка памяти мира (комнат: ").append(roomCount).append(", сжатые ссылки: ")
+                .append(COMPRESSED_OOPS ? "да" : "нет").append("):\n");
+        line(sb, "комнаты", rooms, total);
+        line(sb, "двери", doors, total);
+        line(sb, "предметы (списки и объекты)", items, total);
+        line(sb, "монстры", monsters, total);
+        line(sb, "карты соседей", neighbors, total);
+        line(sb, "строки (названия)", strings, total);
+        line(sb, "описания (пул текстов)", texts, total);
+        line(sb, "карта комнат мира", worldMap, total);
+        if (p != null) line(sb, "инвентарь игрока " + p.getName() + " (" + p.getInventory().size() + ")", inventory, total);
+        sb.append(String.format("  итого: %s, в среднем %d байт на комнату%n", size(total), roomCount == 0 ? 0 : total / roomCount));
+        sb.append("Вне кучи (RoomColumns): ").append(RoomColumns.stats()).append('\n');
+        sb.append(String.format("Обход занял %d мс%n", (System.nanoTime() - start) / 1_000_000));
+        sb.append(gc());
+        return sb.toString();
+    }
+
+    /**
+     * Возвращает состояние кучи и паузы сборщиков мусора из MXBean.
+     * @return текст со статистикой сборщиков
+     */
+    public static String gc() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        StringBuilder sb = new StringBuilder();
+        sb.append("Куча: используется ").append(size(heap.getUsed())).append(" (включая мусор), выделено ")
+                .append(size(heap.getCommitted())).append(", максимум ")
+                .append(heap.getMax() < 0 ? "не задан" : size(heap.getMax())).append('\n');
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long count = gc.getCollectionCount();
+            long time = gc.getCollectionTime();
+            sb.append("  ").append(gc.getName()).append(": сборок ").append(count).append(", всего ").append(time).append(" мс");
+            if (count > 0) sb.append(String.format(", в среднем %.1f мс", (double) time / count));
+            if (gc instanceof com.sun.management.GarbageCollectorMXBean hs && hs.getLastGcInfo() != null) {
+                sb.append(", последняя ").append(hs.getLastGcInfo().getDuration()).append(" мс");
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    // Строка отчёта с долей от итога
+    private static void line(StringBuilder sb, String what, long bytes, long total) {
+        sb.append(String.format("  %-32s %10s  %5.1f%%%n", what, size(bytes), total == 0 ? 0.0 : 100.0 * bytes / total));
+    }
+
+    // Размер в удобных единицах
+    private static String size(long bytes) {
+        if (bytes < 10 * 1024) return bytes + " Б";
+        if (bytes < 10L * 1024 * 1024) return String.format("%.1f КБ", bytes / 1024.0);
+        return String.format("%.1f МБ", bytes / (1024.0 * 1024));
+    }
+
+    // Строка, если она ещё не учтена: объект String и массив символов (Latin-1 или UTF-16)
+    private static long string(String str, Set<Object> seen) {
+        if (str == null || !seen.add(str)) return 0;
+        boolean latin1 = str.chars().allMatch(c -> c < 256);
+        return shallow(str) + align(ARRAY_HEADER + (long) str.length() * (latin1 ? 1 : 2));
+    }
+
+    // ArrayList и его массив; ёмкость — по правилу роста (10, затем в 1,5 раза)
+    private static long list(List<?> list) {
+        long size = shallow(list);
+        if (list.isEmpty()) return size; // пустой список ссылается на общий пустой массив
+        long capacity = 10;
+        while (capacity < list.size()) capacity += capacity >> 1;
+        return size + align(ARRAY_HEADER + capacity * REF);
+    }
+
+    // HashMap, его таблица (степень двойки, заполнение до 0,75) и узлы
+    private static long map(int entries) {
+        long size = shallow(HashMap.class);
+        if (entries == 0) return size; // таблица создаётся при первой вставке
+        long table = 16;
+        while (table * 3 / 4 < entries) table <<= 1;
+        return size + align(ARRAY_HEADER + table * REF) + entries * MAP_NODE;
+    }
+
+    // Размер объекта без того, на что он ссылается
+    private static long shallow(Object o) {
+        return shallow(o.getClass());
+    }
+
+    // Размер объекта класса: заголовок и поля всех суперклассов, выровненные до 8 байт
+    private static synchronized long shallow(Class<?> type) {
+        Long cached = SHALLOW.get(type);
+        if (cached != null) return cached;
+        long bytes = HEADER;
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(f.getModifiers())) bytes += fieldSize(f.getType());
+            }
+        }
+        long result = align(bytes);
+        SHALLOW.put(type, result);
+        return result;
+    }
+
+    // Размер поля данного типа
+    private static int fieldSize(Class<?> t) {
+        if (t == long.class || t == double.class) return 8;
+        if (t == int.class || t == float.class) return 4;
+        if (t == short.class || t == char.class) return 2;
+        if (t == byte.class || t == boolean.class) return 1;
+        return REF;
+    }
+
+    // Выравнивание до 8 байт
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static int align(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    // Значение логического флага JVM (если MXBean недоступен — значение по умолчанию)
+    private static boolean vmFlag(String name, boolean fallback) {
+        try {
+            HotSpotDiagnosticMXBean bean = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            return Boolean.parseBoolean(bean.getVMOption(name).getValue());
+        } catch (RuntimeException e) {
+            return fallback;
+        }
+    }
+
+    // Приватный конструктор: утилитный класс
+    private HeapReport() {
+    }
+}
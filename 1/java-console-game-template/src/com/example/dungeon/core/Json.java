@@ -0,0 +1,219 @@
+package com.example.dungeon.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Минимальный JSON для API ботов: разбор запроса и экранирование строк ответа.
+ * Объекты разбираются в LinkedHashMap, массивы — в ArrayList, числа — в Double,
+ * true/false — в Boolean, null — в null.
+ */
+public final class Json {
+    // Разбираемый текст и позиция
+    private final String text;
+    private int pos;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Разбирает JSON-документ.
+     * @param text текст
+     * @return значение документа
+     * @throws IllegalArgumentException если текст не является корректным JSON
+     */
+    public static Object parse(String text) {
+        Json p = new Json(text);
+        Object value = p.value();
+        p.skipSpaces();
+        if (p.pos != text.length()) throw p.error("лишние символы после значения");
+        return value;
+    }
+
+    /**
+     * Записывает строку в кавычках с экранированием.
+     * @param sb куда писать
+     * @param s строка (null — литерал null)
+     * @return sb
+     */
+    public static StringBuilder quote(StringBuilder sb, String s) {
+        if (s == null) return sb.append("null");
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"');
+    }
+
+    /**
+     * Записывает значение: Map, List, строку, число, Boolean или null.
+     * @param sb куда писать
+     * @param value значение
+     * @return sb
+     */
+    public static StringBuilder write(StringBuilder sb, Object value) {
+        if (value == null || value instanceof String) return quote(sb, (String) value);
+        if (value instanceof Number || value instanceof Boolean) return sb.append(value);
+        if (value instanceof Map<?, ?> map) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                if (!first) sb.append(',');
+                first = false;
+                quote(sb, String.valueOf(e.getKey())).append(':');
+                write(sb, e.getValue());
+            }
+            return sb.append('}');
+        }
+        if (value instanceof List<?> list) {
+            sb.append('[');
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) sb.append(',');
+                write(sb, list.get(i));
+            }
+            return sb.append(']');
+        }
+        return quote(sb, value.toString());
+    }
+
+    // Значение любого типа
+    private Object value() {
+        skipSpaces();
+        if (pos >= text.length()) throw error("неожиданный конец");
+        char c = text.charAt(pos);
+        return switch (c) {
+            case '{' -> object();
+            case '[' -> array();
+            case '"' -> string();
+            case 't' -> literal("true", Boolean.TRUE);
+            case 'f' -> literal("false", Boolean.FALSE);
+            case 'n' -> literal("null", null);
+            default -> number();
+        };
+    }
+
+    // Объект
+    private Map<String, Object> object() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        pos++;
+        skipSpaces();
+        if (peek('}')) return map;
+        do {
+            skipSpaces();
+            if (pos >= text.length() || text.charAt(pos) != '"') throw error("ожидается имя поля");
+            String key = string();
+            skipSpaces();
+            expect(':');
+            map.put(key, value());
+            skipSpaces();
+        } while (peek(','));
+        expect('}');
+        return map;
+    }
+
+    // Массив
+    private List<Object> array() {
+        List<Object> list = new ArrayList<>();
+        pos++;
+        skipSpaces();
+        if (peek(']')) return list;
+        do {
+            list.add(value());
+            skipSpaces();
+        } while (peek(','));
+        expect(']');
+        return list;
+    }
+
+    // Строка в кавычках
+    private String string() {
+        StringBuilder sb = new StringBuilder();
+        pos++;
+        while (pos < text.length()) {
+            char c = text.charAt(pos++);
+            if (c == '"') return sb.toString();
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos >= text.length()) break;
+            char e = text.charAt(pos++);
+            switch (e) {
+                case '"', '\\', '/' -> sb.append(e);
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'u' -> {
+                    if (pos + 4 > text.length()) throw error("обрезанная \\u-последовательность");
+                    try {
+                        sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException ex) {
+                        throw error("неверная \\u-последовательность");
+                    }
+                    pos += 4;
+                }
+                default -> throw error("неизвестная escape-последовательность \\" + e);
+            }
+        }
+        throw error("незакрытая строка");
+    }
+
+    // Число
+    private Double number() {
+        int start = pos;
+        while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) pos++;
+        try {
+            return Double.valueOf(text.substring(start, pos));
+        } catch (NumberFormatException e) {
+            pos = start;
+            throw error("ожидается значение");
+        }
+    }
+
+    // true, false или null
+    private Object literal(String word, Object value) {
+        if (!text.startsWith(word, pos)) throw error("ожидается " + word);
+        pos += word.length();
+        return value;
+    }
+
+    // Пропускает пробельные символы
+    private void skipSpaces() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+    }
+
+    // Съедает символ, если он следующий
+    private boolean peek(char c) {
+        if (pos < text.length() && text.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    // Требует символ
+    private void expect(char c) {
+        if (!peek(c)) throw error("ожидается '" + c + "'");
+    }
+
+    // Ошибка разбора с позицией
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("JSON, позиция " + pos + ": " + message);
+    }
+}
@@ -0,0 +1,366 @@
+package com.example.dungeon.core;
+
+import com.example.dungeon.model.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Симуляция бродячих монстров, выполняемая каждый ход.
+ * Монстры переходят в соседние комнаты, убитые монстры возрождаются в своей комнате,
+ * а монстр в одной комнате с игроком нападает на него.
+ *
+ * Мир индексируется один раз (комнаты и выходы — в массивах), монстры делятся на регионы
+ * по комнатам, и регионы параллельно на пуле fork-join выбирают, куда идти, и разрешают заявки
+ * на комнаты; пул только читает комнаты. Сами переходы и возрождения применяет поток команд
+ * после того, как пул закончил. Все рабочие массивы выделяются при индексации,
+ * поэтому шаг симуляции не выделяет память на каждого монстра.
+ *
+ * Положение монстров принадлежит симуляции и в историю ходов не пишется. Таймеры возрождения
+ * стоят на колесе мира (World.getTimers), а не сессии, сделавшей ход. Если undo вернул убитого
+ * монстра в комнату, симуляция замечает его там живым и снимает с ожидания возрождения.
+ */
+public class MonsterSimulation {
+    // Монстров в одном регионе (от числа монстров зависит только количество регионов, не от числа ядер)
+    private static final int REGION_SIZE = 4096;
+    // Через сколько ходов убитый монстр возрождается
+    private static final int RESPAWN_TURNS = 20;
+    // Состояния монстра: жив, убит на этом ходу, ждёт таймера возрождения, пора возрождаться
+    private static final byte ALIVE = 0;
+    private static final byte KILLED = 1;
+    private static final byte DEAD = 2;
+    private static final byte RESPAWN = 3;
+
+    // Пул, на котором обрабатываются регионы
+    private final ForkJoinPool pool;
+    // Вероятность того, что монстр за ход перейдёт в соседнюю комнату
+    private final double moveChance;
+    // Базовое зерно случайных чисел регионов
+    private final long seed;
+
+    // Версия набора комнат, по которой построен индекс
+    private long indexedVersion = -1;
+    private Map<String, Room> indexedRooms;
+    // Комнаты и выходы (CSR: выходы комнаты i — exitTarget[exitStart[i] .. exitStart[i+1]))
+    private Room[] rooms = new Room[0];
+    private Map<Room, Integer> roomIndex = new IdentityHashMap<>();
+    private int[] exitStart = new int[1];
+    private int[] exitTarget = new int[0];
+    // Монстры: объект, родная комната, текущая комната, исходное HP, состояние
+    private Monster[] monsters = new Monster[0];
+    private int[] home = new int[0];
+    private int[] location = new int[0];
+    private int[] maxHp = new int[0];
+    private byte[] life = new byte[0];
+    // Намерение монстра на этот ход: индекс целевой комнаты или -1
+    private int[] intent = new int[0];
+    // Таймеры возрождения на колесе мира (null — не запланирован)
+    private TimerWheel.Timer[] respawn = new TimerWheel.Timer[0];
+    // Заявки на комнаты: (ход << 32) | (MAX - монстр) — побеждает монстр с меньшим индексом
+    private AtomicLongArray claims = new AtomicLongArray(0);
+    // Генераторы случайных чисел регионов
+    private SplittableRandom[] randoms = new SplittableRandom[0];
+    // Количество перемещений и убитых монстров в регионе за последний ход
+    private int[] regionMoves = new int[0];
+    private int[] regionKills = new int[0];
+
+    // Номер хода
+    private long turn;
+    // Метрики
+    private long lastStepNanos;
+    private long maxStepNanos;
+    private long totalStepNanos;
+    private long lastMoves;
+
+    /**
+     * Конструктор с настройками из системных свойств dungeon.monsters.move и dungeon.seed.
+     */
+    public MonsterSimulation() {
+        this(Long.getLong("dungeon.seed", System.nanoTime()));
+    }
+
+    /**
+     * Конструктор с вероятностью хода из свойства dungeon.monsters.move и заданным зерном.
+     * @param seed зерно случайных чисел (у игры одно зерно на всю случайность)
+     */
+    public MonsterSimulation(long seed) {
+        this(ForkJoinPool.commonPool(), Double.parseDouble(System.getProperty("dungeon.monsters.move", "0.25")), seed);
+    }
+
+    /**
+     * Конструктор с явными настройками.
+     * @param pool пул fork-join для обработки регионов
+     * @param moveChance вероятность перехода монстра за ход
+     * @param seed зерно случайных чисел
+     */
+    public MonsterSimulation(ForkJoinPool pool, double moveChance, long seed) {
+        this.pool = pool;
+        this.moveChance = moveChance;
+        this.seed = seed;
+    }
+
+    /**
+     * Выполняет один ход симуляции: перемещения, возрождения и нападения на игрока.
+     * Возрождение планируется на колесе таймеров мира (World.getTimers), которое
+     * владелец симуляции продвигает перед каждым ходом любой сессии.
+     * @param state состояние игры
+     */
+    public void tick(GameState state) {
+        long start = System.nanoTime();
+        if (indexedRooms != state.getRooms() || indexedVersion != state.getRoomsVersion()) {
+            index(state);
+        }
+        turn++;
+        Integer playerRoom = roomIndex.get(state.getCurrent());
+        int player = playerRoom == null ? -1 : playerRoom;
+        if (monsters.length > 0) {
+            pool.invoke(new RegionTask(0, randoms.length, player, true));
+            pool.invoke(new RegionTask(0, randoms.length, player, false));
+        }
+        long moves = applyMoves(state, player);
+        scheduleRespawns(state);
+        long nanos = System.nanoTime() - start;
+        lastStepNanos = nanos;
+        maxStepNanos = Math.max(maxStepNanos, nanos);
+        totalStepNanos += nanos;
+        lastMoves = moves;
+        if (player >= 0) aggro(state, rooms[player]);
+    }
+
+    /**
+     * Возвращает вероятность перехода монстра за ход.
+     * @return вероятность
+     */
+    public double getMoveChance() {
+        return moveChance;
+    }
+
+    /**
+     * Возвращает метрики симуляции.
+     * @return строка с метриками
+     */
+    public String stats() {
+        return "Монстров: " + monsters.length + ", регионов: " + randoms.length + ", ход: " + turn
+                + "\nПоследний шаг: " + String.format("%.3f", lastStepNanos / 1e6) + " мс"
+                + ", максимум: " + String.format("%.3f", maxStepNanos / 1e6) + " мс"
+                + ", в среднем: " + String.format("%.3f", turn == 0 ? 0 : totalStepNanos / 1e6 / turn) + " мс"
+                + "\nПеремещений за последний ход: " + lastMoves;
+    }
+
+    /**
+     * Возвращает длительность последнего шага в наносекундах.
+     * @return длительность шага
+     */
+    public long lastStepNanos() {
+        return lastStepNanos;
+    }
+
+    // Строит индекс комнат, выходов и монстров
+    private void index(GameState state) {
+        // Таймеры прежнего индекса относятся к монстрам, которых больше нет в мире
+        for (TimerWheel.Timer t : respawn) state.getWorld().getTimers().cancel(t);
+        Collection<Room> all = state.getRooms().values();
+        rooms = all.toArray(new Room[0]);
+        roomIndex = new IdentityHashMap<>(rooms.length * 2);
+        for (int i = 0; i < rooms.length; i++) roomIndex.put(rooms[i], i);
+        exitStart = new int[rooms.length + 1];
+        for (int i = 0; i < rooms.length; i++) exitStart[i + 1] = exitStart[i] + rooms[i].getNeighbors().size();
+        exitTarget = new int[exitStart[rooms.length]];
+        List<Integer> homes = new ArrayList<>();
+        for (int i = 0; i < rooms.length; i++) {
+            int k = exitStart[i];
+            for (Room n : rooms[i].getNeighbors().values()) {
+                Integer idx = roomIndex.get(n);
+                exitTarget[k++] = idx == null ? i : idx;
+            }
+            if (rooms[i].getMonster() != null) homes.add(i);
+        }
+        int count = homes.size();
+        monsters = new Monster[count];
+        home = new int[count];
+        location = new int[count];
+        maxHp = new int[count];
+        life = new byte[count];
+        intent = new int[count];
+        respawn = new TimerWheel.Timer[count];
+        for (int m = 0; m < count; m++) {
+            int r = homes.get(m);
+            monsters[m] = rooms[r].getMonster();
+            home[m] = r;
+            location[m] = r;
+            maxHp[m] = monsters[m].getHp();
+        }
+        claims = new AtomicLongArray(rooms.length);
+        int regions = (count + REGION_SIZE - 1) / REGION_SIZE;
+        randoms = new SplittableRandom[regions];
+        for (int g = 0; g < regions; g++) randoms[g] = new SplittableRandom(seed + g * 0x9E3779B97F4A7C15L);
+        regionMoves = new int[regions];
+        regionKills = new int[regions];
+        indexedRooms = state.getRooms();
+        indexedVersion = state.getRoomsVersion();
+    }
+
+    // Фаза 1 для региона: живы ли монстры, кто возрождается и куда каждый хочет пойти
+    private void plan(int region, int player) {
+        SplittableRandom rnd = randoms[region];
+        int from = region * REGION_SIZE;
+        int to = Math.min(monsters.length, from + REGION_SIZE);
+        long stamp = turn << 32;
+        int kills = 0;
+        for (int m = from; m < to; m++) {
+            intent[m] = -1;
+            Monster monster = monsters[m];
+            boolean inPlace = rooms[location[m]].getMonster() == monster && monster.getHp() > 0;
+            if (life[m] == ALIVE) {
+                // Монстр убит, если его больше нет в комнате, где он был
+                if (!inPlace) {
+                    life[m] = KILLED;
+                    kills++;
+                }
+                continue;
+            }
+            if (inPlace) {
+                // Убийство отменено (undo): монстр снова жив там, где погиб; таймер возрождения ничего не сделает
+                life[m] = ALIVE;
+                continue;
+            }
+            if (life[m] == RESPAWN && rooms[home[m]].getMonster() == null && home[m] != player) {
+                // Возрождение в родной комнате, если она свободна (через общую заявку на комнату)
+                intent[m] = home[m];
+                claims.accumulateAndGet(home[m], stamp | (Integer.MAX_VALUE - m), Math::max);
+            }
+        }
+        for (int m = from; m < to; m++) {
+            if (life[m] != ALIVE || location[m] == player) continue; // мёртвые и сражающиеся стоят
+            if (rnd.nextDouble() >= moveChance) continue;
+            int loc = location[m];
+            int exits = exitStart[loc + 1] - exitStart[loc];
+            if (exits == 0) continue;
+            int target = exitTarget[exitStart[loc] + rnd.nextInt(exits)];
+            Room t = rooms[target];
+            Door door = t.getDoor();
+            if (t.getMonster() != null || (door != null && !door.canPass())) continue;
+            intent[m] = target;
+            claims.accumulateAndGet(target, stamp | (Integer.MAX_VALUE - m), Math::max);
+        }
+        regionKills[region] = kills;
+    }
+
+    // Фаза 2 для региона: остаются только намерения победителей заявок (комнаты не меняются)
+    private void move(int region) {
+        int from = region * REGION_SIZE;
+        int to = Math.min(monsters.length, from + REGION_SIZE);
+        long stamp = turn << 32;
+        int moves = 0;
+        for (int m = from; m < to; m++) {
+            int target = intent[m];
+            if (target < 0) continue;
+            if (claims.get(target) != (stamp | (Integer.MAX_VALUE - m))) {
+                intent[m] = -1;
+                continue;
+            }
+            moves++;
+        }
+        regionMoves[region] = moves;
+    }
+
+    // Переводит (или возрождает) победителей в целевые комнаты в потоке команд и сообщает игроку о пришедших
+    private long applyMoves(GameState state, int player) {
+        long moves = 0;
+        for (int g = 0; g < regionMoves.length; g++) {
+            if (regionMoves[g] == 0) continue;
+            moves += regionMoves[g];
+            int from = g * REGION_SIZE;
+            int to = Math.min(monsters.length, from + REGION_SIZE);
+            for (int m = from; m < to; m++) {
+                int target = intent[m];
+                if (target < 0) continue;
+                Monster monster = monsters[m];
+                if (life[m] == RESPAWN) {
+                    monster.setHp(maxHp[m]);
+                    life[m] = ALIVE;
+                } else {
+                    rooms[location[m]].setMonster(null);
+                    state.touch(rooms[location[m]]);
+                }
+                rooms[target].setMonster(monster);
+                location[m] = target;
+                state.touch(rooms[target]);
+                if (target == player) {
+                    System.out.println("В комнату вошёл монстр: " + monster.getName());
+                }
+            }
+            regionMoves[g] = 0;
+        }
+        return moves;
+    }
+
+    // Ставит таймеры возрождения на колесе мира для монстров, убитых с прошлого хода
+    private void scheduleRespawns(GameState state) {
+        TimerWheel timers = state.getWorld().getTimers();
+        byte[] states = life; // таймер меняет массив своего индекса, даже если мир переиндексирован
+        for (int g = 0; g < regionKills.length; g++) {
+            if (regionKills[g] == 0) continue;
+            int from = g * REGION_SIZE;
+            int to = Math.min(monsters.length, from + REGION_SIZE);
+            for (int m = from; m < to; m++) {
+                if (states[m] != KILLED) continue;
+                states[m] = DEAD;
+                int monster = m;
+                // Прежний таймер (убийство было отменено, монстр ожил и погиб снова) больше не нужен
+                timers.cancel(respawn[m]);
+                respawn[m] = timers.schedule(RESPAWN_TURNS, () -> {
+                    if (states[monster] == DEAD) states[monster] = RESPAWN;
+                });
+            }
+            regionKills[g] = 0;
+        }
+    }
+
+    // Монстр в комнате игрока нападает на него
+    private void aggro(GameState state, Room room) {
+        Monster monster = room.getMonster();
+        if (monster == null || monster.getHp() <= 0) return;
+        Player player = state.getPlayer();
+        int damage = monster.getLevel();
+        state.getHistory().hpChanged(player, player.getHp());
+        player.setHp(player.getHp() - damage);
+        state.getStats().taken(damage);
+        System.out.println(monster.getName() + " нападает: -" + damage + " HP. Ваше HP: " + Math.max(0, player.getHp()));
+        if (player.getHp() <= 0) {
+            System.out.println("Вы были побеждены! Игра окончена.");
+            state.getEvents().publish(state, EventRing.Type.PLAYER_DIED, room.getName(), monster.getName());
+            state.endGame();
+        }
+    }
+
+    /**
+     * Задача fork-join над диапазоном регионов.
+     */
+    private final class RegionTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int player;
+        private final boolean planning;
+
+        RegionTask(int from, int to, int player, boolean planning) {
+            this.from = from;
+            this.to = to;
+            this.player = player;
+            this.planning = planning;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                if (planning) plan(from, player);
+                else move(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RegionTask(from, mid, player, planning), new RegionTask(mid, to, player, planning));
+        }
+    }
+}
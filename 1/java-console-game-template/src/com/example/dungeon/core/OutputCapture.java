@@ -0,0 +1,132 @@
+package com.example.dungeon.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Перехват вывода команд для API ботов.
+ * Команды пишут результат в System.out. После install вывод потока, для которого включён
+ * перехват, попадает в его буфер, а вывод остальных потоков (консоль) идёт в терминал как раньше.
+ * Подменённый System.out переводит текст в UTF-8, поэтому перехваченный вывод не зависит от
+ * кодировки терминала; в терминал текст идёт в его собственной кодировке.
+ */
+public final class OutputCapture {
+    // Буфер перехвата текущего потока (null — вывод идёт в терминал)
+    private static final ThreadLocal<ByteArrayOutputStream> TARGET = new ThreadLocal<>();
+    // Установлен ли перехватывающий System.out
+    private static boolean installed;
+
+    /**
+     * Подменяет System.out потоком, который умеет перехватывать вывод отдельных потоков.
+     * Повторный вызов ничего не делает.
+     */
+    public static synchronized void install() {
+        if (installed) return;
+        PrintStream terminal = System.out;
+        OutputStream console = stdoutCharset().equals(StandardCharsets.UTF_8) ? terminal : new Transcoder(terminal);
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                ByteArrayOutputStream target = TARGET.get();
+                if (target != null) target.write(b);
+                else console.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ByteArrayOutputStream target = TARGET.get();
+                if (target != null) target.write(b, off, len);
+                else console.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (TARGET.get() == null) console.flush();
+            }
+        }, true, StandardCharsets.UTF_8));
+        installed = true;
+    }
+
+    /**
+     * Выполняет действие, перехватывая вывод текущего потока.
+     * @param action действие
+     * @return перехваченный вывод
+     */
+    public static String capture(Runnable action) {
+        ByteArrayOutputStream previous = TARGET.get();
+        ByteArrayOutputStream target = new ByteArrayOutputStream(256);
+        TARGET.set(target);
+        try {
+            action.run();
+        } finally {
+            System.out.flush();
+            TARGET.set(previous);
+        }
+        return target.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Вывод в терминал с другой кодировкой: байты UTF-8 переводятся обратно в текст, и терминал
+     * пишет его в своей кодировке. Неполный символ на границе записи ждёт следующей записи.
+     */
+    private static final class Transcoder extends OutputStream {
+        private final PrintStream terminal;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        // Символов UTF-8 не больше, чем байтов, поэтому буфер текста той же длины не переполняется
+        private final ByteBuffer in = ByteBuffer.allocate(1024);
+        private final CharBuffer out = CharBuffer.allocate(1024);
+
+        Transcoder(PrintStream terminal) {
+            this.terminal = terminal;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            while (len > 0) {
+                int n = Math.min(len, in.remaining());
+                in.put(b, off, n);
+                off += n;
+                len -= n;
+                in.flip();
+                decoder.decode(in, out, false);
+                in.compact();
+                out.flip();
+                terminal.append(out);
+                out.clear();
+            }
+        }
+
+        @Override
+        public void flush() {
+            terminal.flush();
+        }
+    }
+
+    // Кодировка стандартного вывода (как у System.out в Java 17)
+    private static Charset stdoutCharset() {
+        String encoding = System.getProperty("sun.stdout.encoding");
+        try {
+            return encoding != null ? Charset.forName(encoding) : Charset.defaultCharset();
+        } catch (IllegalArgumentException e) {
+            return Charset.defaultCharset();
+        }
+    }
+
+    // Приватный конструктор: утилитный класс
+    private OutputCapture() {
+    }
+}
@@ -0,0 +1,397 @@
+package com.example.dungeon.core;
+
+import com.example.dungeon.model.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Анализ достижимости мира с учётом дверей и ключей.
+ * Поиск в ширину идёт от стартовой комнаты уровнями; каждый уровень обрабатывается параллельно
+ * на пуле fork-join. Комната за запертой дверью откладывается в список ожидания своей двери,
+ * а когда в достигнутой комнате находится ключ от этой двери, ожидающие комнаты возвращаются в поиск.
+ * Так весь мир обходится за один проход, без повторных поисков после каждого ключа.
+ * Затем обратный поиск от старта находит тупики: комнаты, куда попасть можно, а вернуться нельзя.
+ */
+public final class Reachability {
+    // Сколько примеров каждой проблемы включать в отчёт
+    private static final int SAMPLES = 20;
+    // Состояния комнат в прямом поиске
+    private static final int UNSEEN = 0;
+    private static final int VISITED = 1;
+    private static final int BLOCKED = 2;
+    // Размер части уровня, обрабатываемой одной задачей
+    private static final int CHUNK = 2048;
+
+    /**
+     * Отчёт анализа. Списки содержат не больше SAMPLES примеров, счётчики — полные.
+     * @param rooms всего комнат
+     * @param reachable достижимых комнат
+     * @param unreachable недостижимые комнаты (примеры)
+     * @param unreachableCount количество недостижимых комнат
+     * @param softLocks запертые двери, которые нельзя открыть, с причиной (примеры)
+     * @param softLockCount количество таких дверей
+     * @param orphanKeys ключи от несуществующих дверей (примеры)
+     * @param orphanKeyCount количество таких ключей
+     * @param lostKeys ключи в недостижимых комнатах (примеры)
+     * @param lostKeyCount количество таких ключей
+     * @param deadEnds комнаты, из которых нельзя вернуться к старту (примеры)
+     * @param deadEndCount количество таких комнат
+     * @param millis длительность анализа в миллисекундах
+     */
+    public record Report(int rooms, int reachable,
+                         List<String> unreachable, int unreachableCount,
+                         List<String> softLocks, int softLockCount,
+                         List<String> orphanKeys, int orphanKeyCount,
+                         List<String> lostKeys, int lostKeyCount,
+                         List<String> deadEnds, int deadEndCount,
+                         long millis) {
+
+        /**
+         * Проверяет, что в мире нет проблем.
+         * @return true, если все комнаты достижимы и ключи на месте
+         */
+        public boolean ok() {
+            return unreachableCount == 0 && softLockCount == 0 && orphanKeyCount == 0
+                    && lostKeyCount == 0 && deadEndCount == 0;
+        }
+
+        /**
+         * Форматирует отчёт для вывода.
+         * @return текст отчёта
+         */
+        public String format() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Комнат: ").append(rooms).append(", достижимо: ").append(reachable)
+                    .append(" (анализ ").append(millis).append(" мс)\n");
+            section(sb, "Недостижимые комнаты", unreachable, unreachableCount);
+            section(sb, "Двери, которые нельзя открыть (soft-lock)", softLocks, softLockCount);
+            section(sb, "Ключи от несуществующих дверей", orphanKeys, orphanKeyCount);
+            section(sb, "Ключи в недостижимых комнатах", lostKeys, lostKeyCount);
+            section(sb, "Тупики (нельзя вернуться к старту)", deadEnds, deadEndCount);
+            if (ok()) sb.append("Проблем не найдено.\n");
+            return sb.toString();
+        }
+
+        private static void section(StringBuilder sb, String title, List<String> samples, int count) {
+            if (count == 0) return;
+            sb.append(title).append(": ").append(count).append('\n');
+            for (String s : samples) sb.append("  - ").append(s).append('\n');
+            if (count > samples.size()) sb.append("  ... и ещё ").append(count - samples.size()).append('\n');
+        }
+    }
+
+    // Индекс мира
+    private final Room[] rooms;
+    private final int[] outStart;
+    private final int[] outTarget;
+    private final int[] inStart;
+    private final int[] inSource;
+    // Id двери на входе в комнату (-1 — двери нет или она изначально открыта)
+    private final int[] doorOf;
+    private final List<String> doorNames = new ArrayList<>();
+    // Ключи в комнатах: id дверей (CSR)
+    private final int[] keyStart;
+    private final int[] keyDoor;
+    // Ключи от несуществующих дверей
+    private final List<String> orphanKeys = new ArrayList<>();
+    private int orphanKeyCount;
+    // Двери, ключи от которых уже у игрока
+    private final List<Integer> heldKeys = new ArrayList<>();
+    private final ForkJoinPool pool;
+
+    private Reachability(GameState s, ForkJoinPool pool) {
+        this.pool = pool;
+        Collection<Room> all = s.getRooms().values();
+        rooms = all.toArray(new Room[0]);
+        int n = rooms.length;
+        Map<Room, Integer> index = new IdentityHashMap<>(n * 2);
+        for (int i = 0; i < n; i++) index.put(rooms[i], i);
+        Map<String, Integer> doorIds = new HashMap<>();
+        // Все двери мира, включая изначально открытые
+        Set<String> allDoors = new HashSet<>();
+        doorOf = new int[n];
+        outStart = new int[n + 1];
+        inStart = new int[n + 1];
+        keyStart = new int[n + 1];
+        int[] inDegree = new int[n];
+        for (int i = 0; i < n; i++) {
+            Door door = rooms[i].getDoor();
+            doorOf[i] = -1;
+            if (door != null) allDoors.add(door.getName());
+            if (door != null && !door.canPass()) {
+                doorOf[i] = doorIds.computeIfAbsent(door.getName(), k -> {
+                    doorNames.add(k);
+                    return doorNames.size() - 1;
+                });
+            }
+            outStart[i + 1] = outStart[i] + rooms[i].getNeighbors().size();
+            for (Room target : rooms[i].getNeighbors().values()) {
+                Integer t = index.get(target);
+                if (t != null) inDegree[t]++;
+            }
+        }
+        outTarget = new int[outStart[n]];
+        for (int i = 0; i < n; i++) inStart[i + 1] = inStart[i] + inDegree[i];
+        inSource = new int[inStart[n]];
+        int[] inFill = Arrays.copyOf(inStart, n);
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int k = outStart[i];
+            for (Room target : rooms[i].getNeighbors().values()) {
+                Integer t = index.get(target);
+                // Выход в комнату вне мира ведёт в никуда: оставляем петлю на себя
+                int to = t == null ? i : t;
+                outTarget[k++] = to;
+                if (t != null) inSource[inFill[to]++] = i;
+            }
+            for (Item item : rooms[i].getItems()) {
+                if (!(item instanceof Key key)) continue;
+                Integer door = doorIds.get(key.getDoorName());
+                if (door != null) {
+                    keys.add(door);
+                } else if (!allDoors.contains(key.getDoorName())) {
+                    if (orphanKeys.size() < SAMPLES) orphanKeys.add(key.getName() + " в «" + rooms[i].getName() + "» -> " + key.getDoorName());
+                    orphanKeyCount++;
+                }
+            }
+            keyStart[i + 1] = keys.size();
+        }
+        keyDoor = keys.stream().mapToInt(Integer::intValue).toArray();
+        if (s.getPlayer() != null) {
+            for (Item item : s.getPlayer().getInventory()) {
+                if (item instanceof Key key && doorIds.containsKey(key.getDoorName())) heldKeys.add(doorIds.get(key.getDoorName()));
+            }
+        }
+    }
+
+    /**
+     * Анализирует мир на общем пуле fork-join.
+     * @param s состояние игры с загруженным миром
+     * @return отчёт
+     */
+    public static Report analyze(GameState s) {
+        return analyze(s, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Анализирует мир на заданном пуле fork-join.
+     * @param s состояние игры с загруженным миром
+     * @param pool пул для параллельного поиска
+     * @return отчёт
+     */
+    public static Report analyze(GameState s, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        Reachability r = new Reachability(s, pool);
+        Integer startIndex = null;
+        for (int i = 0; i < r.rooms.length; i++) {
+            if (r.rooms[i] == s.getCurrent()) startIndex = i;
+        }
+        if (startIndex == null) throw new IllegalStateException("Стартовая комната не входит в мир");
+        return r.run(startIndex, start);
+    }
+
+    // Прямой поиск с ключами, обратный поиск тупиков и сбор отчёта
+    private Report run(int startRoom, long startNanos) {
+        int n = rooms.length;
+        AtomicIntegerArray state = new AtomicIntegerArray(n);
+        boolean[] haveKey = new boolean[doorNames.size()];
+        // Списки ожидания дверей: голова по двери, следующий по комнате
+        int[] waitHead = new int[doorNames.size()];
+        Arrays.fill(waitHead, -1);
+        int[] waitNext = new int[n];
+        for (int door : heldKeys) haveKey[door] = true;
+        int[] order = new int[n];      // комнаты в порядке достижения
+        int[] blocked = new int[n];    // комнаты, упёршиеся в дверь
+        AtomicInteger orderSize = new AtomicInteger();
+        AtomicInteger blockedSize = new AtomicInteger();
+
+        state.set(startRoom, VISITED);
+        order[orderSize.getAndIncrement()] = startRoom;
+        int levelStart = 0;
+        int blockedSeen = 0;
+        while (levelStart < orderSize.get()) {
+            // Ключи в комнатах уровня (список растёт, пока ключи открывают ожидающие комнаты)
+            for (int i = levelStart; i < orderSize.get(); i++) {
+                int room = order[i];
+                for (int k = keyStart[room]; k < keyStart[room + 1]; k++) {
+                    int door = keyDoor[k];
+                    if (haveKey[door]) continue;
+                    haveKey[door] = true;
+                    for (int w = waitHead[door]; w >= 0; w = waitNext[w]) {
+                        state.set(w, VISITED);
+                        order[orderSize.getAndIncrement()] = w;
+                    }
+                    waitHead[door] = -1;
+                }
+            }
+            int levelEnd = orderSize.get();
+            // Параллельное расширение уровня
+            pool.invoke(new Expand(order, levelStart, levelEnd, state, haveKey, order, orderSize, blocked, blockedSize));
+            // Новые заблокированные комнаты встают в очередь своей двери
+            for (int i = blockedSeen; i < blockedSize.get(); i++) {
+                int room = blocked[i];
+                int door = doorOf[room];
+                if (haveKey[door]) {
+                    state.set(room, VISITED);
+                    order[orderSize.getAndIncrement()] = room;
+                } else {
+                    waitNext[room] = waitHead[door];
+                    waitHead[door] = room;
+                }
+            }
+            blockedSeen = blockedSize.get();
+            levelStart = levelEnd;
+        }
+        int reachable = orderSize.get();
+
+        // Обратный поиск от старта: какие достижимые комнаты могут вернуться
+        AtomicIntegerArray back = new AtomicIntegerArray(n);
+        int[] backOrder = new int[n];
+        AtomicInteger backSize = new AtomicInteger();
+        back.set(startRoom, 1);
+        backOrder[backSize.getAndIncrement()] = startRoom;
+        int from = 0;
+        while (from < backSize.get()) {
+            int to = backSize.get();
+            pool.invoke(new Back(backOrder, from, to, back, state, haveKey, backSize));
+            from = to;
+        }
+
+        List<String> unreachable = new ArrayList<>();
+        List<String> lostKeys = new ArrayList<>();
+        List<String> deadEnds = new ArrayList<>();
+        int unreachableCount = 0;
+        int lostKeyCount = 0;
+        int deadEndCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (state.get(i) != VISITED) {
+                unreachableCount++;
+                if (unreachable.size() < SAMPLES) unreachable.add(rooms[i].getName());
+                int keys = keyStart[i + 1] - keyStart[i];
+                lostKeyCount += keys;
+                if (keys > 0 && lostKeys.size() < SAMPLES) lostKeys.add("ключи в «" + rooms[i].getName() + "»: " + keys);
+            } else if (back.get(i) == 0) {
+                deadEndCount++;
+                if (deadEnds.size() < SAMPLES) deadEnds.add(rooms[i].getName());
+            }
+        }
+        // Двери, перед которыми остались ожидающие комнаты, так и не открылись
+        boolean[] keyExists = new boolean[doorNames.size()];
+        for (int d : keyDoor) keyExists[d] = true;
+        List<String> softLocks = new ArrayList<>();
+        int softLockCount = 0;
+        for (int d = 0; d < doorNames.size(); d++) {
+            if (waitHead[d] < 0) continue;
+            int behind = 0;
+            for (int w = waitHead[d]; w >= 0; w = waitNext[w]) behind++;
+            softLockCount++;
+            if (softLocks.size() < SAMPLES) {
+                softLocks.add("«" + doorNames.get(d) + "»: " + (keyExists[d] ? "ключ недостижим" : "ключа нет в мире")
+                        + ", комнат за дверью: " + behind);
+            }
+        }
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+        return new Report(n, reachable, unreachable, unreachableCount, softLocks, softLockCount,
+                orphanKeys, orphanKeyCount, lostKeys, lostKeyCount, deadEnds, deadEndCount, millis);
+    }
+
+    /**
+     * Параллельное расширение уровня прямого поиска.
+     */
+    private final class Expand extends RecursiveAction {
+        private final int[] level;
+        private final int from;
+        private final int to;
+        private final AtomicIntegerArray state;
+        private final boolean[] haveKey;
+        private final int[] out;
+        private final AtomicInteger outSize;
+        private final int[] blocked;
+        private final AtomicInteger blockedSize;
+
+        Expand(int[] level, int from, int to, AtomicIntegerArray state, boolean[] haveKey,
+               int[] out, AtomicInteger outSize, int[] blocked, AtomicInteger blockedSize) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+            this.state = state;
+            this.haveKey = haveKey;
+            this.out = out;
+            this.outSize = outSize;
+            this.blocked = blocked;
+            this.blockedSize = blockedSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Expand(level, from, mid, state, haveKey, out, outSize, blocked, blockedSize),
+                        new Expand(level, mid, to, state, haveKey, out, outSize, blocked, blockedSize));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                int u = level[i];
+                for (int e = outStart[u]; e < outStart[u + 1]; e++) {
+                    int v = outTarget[e];
+                    if (state.get(v) != UNSEEN) continue;
+                    int door = doorOf[v];
+                    if (door >= 0 && !haveKey[door]) {
+                        if (state.compareAndSet(v, UNSEEN, BLOCKED)) blocked[blockedSize.getAndIncrement()] = v;
+                    } else if (state.compareAndSet(v, UNSEEN, VISITED)) {
+                        out[outSize.getAndIncrement()] = v;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Параллельное расширение уровня обратного поиска (по входящим выходам).
+     */
+    private final class Back extends RecursiveAction {
+        private final int[] level;
+        private final int from;
+        private final int to;
+        private final AtomicIntegerArray back;
+        private final AtomicIntegerArray state;
+        private final boolean[] haveKey;
+        private final AtomicInteger size;
+
+        Back(int[] level, int from, int to, AtomicIntegerArray back, AtomicIntegerArray state,
+             boolean[] haveKey, AtomicInteger size) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+            this.back = back;
+            this.state = state;
+            this.haveKey = haveKey;
+            this.size = size;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Back(level, from, mid, back, state, haveKey, size),
+                        new Back(level, mid, to, back, state, haveKey, size));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                int v = level[i];
+                // Войти в v можно, только если её дверь открывается собранными ключами
+                if (doorOf[v] >= 0 && !haveKey[doorOf[v]]) continue;
+                for (int e = inStart[v]; e < inStart[v + 1]; e++) {
+                    int u = inSource[e];
+                    if (state.get(u) == VISITED && back.compareAndSet(u, 0, 1)) {
+                        level[size.getAndIncrement()] = u;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.dungeon.core;
+
+import com.example.dungeon.model.Door;
+import com.example.dungeon.model.GameState;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.stream.Stream;
+
+/**
+ * Повтор журнала воспроизведения (режим --replay): игра строится заново с зерном и файлом мира
+ * из заголовка журнала, и команды всех сессий выполняются в записанном порядке без вывода и
+ * без пауз. Отпечатки состояния из журнала сверяются по ходу повтора; при первом расхождении
+ * повтор останавливается и сообщает, между какими командами оно появилось. Ограничение числа
+ * команд позволяет делить этот отрезок пополам и смотреть состояние перед ошибкой.
+ * Сохранения, таблица лидеров, статистика и файлы сессий повтора пишутся во временный каталог.
+ */
+public final class Replay {
+    // Сколько последних команд показывается при остановке
+    private static final int TAIL = 8;
+
+    /**
+     * Повторяет журнал и выводит результат сверки.
+     * @param log файл журнала
+     * @param limit сколько команд повторить (0 — все)
+     * @param out куда выводить результат (вывод самих команд отбрасывается)
+     * @return код завершения: 0 — состояние совпало, 1 — расхождение, 2 — журнал не прочитан
+     */
+    public static int run(Path log, long limit, PrintStream out) {
+        ReplayLog.Header header;
+        Path temp;
+        try {
+            header = ReplayLog.header(log);
+            temp = Files.createTempDirectory("replay");
+        } catch (IOException e) {
+            out.println(log + ": не удалось прочитать журнал: " + e.getMessage());
+            return 2;
+        }
+        try {
+            if (!header.world().isEmpty()) {
+                Path world = Paths.get(header.world());
+                if (!Files.exists(world)) {
+                    out.println("Нет файла мира " + world + ", на котором записан журнал");
+                    return 2;
+                }
+                if (ReplayLog.crc(world) != header.worldCrc()) {
+                    out.println("Внимание: файл мира " + world + " изменился после записи журнала, состояние может разойтись");
+                }
+            }
+            configure(header, temp);
+            if (Door.RELOCK_TURNS != header.relockTurns()) {
+                out.println("Внимание: dungeon.door.relock задан до повтора (" + Door.RELOCK_TURNS + "), в журнале "
+                        + header.relockTurns());
+            }
+            return replay(log, header, limit, out);
+        } catch (IOException | UncheckedIOException e) {
+            out.println(log + ": повтор прерван: " + e.getMessage());
+            return 2;
+        } finally {
+            delete(temp);
+        }
+    }
+
+    // Настройки игры из заголовка; все файлы игры — во временном каталоге
+    private static void configure(ReplayLog.Header header, Path temp) {
+        System.setProperty("dungeon.world", header.world().isEmpty() ? temp.resolve("нет-мира.txt").toString() : header.world());
+        System.setProperty("dungeon.monsters.move", Double.toString(header.moveChance()));
+        System.setProperty("dungeon.door.relock", Integer.toString(header.relockTurns()));
+        System.setProperty("dungeon.replay", "");
+        System.setProperty("dungeon.journal", "");
+        System.setProperty("dungeon.save", temp.resolve("save.txt").toString());
+        System.setProperty("dungeon.autosave.file", temp.resolve("save.auto.txt").toString());
+        System.setProperty("dungeon.scores", temp.resolve("scores.csv").toString());
+        System.setProperty("dungeon.stats", temp.resolve("stats.bin").toString());
+        System.setProperty("dungeon.sessions.dir", temp.resolve("sessions").toString());
+        // Сессии усыпляются только там, где это записано в журнале; автосохранение не нужно
+        System.setProperty("dungeon.sessions.idle", "0");
+        System.setProperty("dungeon.autosave.commands", "0");
+        System.setProperty("dungeon.autosave.seconds", "0");
+    }
+
+    // Повтор записей журнала со сверкой отпечатков
+    private static int replay(Path log, ReplayLog.Header header, long limit, PrintStream out) throws IOException {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Game game = new Game(header.seed());
+        game.replayMode();
+        Run run = new Run(game, limit);
+        long start = System.nanoTime();
+        boolean complete;
+        try {
+            complete = ReplayLog.read(log, run);
+        } catch (Stop stop) {
+            complete = false;
+        } finally {
+            // Файлы сессий и статистики пишутся во временный каталог до его удаления
+            game.close();
+            System.setOut(console);
+        }
+        long nanos = System.nanoTime() - start;
+        out.printf("Повторено команд: %,d за %d мс (%,.0f команд/с), сверено отпечатков: %d%n",
+                run.commands, nanos / 1_000_000, run.commands * 1e9 / Math.max(1, nanos), run.checks);
+        if (run.divergence != null) {
+            out.println("РАСХОЖДЕНИЕ: " + run.divergence);
+            out.printf("Ошибка появилась между командами %d и %d; повторите с ограничением, чтобы сузить отрезок:%n",
+                    run.lastGood + 1, run.commands);
+            out.println("  java -cp out com.example.dungeon.Main --replay " + log + " <команд>");
+            printTail(run, out);
+            return 1;
+        }
+        if (limit > 0 && run.commands >= limit) {
+            out.println("Остановлено после команды " + run.commands + ", состояние консоли: " + describe(game.console()));
+            printTail(run, out);
+            return 0;
+        }
+        out.println(complete ? "Состояние в конце совпало с записанным" : "Журнал оборван (игра не была закрыта), совпали все контрольные точки");
+        return 0;
+    }
+
+    // Последние повторённые команды
+    private static void printTail(Run run, PrintStream out) {
+        out.println("Последние команды:");
+        long n = run.commands - run.tail.size();
+        for (String line : run.tail) out.println("  " + (++n) + ": " + line);
+    }
+
+    // Состояние сессии для вывода
+    private static String describe(GameState s) {
+        return s.getPlayer().getName() + ", HP " + s.getPlayer().getHp() + ", атака " + s.getPlayer().getAttack()
+                + ", комната " + s.getCurrent().getName() + ", счёт " + s.getScore()
+                + ", инвентарь " + s.getPlayer().getInventory().size();
+    }
+
+    // Удаляет временный каталог повтора
+    private static void delete(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+        } catch (IOException e) {
+            System.err.println("Временный каталог повтора не удалён: " + dir);
+        }
+    }
+
+    /**
+     * Остановка повтора (расхождение или достигнуто ограничение).
+     */
+    private static final class Stop extends RuntimeException {
+        Stop() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Повтор записей журнала в игре.
+     */
+    private static final class Run implements ReplayLog.Visitor {
+        private final Game game;
+        private final long limit;
+        private final Deque<String> tail = new ArrayDeque<>(TAIL);
+        // Состояние сессии, выполнившей последнюю команду
+        private GameState last;
+        private long commands;
+        private long checks;
+        private long lastGood;
+        private String divergence;
+
+        Run(Game game, long limit) {
+            this.game = game;
+            this.limit = limit;
+        }
+
+        @Override
+        public void command(String session, String line) {
+            if (limit > 0 && commands >= limit) throw new Stop();
+            last = game.replayCommand(session, line);
+            commands++;
+            if (tail.size() == TAIL) tail.removeFirst();
+            tail.addLast((session == null ? "" : "[" + session + "] ") + line);
+        }
+
+        @Override
+        public void thawed(String session, byte[] file) {
+            byte[] own = game.replayThaw(session, file);
+            if (own != null && !Arrays.equals(own, file)) {
+                diverged("сессия " + session + " была усыплена в другом состоянии");
+            }
+        }
+
+        @Override
+        public void hibernated(String session) {
+            if (!game.replayHibernate(session)) diverged("сессии " + session + " нет в памяти, а при записи её усыпили");
+        }
+
+        @Override
+        public void loaded(byte[] file) {
+            game.replayLoad(file);
+        }
+
+        @Override
+        public void worldReloaded(String file, long crc) {
+            try {
+                if (ReplayLog.crc(Paths.get(file)) != crc) {
+                    diverged("файл перезагруженного мира " + file + " изменился после записи");
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            game.replayReload();
+        }
+
+        @Override
+        public void check(long n, String session, long digest) {
+            if (game.digest(last) != digest) {
+                diverged("после команды " + n + " состояние " + (session == null ? "консоли" : "сессии " + session)
+                        + " не совпало: " + describe(last));
+            }
+            checks++;
+            lastGood = n;
+        }
+
+        @Override
+        public void end(long total, long digest) {
+            if (game.finalDigest() != digest) diverged("в конце игры (" + total + " команд) мир или консоль не совпали");
+            checks++;
+            lastGood = total;
+        }
+
+        private void diverged(String what) {
+            divergence = what;
+            throw new Stop();
+        }
+    }
+
+    // Приватный конструктор: утилитный класс
+    private Replay() {
+    }
+}
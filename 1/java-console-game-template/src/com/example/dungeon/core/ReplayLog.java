@@ -0,0 +1,521 @@
+package com.example.dungeon.core;
+
+import com.example.dungeon.model.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Двоичный журнал воспроизведения: зерно игры и поток команд всех сессий в порядке выполнения.
+ * Команды всех сессий выполняются по очереди (Game.execute), а вся случайность берётся из
+ * генераторов, производных от зерна, поэтому повтор журнала на том же файле мира приводит
+ * к тому же состоянию. Кроме команд записываются внешние данные, которые повтор не может
+ * получить сам: файлы разбуженных сессий, загружаемое сохранение и перезагрузка мира.
+ *
+ * Формат (DataOutputStream): заголовок (сигнатура, версия, зерно, файл мира и его CRC32C,
+ * вероятность хода монстра, ходов до запирания двери), затем записи с байтом-тегом.
+ * Числа записываются переменной длиной (7 бит в байте). Сессии и повторяющиеся строки команд
+ * заменяются номерами из словарей, которые строятся по ходу записи, поэтому типичная команда
+ * занимает 3 байта. Раз в CHECK_EVERY команд пишется отпечаток состояния выполнившей сессии,
+ * при закрытии — отпечаток всей игры; по ним повтор находит первое расхождение.
+ */
+public final class ReplayLog {
+    // Сигнатура и версия журнала
+    private static final int MAGIC = 0x44525031; // "DRP1"
+    private static final int VERSION = 1;
+    // Как часто пишется отпечаток сессии (в командах)
+    public static final int CHECK_EVERY = 1024;
+    // Размер словаря строк команд
+    private static final int MAX_LINES = 4096;
+
+    // Теги записей
+    private static final byte SESSION = 1;
+    private static final byte COMMAND = 2;
+    private static final byte THAW = 3;
+    private static final byte SLEEP = 4;
+    private static final byte LOAD = 5;
+    private static final byte WORLD = 6;
+    private static final byte CHECK = 7;
+    private static final byte END = 8;
+
+    // Отпечатки состояния: FNV-1a, 64 бита
+    private static final long FNV_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Заголовок журнала: всё, что нужно, чтобы построить ту же игру.
+     * @param seed зерно игры
+     * @param world файл мира (пустая строка — встроенный мир)
+     * @param worldCrc CRC32C файла мира (0, если файла нет)
+     * @param moveChance вероятность хода монстра (dungeon.monsters.move)
+     * @param relockTurns ходов до запирания двери (dungeon.door.relock)
+     */
+    public record Header(long seed, String world, long worldCrc, double moveChance, int relockTurns) {
+    }
+
+    /**
+     * Получатель записей журнала при чтении. Сессия null — консоль.
+     */
+    public interface Visitor {
+        /**
+         * Команда сессии.
+         * @param session id сессии или null
+         * @param line строка команды
+         */
+        void command(String session, String line);
+
+        /**
+         * Сессия разбужена из файла.
+         * @param session id сессии
+         * @param file содержимое файла сессии
+         */
+        void thawed(String session, byte[] file);
+
+        /**
+         * Сессия усыплена.
+         * @param session id сессии
+         */
+        void hibernated(String session);
+
+        /**
+         * Консоль загружает сохранение (запись идёт перед командой load).
+         * @param file содержимое файла сохранения или null, если файла не было
+         */
+        void loaded(byte[] file);
+
+        /**
+         * Перед следующей командой публикуется перезагруженный мир.
+         * @param file файл мира
+         * @param crc CRC32C файла мира при записи
+         */
+        void worldReloaded(String file, long crc);
+
+        /**
+         * Отпечаток состояния сессии после команды.
+         * @param commands номер команды (с 1)
+         * @param session id сессии или null
+         * @param digest отпечаток
+         */
+        void check(long commands, String session, long digest);
+
+        /**
+         * Отпечаток всей игры при закрытии.
+         * @param commands всего команд
+         * @param digest отпечаток
+         */
+        void end(long commands, long digest);
+    }
+
+    /**
+     * Запись журнала. Методы вызываются потоком команд и потоком усыпления сессий,
+     * поэтому синхронизированы. Ошибка записи отключает журнал, но не игру.
+     */
+    public static final class Writer implements Sessions.Listener {
+        private final Path file;
+        private final DataOutputStream out;
+        private final Map<String, Integer> sessions = new HashMap<>();
+        private final Map<String, Integer> lines = new HashMap<>();
+        private long commands;
+        private boolean failed;
+
+        private Writer(Path file, DataOutputStream out) {
+            this.file = file;
+            this.out = out;
+        }
+
+        /**
+         * Записывает выполненную команду сессии.
+         * @param session id сессии или null для консоли
+         * @param line строка команды
+         * @return true, если пора записать отпечаток состояния (check)
+         */
+        public synchronized boolean command(String session, String line) {
+            if (failed) return false;
+            try {
+                int s = session(session);
+                out.writeByte(COMMAND);
+                writeVarint(out, s);
+                Integer known = lines.get(line);
+                if (known != null) {
+                    writeVarint(out, known + 1);
+                } else {
+                    writeVarint(out, 0);
+                    out.writeUTF(line);
+                    if (lines.size() < MAX_LINES) lines.put(line, lines.size());
+                }
+                commands++;
+                return commands % CHECK_EVERY == 0;
+            } catch (IOException e) {
+                fail(e);
+                return false;
+            }
+        }
+
+        /**
+         * Записывает отпечаток состояния сессии после последней команды и сбрасывает буфер в файл.
+         * @param session id сессии или null для консоли
+         * @param digest отпечаток (digest)
+         */
+        public synchronized void check(String session, long digest) {
+            if (failed) return;
+            try {
+                int s = session(session);
+                out.writeByte(CHECK);
+                writeVarint(out, s);
+                out.writeLong(digest);
+                out.flush();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Записывает файл разбуженной сессии.
+         * @param session id сессии
+         * @param bytes содержимое файла
+         */
+        @Override
+        public synchronized void thawed(String session, byte[] bytes) {
+            if (failed) return;
+            try {
+                int s = session(session);
+                out.writeByte(THAW);
+                writeVarint(out, s);
+                writeBytes(out, bytes);
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Записывает усыпление сессии.
+         * @param session id сессии
+         */
+        @Override
+        public synchronized void hibernated(String session) {
+            if (failed) return;
+            try {
+                int s = session(session);
+                out.writeByte(SLEEP);
+                writeVarint(out, s);
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Записывает загружаемое консолью сохранение.
+         * @param bytes содержимое файла сохранения или null, если файла нет
+         */
+        public synchronized void loaded(byte[] bytes) {
+            if (failed) return;
+            try {
+                out.writeByte(LOAD);
+                // 0 — файла нет, иначе длина + 1
+                writeVarint(out, bytes == null ? 0 : bytes.length + 1);
+                if (bytes != null) out.write(bytes);
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Записывает публикацию перезагруженного мира.
+         * @param world файл мира
+         */
+        public synchronized void worldReloaded(Path world) {
+            if (failed) return;
+            try {
+                out.writeByte(WORLD);
+                out.writeUTF(world.toString());
+                out.writeLong(crc(world));
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Записывает отпечаток всей игры и закрывает журнал.
+         * @param digest отпечаток игры
+         */
+        public synchronized void close(long digest) {
+            if (failed) return;
+            try {
+                out.writeByte(END);
+                writeVarint(out, commands);
+                out.writeLong(digest);
+                out.close();
+            } catch (IOException e) {
+                fail(e);
+            }
+            failed = true;
+        }
+
+        /**
+         * Возвращает сводку о журнале.
+         * @return строка с метриками
+         */
+        public synchronized String stats() {
+            return "Журнал воспроизведения " + file + ": команд " + commands + ", сессий " + sessions.size()
+                    + ", строк в словаре " + lines.size() + (failed ? " (запись остановлена)" : "");
+        }
+
+        // Номер сессии; новая сессия сначала объявляется записью SESSION
+        private int session(String id) throws IOException {
+            if (id == null) return 0;
+            Integer known = sessions.get(id);
+            if (known != null) return known;
+            int n = sessions.size() + 1;
+            sessions.put(id, n);
+            out.writeByte(SESSION);
+            writeVarint(out, n);
+            out.writeUTF(id);
+            return n;
+        }
+
+        // Останавливает журнал после ошибки записи
+        private void fail(IOException e) {
+            failed = true;
+            System.err.println("Журнал воспроизведения остановлен: " + e.getMessage());
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // журнал уже не пишется
+            }
+        }
+    }
+
+    /**
+     * Создаёт журнал и записывает заголовок.
+     * @param file файл журнала (перезаписывается)
+     * @param header заголовок
+     * @return запись журнала
+     * @throws UncheckedIOException если файл не удалось создать
+     */
+    public static Writer create(Path file, Header header) {
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(header.seed());
+            out.writeUTF(header.world());
+            out.writeLong(header.worldCrc());
+            out.writeDouble(header.moveChance());
+            out.writeInt(header.relockTurns());
+            out.flush();
+            return new Writer(file, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать журнал воспроизведения " + file, e);
+        }
+    }
+
+    /**
+     * Читает заголовок журнала.
+     * @param file файл журнала
+     * @return заголовок
+     * @throws IOException если файл не прочитан или не является журналом
+     */
+    public static Header header(Path file) throws IOException {
+        try (DataInputStream in = open(file)) {
+            return readHeader(in);
+        }
+    }
+
+    /**
+     * Читает записи журнала по порядку. Обрезанный конец (игра не была закрыта) не ошибка:
+     * чтение просто останавливается.
+     * @param file файл журнала
+     * @param visitor получатель записей
+     * @return true, если журнал закрыт записью END
+     * @throws IOException если файл не прочитан или не является журналом
+     */
+    public static boolean read(Path file, Visitor visitor) throws IOException {
+        try (DataInputStream in = open(file)) {
+            readHeader(in);
+            List<String> sessions = new ArrayList<>();
+            sessions.add(null);
+            List<String> lines = new ArrayList<>();
+            long commands = 0;
+            while (true) {
+                int tag = in.read();
+                if (tag < 0) return false;
+                try {
+                    switch (tag) {
+                        case SESSION -> {
+                            int n = (int) readVarint(in);
+                            if (n != sessions.size()) throw new IOException("неверный номер сессии " + n);
+                            sessions.add(in.readUTF());
+                        }
+                        case COMMAND -> {
+                            String session = sessions.get((int) readVarint(in));
+                            int ref = (int) readVarint(in);
+                            String line;
+                            if (ref == 0) {
+                                line = in.readUTF();
+                                if (lines.size() < MAX_LINES) lines.add(line);
+                            } else {
+                                line = lines.get(ref - 1);
+                            }
+                            commands++;
+                            visitor.command(session, line);
+                        }
+                        case THAW -> visitor.thawed(sessions.get((int) readVarint(in)), readBytes(in));
+                        case SLEEP -> visitor.hibernated(sessions.get((int) readVarint(in)));
+                        case LOAD -> {
+                            int length = (int) readVarint(in);
+                            byte[] bytes = length == 0 ? null : new byte[length - 1];
+                            if (bytes != null) in.readFully(bytes);
+                            visitor.loaded(bytes);
+                        }
+                        case WORLD -> visitor.worldReloaded(in.readUTF(), in.readLong());
+                        case CHECK -> visitor.check(commands, sessions.get((int) readVarint(in)), in.readLong());
+                        case END -> {
+                            long total = readVarint(in);
+                            visitor.end(total, in.readLong());
+                            return true;
+                        }
+                        default -> throw new IOException("неизвестная запись " + tag);
+                    }
+                } catch (EOFException e) {
+                    return false; // игра не была закрыта: запись оборвалась на середине
+                }
+            }
+        }
+    }
+
+    /**
+     * Отпечаток состояния сессии: игрок (имя, HP, атака, инвентарь), текущая комната и счёт.
+     * @param s состояние сессии
+     * @return 64-битный отпечаток
+     */
+    public static long digest(GameState s) {
+        Player p = s.getPlayer();
+        long h = mix(FNV_BASIS, p.getName());
+        h = mix(h, p.getHp());
+        h = mix(h, p.getAttack());
+        h = mix(h, s.getCurrent().getName());
+        h = mix(h, s.getScore());
+        for (Item item : p.getInventory()) h = mix(h, ItemCatalog.format(item));
+        return mix(h, s.isGameOver() ? 1 : 0);
+    }
+
+    /**
+     * Отпечаток мира: монстры (название, уровень, HP), предметы и двери всех комнат
+     * в порядке набора комнат.
+     * @param s состояние с набором комнат
+     * @return 64-битный отпечаток
+     */
+    public static long worldDigest(GameState s) {
+        long h = FNV_BASIS;
+        for (Room room : s.getRooms().values()) {
+            h = mix(h, room.getName());
+            Monster m = room.getMonster();
+            if (m != null) {
+                h = mix(h, m.getName());
+                h = mix(h, m.getLevel());
+                h = mix(h, m.getHp());
+            }
+            for (Item item : room.getItems()) h = mix(h, ItemCatalog.format(item));
+            Door door = room.getDoor();
+            if (door != null) h = mix(h, (door.isLocked() ? 2 : 0) | (door.isOpened() ? 1 : 0));
+        }
+        return h;
+    }
+
+    /**
+     * Отпечаток всей игры при закрытии: консольная сессия и мир.
+     * @param console состояние консольной сессии
+     * @return 64-битный отпечаток
+     */
+    public static long gameDigest(GameState console) {
+        return mix(digest(console), worldDigest(console));
+    }
+
+    /**
+     * CRC32C файла (0, если файла нет).
+     * @param file файл
+     * @return контрольная сумма
+     * @throws IOException если файл не прочитан
+     */
+    public static long crc(Path file) throws IOException {
+        if (!Files.exists(file)) return 0;
+        CRC32C crc = new CRC32C();
+        byte[] buf = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int n; (n = in.read(buf)) > 0; ) crc.update(buf, 0, n);
+        }
+        return crc.getValue();
+    }
+
+    // Добавляет к отпечатку число
+    private static long mix(long h, long v) {
+        for (int i = 0; i < 8; i++) {
+            h = (h ^ (v & 0xff)) * FNV_PRIME;
+            v >>>= 8;
+        }
+        return h;
+    }
+
+    // Добавляет к отпечатку строку
+    private static long mix(long h, String s) {
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) h = (h ^ (b & 0xff)) * FNV_PRIME;
+        return (h ^ 0xff) * FNV_PRIME; // разделитель, чтобы "ab"+"c" не совпало с "a"+"bc"
+    }
+
+    // Буферизованное чтение файла журнала
+    private static DataInputStream open(Path file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+    }
+
+    // Заголовок с проверкой сигнатуры и версии
+    private static Header readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("не журнал воспроизведения");
+        int version = in.readInt();
+        if (version != VERSION) throw new IOException("неизвестная версия журнала " + version);
+        return new Header(in.readLong(), in.readUTF(), in.readLong(), in.readDouble(), in.readInt());
+    }
+
+    // Число переменной длины: 7 бит в байте, старший бит — продолжение
+    private static void writeVarint(DataOutputStream out, long v) throws IOException {
+        while ((v & ~0x7fL) != 0) {
+            out.writeByte((int) ((v & 0x7f) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    // Читает число переменной длины
+    private static long readVarint(DataInputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("слишком длинное число");
+    }
+
+    // Байты с длиной
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    // Читает байты с длиной
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[(int) readVarint(in)];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    // Приватный конструктор: утилитный класс
+    private ReplayLog() {
+    }
+}
@@ -13,223 +13,249 @@ import java.util.stream.Collectors;
  * Также управляет таблицей лидеров.
  */
 public class SaveLoad {
-    // Путь к файлу сохранения игры
-    private static final Path SAVE = Paths.get("save.txt");
-    // Путь к файлу таблицы лидеров
-    private static final Path SCORES = Paths.get("scores.csv");
+    // Путь к файлу сохранения игры (свойство dungeon.save)
+    private static final Path SAVE = Paths.get(System.getProperty("dungeon.save", "save.txt"));
+    // Путь к файлу автосохранения (свойство dungeon.autosave.file): автосохранение не затирает ручное
+    private static final Path AUTO = Paths.get(System.getProperty("dungeon.autosave.file", "save.auto.txt"));
+    // Путь к файлу таблицы лидеров (свойство dungeon.scores)
+    private static final Path SCORES = Paths.get(System.getProperty("dungeon.scores", "scores.csv"));
 
     /**
-     * Сохраняет состояние игры в файл.
-     * @param s состояние игры для сохранения
+     * Записывает снимок состояния в файл сохранения (основной или файл автосохранения).
+     * Снимок неизменяем, поэтому метод можно вызывать в фоновом потоке, пока игра продолжается.
+     * Запись идёт во временный файл, который затем атомарно заменяет сохранение,
+     * поэтому load никогда не увидит наполовину записанный файл.
+     * @param snap снимок состояния
+     * @param file файл сохранения
+     * @param withScore записать ли результат в таблицу лидеров
      */
-    public static void save(GameState s) {
-        try (BufferedWriter w = Files.newBufferedWriter(SAVE)) {
-            Player p = s.getPlayer();
+    public static void write(StateSnapshot snap, Path file, boolean withScore) {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter w = Files.newBufferedWriter(tmp)) {
             // Сохраняем информацию об игроке
-            w.write("player;" + p.getName() + ";" + p.getHp() + ";" + p.getAttack());
+            w.write("player;" + snap.playerName() + ";" + snap.playerHp() + ";" + snap.playerAttack());
             w.newLine();
             // Сохраняем инвентарь игрока
-            String inv = p.getInventory().stream().map(i -> i.getClass().getSimpleName() + ":" + i.getName()).collect(Collectors.joining(","));
+            String inv = snap.inventory().stream().map(ItemCatalog::format).collect(Collectors.joining(","));
             w.write("inventory;" + inv);
             w.newLine();
             // Сохраняем текущую комнату
-            w.write("room;" + s.getCurrent().getName());
+            w.write("room;" + snap.currentRoom());
             w.newLine();
             
             // Сохраняем информацию о комнатах
-            w.write("rooms_count;" + s.getRooms().size());
+            w.write("rooms_count;" + snap.rooms().size());
             w.newLine();
             
             // Сохраняем все комнаты
-            for (Map.Entry<String, Room> entry : s.getRooms().entrySet()) {
-                Room room = entry.getValue();
-                w.write("room_name;" + room.getName());
+            List<RoomSnapshot> rooms = new ArrayList<>(snap.rooms().size());
+            snap.rooms().forEach((name, room) -> rooms.add(room));
+            for (RoomSnapshot room : rooms) {
+                w.write("room_name;" + room.name());
                 w.newLine();
-                w.write("room_description;" + room.getDescription());
+                w.write("room_description;" + room.description());
                 w.newLine();
                 
-                // Сохраняем соседей
-                w.write("neighbors;" + String.join(",", room.getNeighbors().keySet()));
+                // Сохраняем соседей в виде "направление=комната"
+                List<String> exits = new ArrayList<>();
+                room.neighbors().forEach((dir, target) -> exits.add(dir + "=" + target));
+                w.write("neighbors;" + String.join(",", exits));
                 w.newLine();
                 
                 // Сохраняем предметы в комнате
                 List<String> items = new ArrayList<>();
-                for (Item item : room.getItems()) {
-                    items.add(item.getClass().getSimpleName() + ":" + item.getName());
+                for (Item item : room.items()) {
+                    items.add(ItemCatalog.format(item));
                 }
                 w.write("items;" + String.join(",", items));
                 w.newLine();
                 
                 // Сохраняем монстра в комнате
-                Monster monster = room.getMonster();
-                if (monster != null) {
-                    w.write("monster;" + monster.getName() + ":" + monster.getLevel() + ":" + monster.getHp());
+                if (room.monsterName() != null) {
+                    w.write("monster;" + room.monsterName() + ":" + room.monsterLevel() + ":" + room.monsterHp());
                 } else {
                     w.write("monster;");
                 }
                 w.newLine();
                 
                 // Сохраняем дверь в комнате
-                Door door = room.getDoor();
-                if (door != null) {
-                    w.write("door;" + door.getName() + ":" + door.isLocked() + ":" + door.isOpened());
+                if (room.doorName() != null) {
+                    w.write("door;" + room.doorName() + ":" + room.doorLocked() + ":" + room.doorOpened());
                 } else {
                     w.write("door;");
                 }
                 w.newLine();
             }
-            
-            System.out.println("Сохранено в " + SAVE.toAbsolutePath());
-            writeScore(p.getName(), s.getScore());
         } catch (IOException e) {
             throw new UncheckedIOException("Не удалось сохранить игру", e);
         }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить игру", e);
+        }
+        if (withScore) {
+            writeScore(snap.playerName(), snap.score());
+        }
+    }
+
+    /**
+     * Возвращает путь к файлу сохранения.
+     * @return путь к файлу сохранения
+     */
+    public static Path savePath() {
+        return SAVE;
+    }
+
+    /**
+     * Возвращает путь к файлу автосохранения.
+     * @return путь к файлу автосохранения
+     */
+    public static Path autoSavePath() {
+        return AUTO;
     }
 
     /**
      * Загружает состояние игры из файла.
+     * Файл читается построчно: сначала создаются комнаты, затем связываются их выходы.
+     * Предметы берутся из каталога предметов, поэтому их значения (лечение, бонус, дверь) не теряются.
+     * @param s состояние игры для обновления
+     * @return true, если сохранение загружено; false, если файла нет
+     */
+    public static boolean load(GameState s) {
+        return load(s, SAVE);
+    }
+
+    /**
+     * Загружает состояние игры из указанного файла сохранения (например, из автосохранения).
      * @param s состояние игры для обновления
+     * @param file файл сохранения
+     * @return true, если сохранение загружено; false, если файла нет
      */
-    public static void load(GameState s) {
-        if (!Files.exists(SAVE)) {
+    public static boolean load(GameState s, Path file) {
+        if (!Files.exists(file)) {
             System.out.println("Сохранение не найдено.");
-            return;
+            return false;
         }
-        try (BufferedReader r = Files.newBufferedReader(SAVE)) {
-            List<String> lines = r.lines().toList();
-            
-            // Загружаем игрока
+        try (BufferedReader r = Files.newBufferedReader(file)) {
             Player p = s.getPlayer();
-            String playerLine = lines.stream()
-                .filter(line -> line.startsWith("player;"))
-                .findFirst()
-                .orElse("player;Hero;10;3");
-            
-            String[] pp = playerLine.split(";");
-            p.setName(pp[1]);
-            p.setHp(Integer.parseInt(pp[2]));
-            p.setAttack(Integer.parseInt(pp[3]));
             p.getInventory().clear();
+            s.clearRooms();
             
-            // Загружаем инвентарь
-            String inventoryLine = lines.stream()
-                .filter(line -> line.startsWith("inventory;"))
-                .findFirst()
-                .map(line -> line.substring("inventory;".length()))
-                .orElse("");
-            
-            if (!inventoryLine.isBlank()) {
-                for (String tok : inventoryLine.split(",")) {
-                    String[] t = tok.split(":", 2);
-                    if (t.length < 2) continue;
-                    switch (t[0]) {
-                        case "Potion" -> p.getInventory().add(new Potion(t[1], 5));
-                        case "Key" -> p.getInventory().add(new Key(t[1]));
-                        case "Weapon" -> p.getInventory().add(new Weapon(t[1], 3));
-                        default -> {}
-                    }
-                }
-            }
-            
-            // Загружаем комнаты
-            s.getRooms().clear();
-            
-            // Находим все комнаты в файле сохранения
-            Map<String, String> roomData = new HashMap<>();
-            Map<String, String> doorData = new HashMap<>();
+            // Выходы комнат связываются после того, как все комнаты созданы
+            Map<Room, String> exits = new LinkedHashMap<>();
+            boolean playerFound = false;
             String currentRoomName = null;
+            String roomName = null;
+            Room room = null;
             
-            for (String line : lines) {
+            String line;
+            while ((line = r.readLine()) != null) {
                 String[] parts = line.split(";", 2);
-                if (parts.length == 2) {
-                    String key = parts[0];
-                    String value = parts[1];
-                    
-                    if (key.equals("room_name")) {
-                        currentRoomName = value;
-                    } else if (currentRoomName != null && 
-                              (key.equals("room_description") || 
-                               key.equals("neighbors") || 
-                               key.equals("items") || 
-                               key.equals("monster"))) {
-                        roomData.put(key + "_" + currentRoomName, value);
-                    } else if (key.equals("door") && currentRoomName != null) {
-                        doorData.put("door_" + currentRoomName, value);
+                if (parts.length < 2) continue;
+                String value = parts[1];
+                switch (parts[0]) {
+                    case "player" -> {
+                        // Загружаем игрока
+                        String[] pp = value.split(";");
+                        p.setName(pp[0]);
+                        p.setHp(Integer.parseInt(pp[1]));
+                        p.setAttack(Integer.parseInt(pp[2]));
+                        playerFound = true;
                     }
-                }
-            }
-            
-            // Создаем комнаты
-            for (String key : roomData.keySet()) {
-                if (key.startsWith("room_name_")) {
-                    String actualRoomName = roomData.get(key);
-                    String roomKey = key.substring("room_name_".length());
-                    
-                    String description = roomData.get("room_description_" + roomKey);
-                    Room room = new Room(actualRoomName, description);
-                    
-                    // Загружаем предметы
-                    String itemsStr = roomData.get("items_" + roomKey);
-                    if (itemsStr != null && !itemsStr.isEmpty()) {
-                        for (String itemStr : itemsStr.split(",")) {
-                            if (itemStr.trim().isEmpty()) continue;
-                            String[] itemParts = itemStr.split(":", 2);
-                            if (itemParts.length == 2) {
-                                switch (itemParts[0]) {
-                                    case "Potion" -> room.getItems().add(new Potion(itemParts[1], 5));
-                                    case "Key" -> room.getItems().add(new Key(itemParts[1]));
-                                    case "Weapon" -> room.getItems().add(new Weapon(itemParts[1], 3));
-                                    default -> {}
-                                }
-                            }
+                    // Загружаем инвентарь
+                    case "inventory" -> parseItems(value, p.getInventory());
+                    case "room" -> currentRoomName = value;
+                    case "room_name" -> {
+                        roomName = value;
+                        room = null;
+                    }
+                    case "room_description" -> {
+                        if (roomName != null) {
+                            room = new Room(roomName, value);
+                            s.addRoom(roomName, room);
                         }
                     }
-                    
+                    case "neighbors" -> {
+                        if (room != null) exits.put(room, value);
+                    }
+                    // Загружаем предметы
+                    case "items" -> {
+                        if (room != null) parseItems(value, room.getItems());
+                    }
                     // Загружаем монстра
-                    String monsterStr = roomData.get("monster_" + roomKey);
-                    if (monsterStr != null && !monsterStr.isEmpty()) {
-                        String[] monsterParts = monsterStr.split(":");
-                        if (monsterParts.length == 3) {
-                            room.setMonster(new Monster(monsterParts[0], Integer.parseInt(monsterParts[1]), Integer.parseInt(monsterParts[2])));
+                    case "monster" -> {
+                        String[] m = value.split(":");
+                        if (room != null && m.length == 3) {
+                            room.setMonster(new Monster(m[0], Integer.parseInt(m[1]), Integer.parseInt(m[2])));
                         }
                     }
-                    
                     // Загружаем дверь
-                    String doorStr = doorData.get("door_" + roomKey);
-                    if (doorStr != null && !doorStr.isEmpty()) {
-                        String[] doorParts = doorStr.split(":");
-                        if (doorParts.length == 3) {
-                            Door door = new Door(doorParts[0]);
-                            door.setLocked(Boolean.parseBoolean(doorParts[1]));
-                            door.setOpened(Boolean.parseBoolean(doorParts[2]));
+                    case "door" -> {
+                        String[] d = value.split(":");
+                        if (room != null && d.length == 3) {
+                            Door door = new Door(d[0]);
+                            door.setLocked(Boolean.parseBoolean(d[1]));
+                            door.setOpened(Boolean.parseBoolean(d[2]));
                             room.setDoor(door);
                         }
                     }
-                    
-                    s.addRoom(actualRoomName, room);
+                    default -> {
+                        // rooms_count и неизвестные строки пропускаем
+                    }
+                }
+            }
+            if (!playerFound) {
+                p.setName("Hero");
+                p.setHp(10);
+                p.setAttack(3);
+            }
+            
+            // Связываем выходы "направление=комната"; старые сохранения без цели пропускаются
+            for (Map.Entry<Room, String> e : exits.entrySet()) {
+                for (String exit : e.getValue().split(",")) {
+                    String[] dt = exit.split("=", 2);
+                    Room target = dt.length == 2 ? s.getRoom(dt[1]) : null;
+                    if (target != null) {
+                        e.getKey().getNeighbors().put(dt[0], target);
+                    }
                 }
             }
             
             // Устанавливаем текущую комнату
-            String currentRoomLine = lines.stream()
-                .filter(line -> line.startsWith("room;"))
-                .findFirst()
-                .map(line -> line.substring("room;".length()))
-                .orElse(null);
-                
-            if (currentRoomLine != null) {
-                Room roomToSet = s.getRoom(currentRoomLine);
+            if (currentRoomName != null) {
+                Room roomToSet = s.getRoom(currentRoomName);
                 if (roomToSet != null) {
                     s.setCurrent(roomToSet);
                 }
             }
             
+            // История ходов относится к прежнему миру
+            s.getHistory().clear();
+            
             System.out.println("Игра загружена полностью.");
+            return true;
         } catch (IOException e) {
             throw new UncheckedIOException("Не удалось загрузить игру", e);
         }
     }
 
+    /**
+     * Разбирает список предметов "Тип:название:значение,..." и добавляет их в список.
+     * Предметы старого формата без значения разбирает каталог (см. ItemCatalog.parse);
+     * нераспознанные предметы пропускаются с сообщением.
+     * @param value строка со списком предметов
+     * @param target список, в который добавляются предметы
+     */
+    private static void parseItems(String value, List<Item> target) {
+        if (value.isBlank()) return;
+        for (String token : value.split(",")) {
+            Item item = ItemCatalog.parse(token.trim());
+            if (item != null) target.add(item);
+            else System.out.println("Неизвестный предмет в сохранении пропущен: " + token.trim());
+        }
+    }
+
     /**
      * Выводит таблицу лидеров (топ-10).
      */
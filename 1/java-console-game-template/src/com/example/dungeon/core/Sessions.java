@@ -0,0 +1,391 @@
+package com.example.dungeon.core;
+
+import com.example.dungeon.model.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Сессии игроков с усыплением простаивающих сессий на диск.
+ * Активные сессии (состояние игры целиком) лежат в памяти. Фоновый поток session-hibernator
+ * четыре раза за порог простоя (свойство dungeon.sessions.idle, секунды; по умолчанию 300)
+ * находит сессии, которые дольше порога не выполняли команд, записывает их в каталог сессий
+ * (свойство dungeon.sessions.dir, по умолчанию sessions) и убирает из памяти. Мир общий и в файл
+ * не попадает. Усыпление поток session-hibernator передаёт исполнителю команд (setCommandExecutor),
+ * поэтому сессия записывается между командами, как при сохранении.
+ * Следующая команда сессии читает файл и восстанавливает состояние за десятки
+ * микросекунд, поэтому память растёт с числом активных сессий, а не всех подключённых.
+ *
+ * Формат файла (DataOutputStream): сигнатура, версия, имя игрока, HP, атака, текущая комната
+ * по названию, счёт, зерно и число выдач генератора случайных чисел (запись их не меняет)
+ * и инвентарь строками каталога предметов. Файлы версии 1 (без числа выдач) тоже читаются.
+ * История ходов и ожидающие таймеры ходов сессии при усыплении отбрасываются.
+ */
+public class Sessions {
+    // Сигнатура и версия файла сессии
+    private static final int MAGIC = 0x44535331; // "DSS1"
+    private static final int VERSION = 2;
+    // Допустимый id сессии (он же имя файла)
+    private static final Pattern ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    // Каталог усыплённых сессий
+    private final Path dir;
+    // Порог простоя
+    private final long idleNanos;
+    // Создаёт состояние новой сессии, подключённое к миру
+    private final Function<String, GameState> factory;
+    // Вызывается, когда сессия уходит из памяти (усыплена или игра окончена)
+    private final Consumer<GameState> onClose;
+    // Активные сессии по id
+    private final Map<String, Session> active = new ConcurrentHashMap<>();
+    // Поток усыпления (демон, чтобы не мешать завершению игры)
+    private final ScheduledExecutorService hibernator = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "session-hibernator");
+        t.setDaemon(true);
+        return t;
+    });
+    // Наблюдатель за пробуждением и усыплением (журнал воспроизведения)
+    private volatile Listener listener;
+    // Исполнитель, через который поток усыпления пишет сессии (по умолчанию — сам поток)
+    private volatile Executor commands = Runnable::run;
+    // Метрики
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong hibernated = new AtomicLong();
+    private final AtomicLong thawed = new AtomicLong();
+    private final AtomicLong thawNanos = new AtomicLong();
+    private volatile long maxThawNanos;
+
+    /**
+     * Наблюдатель за сессиями: узнаёт о пробуждении и усыплении, чтобы их можно было повторить.
+     */
+    public interface Listener {
+        /**
+         * Сессия разбужена из файла (вызывается до разбора файла).
+         * @param id id сессии
+         * @param file содержимое файла сессии
+         */
+        void thawed(String id, byte[] file);
+
+        /**
+         * Сессия усыплена и убрана из памяти.
+         * @param id id сессии
+         */
+        void hibernated(String id);
+    }
+
+    /**
+     * Сессии с каталогом и порогом простоя из системных свойств.
+     * @param factory создаёт состояние новой сессии по id (игрок в стартовой комнате общего мира)
+     * @param onClose вызывается, когда сессия уходит из памяти
+     */
+    public Sessions(Function<String, GameState> factory, Consumer<GameState> onClose) {
+        this(Paths.get(System.getProperty("dungeon.sessions.dir", "sessions")),
+                TimeUnit.SECONDS.toMillis(Long.getLong("dungeon.sessions.idle", 300)), factory, onClose);
+    }
+
+    /**
+     * Сессии с явными настройками.
+     * @param dir каталог усыплённых сессий
+     * @param idleMillis порог простоя в миллисекундах (0 — не усыплять по времени)
+     * @param factory создаёт состояние новой сессии по id
+     * @param onClose вызывается, когда сессия уходит из памяти
+     */
+    public Sessions(Path dir, long idleMillis, Function<String, GameState> factory, Consumer<GameState> onClose) {
+        this.dir = dir;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        this.factory = factory;
+        this.onClose = onClose;
+        if (idleMillis > 0) {
+            long period = Math.max(1, idleMillis / 4);
+            hibernator.scheduleWithFixedDelay(this::hibernateIdle, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Выполняет действие над состоянием сессии: активной, разбуженной из файла или новой.
+     * Действия одной сессии выполняются по очереди; усыпить сессию во время действия нельзя.
+     * Если после действия игра сессии окончена, сессия удаляется.
+     * @param id id сессии (латинские буквы, цифры, '_' и '-', до 64 символов)
+     * @param action действие
+     * @param <T> тип результата
+     * @return результат действия
+     * @throws IllegalArgumentException если id недопустим
+     */
+    public <T> T run(String id, Function<GameState, T> action) {
+        if (!ID.matcher(id).matches()) throw new IllegalArgumentException("Недопустимый id сессии: " + id);
+        while (true) {
+            Session s = active.computeIfAbsent(id, this::open);
+            synchronized (s) {
+                if (s.closed) continue; // сессию только что усыпили — будим заново
+                s.lastUsed = System.nanoTime();
+                try {
+                    return action.apply(s.state);
+                } finally {
+                    if (s.state.isGameOver()) close(s, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Выполняет действие над каждой сессией в памяти, под её блокировкой (например, перевод
+     * всех сессий на перезагруженный мир). Усыплённые сессии не трогаются: при пробуждении
+     * они создаются заново в текущем мире.
+     * @param action действие
+     */
+    public void forEachActive(Consumer<GameState> action) {
+        for (Session s : active.values()) {
+            synchronized (s) {
+                if (!s.closed) action.accept(s.state);
+            }
+        }
+    }
+
+    /**
+     * Задаёт наблюдателя за пробуждением и усыплением сессий.
+     * @param listener наблюдатель (null — без наблюдателя)
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Задаёт исполнитель команд игры: усыпление по простою выполняется через него, то есть
+     * между командами, а не параллельно с ними. Исполнитель должен выполнить задачу до возврата.
+     * @param commands исполнитель команд
+     */
+    public void setCommandExecutor(Executor commands) {
+        this.commands = commands;
+    }
+
+    /**
+     * Усыпляет сессию сейчас, независимо от простоя (повтор журнала).
+     * @param id id сессии
+     * @return true, если сессия была в памяти и усыплена
+     */
+    public boolean hibernate(String id) {
+        Session s = active.get(id);
+        if (s == null) return false;
+        synchronized (s) {
+            return !s.closed && sleep(s);
+        }
+    }
+
+    /**
+     * Заменяет файл сессии (повтор журнала подкладывает файл, из которого сессия была разбужена).
+     * @param id id сессии
+     * @param bytes новое содержимое файла
+     * @return прежнее содержимое файла или null, если файла не было
+     * @throws UncheckedIOException если файл не удалось прочитать или записать
+     */
+    public byte[] restore(String id, byte[] bytes) {
+        Path f = file(id);
+        try {
+            byte[] previous = Files.exists(f) ? Files.readAllBytes(f) : null;
+            Files.createDirectories(dir);
+            Files.write(f, bytes);
+            return previous;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать файл сессии " + id, e);
+        }
+    }
+
+    /**
+     * Записывает сессию в её файл, не убирая из памяти (команда save сессии).
+     * Вызывается внутри run этой же сессии.
+     * @param s состояние сессии (id — имя игрока)
+     * @return файл сессии
+     * @throws UncheckedIOException если файл не удалось записать
+     */
+    public Path save(GameState s) {
+        String id = s.getPlayer().getName();
+        try {
+            write(id, s);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить сессию " + id, e);
+        }
+        return file(id);
+    }
+
+    /**
+     * Усыпляет сессии, которые не выполняли команд дольше порога.
+     * @return количество усыплённых сессий
+     */
+    public int hibernateIdle() {
+        return hibernate(idleNanos);
+    }
+
+    /**
+     * Усыпляет все активные сессии (при выходе) и останавливает поток усыпления.
+     */
+    public void shutdown() {
+        hibernator.shutdownNow();
+        hibernate(0);
+    }
+
+    /**
+     * Возвращает количество сессий в памяти.
+     * @return количество активных сессий
+     */
+    public int activeCount() {
+        return active.size();
+    }
+
+    /**
+     * Возвращает сводку о сессиях.
+     * @return строка с метриками
+     */
+    public String stats() {
+        long n = thawed.get();
+        return String.format("Сессий в памяти: %d, создано: %d, усыплено: %d, разбужено: %d "
+                        + "(в среднем %d мкс, максимум %d мкс), каталог: %s",
+                active.size(), created.get(), hibernated.get(), n,
+                n == 0 ? 0 : thawNanos.get() / n / 1000, maxThawNanos / 1000, dir);
+    }
+
+    // Усыпляет сессии, простаивающие дольше заданного; каждую — через исполнитель команд
+    private int hibernate(long idle) {
+        AtomicInteger count = new AtomicInteger();
+        for (Session s : active.values()) {
+            if (System.nanoTime() - s.lastUsed < idle) continue;
+            commands.execute(() -> {
+                synchronized (s) {
+                    // Пока ждали очереди, сессия могла выполнить команду
+                    if (!s.closed && System.nanoTime() - s.lastUsed >= idle && sleep(s)) count.incrementAndGet();
+                }
+            });
+        }
+        return count.get();
+    }
+
+    // Записывает сессию в файл и убирает из памяти; вызывается под блокировкой сессии
+    private boolean sleep(Session s) {
+        try {
+            write(s.id, s.state);
+        } catch (IOException e) {
+            System.out.println("Сессия " + s.id + " не усыплена: " + e.getMessage());
+            return false;
+        }
+        close(s, false);
+        hibernated.incrementAndGet();
+        Listener l = listener;
+        if (l != null) l.hibernated(s.id);
+        return true;
+    }
+
+    // Убирает сессию из памяти; у оконченной игры удаляется и файл
+    private void close(Session s, boolean gameOver) {
+        s.closed = true;
+        active.remove(s.id, s);
+        onClose.accept(s.state);
+        if (gameOver) {
+            try {
+                Files.deleteIfExists(file(s.id));
+            } catch (IOException e) {
+                System.out.println("Файл сессии " + s.id + " не удалён: " + e.getMessage());
+            }
+        }
+    }
+
+    // Будит сессию из файла или создаёт новую
+    private Session open(String id) {
+        Path f = file(id);
+        if (Files.exists(f)) {
+            long start = System.nanoTime();
+            try {
+                byte[] bytes = Files.readAllBytes(f);
+                Listener l = listener;
+                if (l != null) l.thawed(id, bytes);
+                Session s = new Session(id, read(id, bytes));
+                long nanos = System.nanoTime() - start;
+                thawed.incrementAndGet();
+                thawNanos.addAndGet(nanos);
+                if (nanos > maxThawNanos) maxThawNanos = nanos;
+                return s;
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Файл сессии " + id + " не прочитан, сессия начнётся заново: " + e.getMessage());
+            }
+        }
+        created.incrementAndGet();
+        return new Session(id, factory.apply(id));
+    }
+
+    // Восстанавливает состояние сессии: новое состояние в общем мире плюс данные из файла
+    private GameState read(String id, byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC) throw new IOException("неизвестный формат");
+        int version = in.readInt();
+        if (version < 1 || version > VERSION) throw new IOException("неизвестная версия " + version);
+        GameState s = factory.apply(id);
+        Player p = new Player(in.readUTF(), in.readInt(), in.readInt());
+        s.setPlayer(p);
+        // Комнаты могло не стать после перезагрузки мира — тогда игрок остаётся в стартовой
+        Room room = s.getRoom(in.readUTF());
+        if (room != null) s.setCurrent(room);
+        s.addScore(in.readInt());
+        long seed = in.readLong();
+        s.setRandomState(seed, version >= 2 ? in.readLong() : 0);
+        List<Item> inventory = p.getInventory();
+        for (int n = in.readInt(); n > 0; n--) {
+            Item item = ItemCatalog.parse(in.readUTF());
+            if (item != null) inventory.add(item);
+        }
+        return s;
+    }
+
+    // Записывает сессию во временный файл и атомарно заменяет им файл сессии
+    private void write(String id, GameState s) throws IOException {
+        // Счёт начисляет потребитель событий — он догоняет опубликованные команды сессии
+        s.getEvents().awaitProcessed();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            Player p = s.getPlayer();
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(p.getName());
+            out.writeInt(p.getHp());
+            out.writeInt(p.getAttack());
+            out.writeUTF(s.getCurrent().getName());
+            out.writeInt(s.getScore());
+            // Зерно и число выдач: после пробуждения последовательность продолжится с того же места
+            out.writeLong(s.getSeed());
+            out.writeLong(s.getDraws());
+            out.writeInt(p.getInventory().size());
+            for (Item item : p.getInventory()) out.writeUTF(ItemCatalog.format(item));
+        }
+        Files.createDirectories(dir);
+        Path f = file(id);
+        Path tmp = f.resolveSibling(f.getFileName() + ".tmp");
+        Files.write(tmp, bytes.toByteArray());
+        Files.move(tmp, f, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Файл сессии
+    private Path file(String id) {
+        return dir.resolve(id + ".bin");
+    }
+
+    /**
+     * Активная сессия: состояние игры и время последней команды.
+     */
+    private static final class Session {
+        private final String id;
+        private final GameState state;
+        private volatile long lastUsed = System.nanoTime();
+        // Сессия усыплена или окончена; состояние больше не используется
+        private boolean closed;
+
+        Session(String id, GameState state) {
+            this.id = id;
+            this.state = state;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.dungeon.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Профиль запуска игры, включается флагом --startup-report.
+ * Фиксирует длительность этапов запуска: работа JVM до main, загрузка классов, регистрация команд,
+ * загрузка мира и вывод первого приглашения. Этапы, которые выполняются лениво после первого приглашения,
+ * выводятся по мере выполнения. Без флага профиль ничего не замеряет и не загружает классы управления.
+ */
+public final class StartupProfile {
+    // Включён ли профиль
+    private static boolean enabled;
+    // Выведен ли уже отчёт о первом приглашении
+    private static boolean reported;
+    // Время окончания предыдущего этапа
+    private static long last;
+    // Этапы до первого приглашения
+    private static final List<String> phases = new ArrayList<>();
+
+    /**
+     * Включает профиль; вызывается в самом начале main.
+     */
+    public static void enable() {
+        enabled = true;
+        phases.add(line("JVM до main", ManagementFactory.getRuntimeMXBean().getUptime()));
+        last = System.nanoTime();
+    }
+
+    /**
+     * Отмечает завершение этапа запуска.
+     * @param phase название этапа
+     */
+    public static void mark(String phase) {
+        if (!enabled) return;
+        long now = System.nanoTime();
+        String entry = line(phase, (now - last) / 1_000_000.0);
+        last = now;
+        if (reported) {
+            // Ленивые этапы выполняются уже после первого приглашения
+            System.out.println("[startup] " + entry.strip());
+        } else {
+            phases.add(entry);
+        }
+    }
+
+    /**
+     * Выводит отчёт о запуске перед первым приглашением.
+     */
+    public static void report() {
+        if (!enabled || reported) return;
+        mark("первое приглашение");
+        reported = true;
+        var classes = ManagementFactory.getClassLoadingMXBean();
+        boolean cds = ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .anyMatch(a -> a.startsWith("-XX:SharedArchiveFile"));
+        System.out.println("Профиль запуска:");
+        phases.forEach(p -> System.out.println("  " + p));
+        System.out.println("  Загружено классов: " + classes.getLoadedClassCount()
+                + ", архив CDS приложения: " + (cds ? "да" : "нет"));
+        System.out.println("  " + WorldInfo.describe().replace("\n", "\n  ").strip());
+        System.out.println("  Команды и мир инициализируются при первой команде.");
+    }
+
+    // Форматирует строку этапа
+    private static String line(String phase, double millis) {
+        return String.format("%-24s %8.1f мс", phase, millis);
+    }
+
+    // Приватный конструктор: класс содержит только статические методы
+    private StartupProfile() {
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.dungeon.core;
+
+import com.example.dungeon.model.PlayerStats;
+import com.example.dungeon.model.TimerWheel;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Хранилище статистики игроков.
+ * Файл статистики (свойство dungeon.stats, по умолчанию stats.bin) читается лениво — при первом
+ * обращении к статистике, а не при запуске игры. Статистика сбрасывается в файл периодически
+ * (свойство dungeon.stats.flush, секунды; по умолчанию 30, 0 — только при выходе) и при выходе,
+ * и только если она изменилась. Сброс идёт в отдельном потоке через временный файл,
+ * который атомарно заменяет старый.
+ *
+ * Формат файла (DataOutputStream): сигнатура, версия, число игроков, затем для каждого игрока
+ * имя, четыре счётчика (команды, нанесённый и полученный урон, использованные предметы),
+ * открытые комнаты и убийства по монстрам.
+ */
+public class StatsStore {
+    // Сигнатура и версия файла статистики
+    private static final int MAGIC = 0x44535431; // "DST1"
+    private static final int VERSION = 1;
+
+    // Файл статистики
+    private final Path file;
+    // Поток записи (демон, чтобы не мешать завершению игры)
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "stats-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    // Признак того, что сброс уже выполняется
+    private final AtomicBoolean inFlight = new AtomicBoolean();
+    // Статистика по имени игрока (null — файл ещё не прочитан)
+    private volatile Map<String, PlayerStats> players;
+    // Сумма счётчиков при последнем сбросе
+    private volatile long flushedTotal;
+    // Метрики
+    private volatile long flushes;
+    private volatile long lastFlushNanos;
+
+    /**
+     * Хранилище с файлом и интервалом сброса из системных свойств.
+     * @param clock колесо таймеров реального времени
+     * @param tickMillis длительность тика колеса в миллисекундах
+     */
+    public StatsStore(TimerWheel clock, long tickMillis) {
+        this(Paths.get(System.getProperty("dungeon.stats", "stats.bin")), clock, tickMillis,
+                Long.getLong("dungeon.stats.flush", 30));
+    }
+
+    /**
+     * Хранилище с явными настройками.
+     * @param file файл статистики
+     * @param clock колесо таймеров реального времени
+     * @param tickMillis длительность тика колеса в миллисекундах
+     * @param flushSeconds интервал сброса в секундах (0 — только при выходе)
+     */
+    public StatsStore(Path file, TimerWheel clock, long tickMillis, long flushSeconds) {
+        this.file = file;
+        if (flushSeconds > 0) {
+            long ticks = (TimeUnit.SECONDS.toMillis(flushSeconds) + tickMillis - 1) / tickMillis;
+            schedule(clock, ticks);
+        }
+    }
+
+    /**
+     * Возвращает статистику игрока, при первом обращении читая файл статистики.
+     * @param player имя игрока
+     * @return статистика игрока
+     */
+    public PlayerStats get(String player) {
+        Map<String, PlayerStats> map = players;
+        if (map == null) map = load();
+        return map.computeIfAbsent(player, p -> new PlayerStats());
+    }
+
+    /**
+     * Запускает сброс статистики в файл в фоне, если она изменилась с прошлого сброса.
+     * @return true, если сброс запущен
+     */
+    public boolean flushAsync() {
+        if (players == null || total() == flushedTotal || !inFlight.compareAndSet(false, true)) return false;
+        writer.execute(() -> {
+            try {
+                flush();
+            } finally {
+                inFlight.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Дожидается фонового сброса и сбрасывает оставшиеся изменения; вызывается при выходе.
+     */
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (players != null && total() != flushedTotal) flush();
+    }
+
+    /**
+     * Возвращает сводку о файле статистики.
+     * @return строка с метриками
+     */
+    public String stats() {
+        return "Файл статистики: " + file + (players == null ? " (ещё не прочитан)" : ", игроков: " + players.size())
+                + ", сбросов: " + flushes + ", последний: " + TimeUnit.NANOSECONDS.toMicros(lastFlushNanos) + " мкс";
+    }
+
+    // Периодический сброс на колесе реального времени
+    private void schedule(TimerWheel clock, long ticks) {
+        clock.schedule(ticks, () -> {
+            flushAsync();
+            schedule(clock, ticks);
+        });
+    }
+
+    // Сумма счётчиков всех игроков
+    private long total() {
+        long sum = 0;
+        for (PlayerStats s : players.values()) sum += s.total();
+        return sum;
+    }
+
+    // Читает файл статистики (один раз; отсутствующий или повреждённый файл — пустая статистика)
+    private synchronized Map<String, PlayerStats> load() {
+        if (players != null) return players;
+        Map<String, PlayerStats> map = new ConcurrentHashMap<>();
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("неизвестный формат");
+                for (int n = in.readInt(); n > 0; n--) {
+                    PlayerStats s = new PlayerStats();
+                    map.put(in.readUTF(), s);
+                    s.restore(in.readLong(), in.readLong(), in.readLong(), in.readLong());
+                    for (int r = in.readInt(); r > 0; r--) s.discovered(in.readUTF());
+                    for (int k = in.readInt(); k > 0; k--) s.restoreKills(in.readUTF(), in.readLong());
+                }
+            } catch (IOException e) {
+                System.out.println("Файл статистики не прочитан, статистика начнётся заново: " + e.getMessage());
+                map.clear();
+            }
+        }
+        players = map;
+        flushedTotal = total();
+        return map;
+    }
+
+    // Записывает статистику во временный файл и атомарно заменяет им файл статистики
+    private synchronized void flush() {
+        long start = System.nanoTime();
+        long total = total();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(players.size());
+                for (Map.Entry<String, PlayerStats> e : players.entrySet()) {
+                    PlayerStats s = e.getValue();
+                    out.writeUTF(e.getKey());
+                    out.writeLong(s.commands());
+                    out.writeLong(s.damageDealt());
+                    out.writeLong(s.damageTaken());
+                    out.writeLong(s.itemsUsed());
+                    String[] rooms = s.rooms().toArray(new String[0]);
+                    out.writeInt(rooms.length);
+                    for (String r : rooms) out.writeUTF(r);
+                    Map<String, Long> kills = s.kills();
+                    out.writeInt(kills.size());
+                    for (Map.Entry<String, Long> k : kills.entrySet()) {
+                        out.writeUTF(k.getKey());
+                        out.writeLong(k.getValue());
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            flushedTotal = total;
+            flushes++;
+            lastFlushNanos = System.nanoTime() - start;
+        } catch (IOException e) {
+            System.out.println("Ошибка записи статистики: " + e.getMessage());
+        }
+    }
+}
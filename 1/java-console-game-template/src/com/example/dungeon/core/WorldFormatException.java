@@ -0,0 +1,15 @@
+package com.example.dungeon.core;
+
+/**
+ * Класс исключения, которое выбрасывается при ошибке в файле мира.
+ * Сообщение содержит имя файла и номер строки с ошибкой.
+ */
+public class WorldFormatException extends RuntimeException {
+    /**
+     * Конструктор исключения.
+     * @param m сообщение об ошибке
+     */
+    public WorldFormatException(String m) {
+        super(m);
+    }
+}
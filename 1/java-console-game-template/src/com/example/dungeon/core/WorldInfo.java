@@ -1,27 +1,36 @@
 package com.example.dungeon.core;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Класс для отслеживания информации о загрузке классов и инициализации приложения.
  * Используется для демонстрации работы ClassLoader и статической инициализации.
+ * Сведения о загрузчиках собираются только по запросу (describe), а не при загрузке класса.
  */
 public final class WorldInfo {
-    // Лог для отслеживания инициализации и взаимодействий с классом
-    private static final StringBuilder log = new StringBuilder();
-
-    // Статический блок инициализации, выполняется при загрузке класса
-    static {
-        log.append("[static init WorldInfo]\n");
-        ClassLoader cl = WorldInfo.class.getClassLoader();
-        log.append("ClassLoader: ").append(cl).append("\n");
-        if (cl != null) log.append("Parent: ").append(cl.getParent()).append("\n");
-    }
+    // Классы, обращавшиеся к WorldInfo при своей статической инициализации
+    private static final List<String> touchedBy = new ArrayList<>(2);
 
     /**
      * Метод для регистрации взаимодействия с классом.
      * @param who имя субъекта, вызвавшего метод
      */
     public static void touch(String who) {
-        log.append("touched by ").append(who).append("\n");
+        touchedBy.add(who);
+    }
+
+    /**
+     * Возвращает описание загрузчиков классов и обращений к классу.
+     * @return строка с описанием
+     */
+    public static String describe() {
+        StringBuilder sb = new StringBuilder();
+        ClassLoader cl = WorldInfo.class.getClassLoader();
+        sb.append("ClassLoader: ").append(cl).append("\n");
+        if (cl != null) sb.append("Parent: ").append(cl.getParent()).append("\n");
+        sb.append("touched by: ").append(String.join(", ", touchedBy)).append("\n");
+        return sb.toString();
     }
 
     // Приватный конструктор предотвращает создание экземпляров класса
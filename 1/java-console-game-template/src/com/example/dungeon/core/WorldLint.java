@@ -0,0 +1,364 @@
+package com.example.dungeon.core;
+
+import com.example.dungeon.model.ItemCatalog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Проверка (lint) файлов мира и сохранений перед использованием.
+ * В отличие от WorldLoader, разбор не останавливается на первой ошибке: файл читается в лёгкое
+ * сырое представление (комнаты с номерами строк), повторяющиеся названия комнат и дверей
+ * замечаются при чтении, а затем все комнаты проверяются параллельно на пуле fork-join:
+ * выходы в несуществующие комнаты и выходы без цели, односторонние выходы, предметы
+ * в неизвестном формате, ключи без id двери и ключи от несуществующих дверей.
+ * Формат файла (мир или сохранение) определяется по первой значимой строке.
+ */
+public final class WorldLint {
+    // Комнат в одной задаче fork-join
+    private static final int CHUNK = 4096;
+
+    /**
+     * Найденная проблема.
+     * @param file файл
+     * @param line номер строки (0 — относится к файлу целиком)
+     * @param code короткий код проблемы
+     * @param message описание
+     */
+    public record Problem(Path file, int line, String code, String message) {
+        @Override
+        public String toString() {
+            return file + ":" + line + ": " + code + ": " + message;
+        }
+    }
+
+    // Сырые данные комнаты: название, строка объявления, выходы, предметы, дверь
+    private static final class RawRoom {
+        final String name;
+        final int line;
+        final List<String> exitDirs = new ArrayList<>();
+        final List<String> exitTargets = new ArrayList<>(); // null — выход без цели
+        final List<Integer> exitLines = new ArrayList<>();
+        final List<String> items = new ArrayList<>();
+        final List<Integer> itemLines = new ArrayList<>();
+
+        RawRoom(String name, int line) {
+            this.name = name;
+            this.line = line;
+        }
+    }
+
+    // Сырое представление файла
+    private final Path file;
+    private final List<RawRoom> rooms = new ArrayList<>();
+    private final Map<String, RawRoom> byName = new HashMap<>();
+    private final Set<String> doors = new HashSet<>();
+    // Проблемы, найденные при чтении (последовательно)
+    private final List<Problem> problems = new ArrayList<>();
+
+    private WorldLint(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Проверяет файл мира или сохранения.
+     * @param file файл
+     * @return список проблем, упорядоченный по номеру строки (пустой, если проблем нет)
+     */
+    public static List<Problem> lint(Path file) {
+        return lint(file, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Проверяет файл мира или сохранения на заданном пуле.
+     * @param file файл
+     * @param pool пул для параллельной проверки комнат
+     * @return список проблем, упорядоченный по номеру строки
+     */
+    public static List<Problem> lint(Path file, ForkJoinPool pool) {
+        WorldLint lint = new WorldLint(file);
+        try (BufferedReader r = Files.newBufferedReader(file)) {
+            lint.read(r);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать " + file, e);
+        }
+        List<Problem> result = new ArrayList<>(lint.problems);
+        if (!lint.rooms.isEmpty()) result.addAll(pool.invoke(lint.new Check(0, lint.rooms.size())));
+        result.sort(Comparator.comparingInt(Problem::line));
+        return result;
+    }
+
+    // Читает файл, определяя формат по первой значимой строке
+    private void read(BufferedReader r) throws IOException {
+        String line;
+        int lineNo = 0;
+        Boolean save = null;
+        // Состояние разбора: текущая комната сохранения, стартовая комната и её строка
+        RawRoom current = null;
+        String start = null;
+        int startLine = 0;
+        int declaredCount = -1;
+        int countLine = 0;
+        while ((line = r.readLine()) != null) {
+            lineNo++;
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+            String[] f = trimmed.split(";", -1);
+            if (f[0].equals("player")) {
+                // Строка игрока одинакова в мире и сохранении
+                if (fields(f, 4, lineNo)) numbers(f, 2, lineNo);
+                continue;
+            }
+            if (save == null) {
+                save = Set.of("inventory", "rooms_count", "room_name").contains(f[0])
+                        || (f[0].equals("room") && f.length == 2);
+            }
+            if (save) {
+                String value = f.length > 1 ? trimmed.substring(f[0].length() + 1) : "";
+                switch (f[0]) {
+                    case "inventory" -> items(value, lineNo, null);
+                    case "room" -> {
+                        start = value;
+                        startLine = lineNo;
+                    }
+                    case "rooms_count" -> {
+                        declaredCount = parse(value, lineNo);
+                        countLine = lineNo;
+                    }
+                    case "room_name" -> current = declare(value, lineNo);
+                    case "room_description" -> {
+                        if (current == null) problem(lineNo, "orphan-line", "описание вне комнаты");
+                    }
+                    case "neighbors" -> {
+                        if (current == null) {
+                            problem(lineNo, "orphan-line", "выходы вне комнаты");
+                        } else if (!value.isBlank()) {
+                            for (String exit : value.split(",")) {
+                                String[] dt = exit.split("=", 2);
+                                addExit(current, dt[0].trim(), dt.length == 2 ? dt[1] : null, lineNo);
+                            }
+                        }
+                    }
+                    case "items" -> {
+                        if (current == null) problem(lineNo, "orphan-line", "предметы вне комнаты");
+                        else items(value, lineNo, current);
+                    }
+                    case "monster" -> {
+                        String[] m = value.split(":");
+                        if (!value.isEmpty() && (m.length != 3 || parse(m[1], lineNo) < 0 || parse(m[2], lineNo) < 0)) {
+                            problem(lineNo, "bad-monster", "ожидается имя:уровень:hp: " + value);
+                        }
+                    }
+                    case "door" -> {
+                        String[] d = value.split(":");
+                        if (value.isEmpty()) break;
+                        if (d.length != 3) problem(lineNo, "bad-door", "ожидается id:заперта:открыта: " + value);
+                        else door(d[0], lineNo);
+                    }
+                    default -> problem(lineNo, "unknown-line", "неизвестная строка сохранения: " + f[0]);
+                }
+                continue;
+            }
+            switch (f[0]) {
+                case "room" -> {
+                    if (fields(f, 3, lineNo)) declare(f[1], lineNo);
+                }
+                case "exit" -> {
+                    if (fields(f, 4, lineNo)) {
+                        RawRoom from = byName.get(f[1]);
+                        if (from == null) problem(lineNo, "unknown-room", "выход из необъявленной комнаты: " + f[1]);
+                        else addExit(from, f[2], f[3], lineNo);
+                    }
+                }
+                case "item" -> {
+                    if (fields(f, 3, lineNo)) {
+                        RawRoom room = byName.get(f[1]);
+                        if (room == null) problem(lineNo, "unknown-room", "предмет в необъявленной комнате: " + f[1]);
+                        else items(f[2], lineNo, room);
+                    }
+                }
+                case "monster" -> {
+                    if (fields(f, 5, lineNo)) {
+                        if (!byName.containsKey(f[1])) problem(lineNo, "unknown-room", "монстр в необъявленной комнате: " + f[1]);
+                        numbers(f, 3, lineNo);
+                    }
+                }
+                case "door" -> {
+                    if (fields(f, 3, lineNo)) {
+                        if (!byName.containsKey(f[1])) problem(lineNo, "unknown-room", "дверь в необъявленной комнате: " + f[1]);
+                        door(f[2], lineNo);
+                    }
+                }
+                case "loot" -> {
+                    if (f.length < 4) {
+                        problem(lineNo, "bad-fields", "ожидается loot;монстр;бросков;предмет=вес;...");
+                        break;
+                    }
+                    parse(f[2], lineNo);
+                    for (int i = 3; i < f.length; i++) {
+                        int eq = f[i].lastIndexOf('=');
+                        if (eq < 0) {
+                            problem(lineNo, "bad-loot", "ожидается предмет=вес: " + f[i]);
+                            continue;
+                        }
+                        String token = f[i].substring(0, eq);
+                        if (!token.equals("-")) items(token, lineNo, null);
+                        try {
+                            if (!(Double.parseDouble(f[i].substring(eq + 1)) > 0)) problem(lineNo, "bad-loot", "вес должен быть положительным: " + f[i]);
+                        } catch (NumberFormatException e) {
+                            problem(lineNo, "bad-loot", "ожидается вес: " + f[i]);
+                        }
+                    }
+                }
+                case "start" -> {
+                    if (fields(f, 2, lineNo)) {
+                        start = f[1];
+                        startLine = lineNo;
+                    }
+                }
+                default -> problem(lineNo, "unknown-line", "неизвестная строка: " + f[0]);
+            }
+        }
+        if (start == null) problem(0, "no-start", "не указана стартовая комната");
+        else if (!byName.containsKey(start)) problem(startLine, "unknown-room", "стартовая комната не объявлена: " + start);
+        if (declaredCount >= 0 && declaredCount != rooms.size()) {
+            problem(countLine, "room-count", "объявлено комнат: " + declaredCount + ", найдено: " + rooms.size());
+        }
+    }
+
+    // Объявляет комнату; повторное название замечается сразу (в карте комнат оно затёрло бы первую)
+    private RawRoom declare(String name, int line) {
+        RawRoom room = new RawRoom(name, line);
+        RawRoom first = byName.putIfAbsent(name, room);
+        if (first != null) {
+            problem(line, "duplicate-room", "комната «" + name + "» уже объявлена в строке " + first.line);
+        }
+        rooms.add(room);
+        return room;
+    }
+
+    // Добавляет выход комнаты
+    private void addExit(RawRoom room, String dir, String target, int line) {
+        if (room.exitDirs.contains(dir)) problem(line, "duplicate-exit", "«" + room.name + "»: выход " + dir + " объявлен повторно");
+        room.exitDirs.add(dir);
+        room.exitTargets.add(target);
+        room.exitLines.add(line);
+    }
+
+    // Запоминает дверь и проверяет уникальность её id
+    private void door(String id, int line) {
+        if (!doors.add(id)) problem(line, "duplicate-door", "дверь с id «" + id + "» уже есть");
+    }
+
+    // Запоминает предметы из списка через запятую; проверка формата идёт параллельно вместе с комнатой
+    private void items(String value, int line, RawRoom room) {
+        if (value.isBlank()) return;
+        for (String token : value.split(",")) {
+            if (room != null) {
+                room.items.add(token.trim());
+                room.itemLines.add(line);
+            } else {
+                String error = ItemCatalog.validate(token.trim());
+                if (error != null) problem(line, "bad-item", token.trim() + ": " + error);
+                else if (token.trim().startsWith("Key:") && ItemCatalog.doorId(token.trim()) == null) {
+                    problem(line, "unresolved-key", token.trim() + ": нет id двери; ключ загрузится, только если в мире есть ключ с таким названием");
+                }
+            }
+        }
+    }
+
+    // Проверяет количество полей строки файла мира
+    private boolean fields(String[] f, int count, int line) {
+        if (f.length == count) return true;
+        problem(line, "bad-fields", f[0] + ": ожидается полей: " + count + ", найдено: " + f.length);
+        return false;
+    }
+
+    // Проверяет, что поля с номера from и до конца — числа
+    private void numbers(String[] f, int from, int line) {
+        for (int i = from; i < f.length; i++) parse(f[i], line);
+    }
+
+    // Разбирает число; при ошибке записывает проблему и возвращает -1
+    private int parse(String s, int line) {
+        try {
+            return Integer.parseInt(s.trim());
+        } catch (NumberFormatException e) {
+            problem(line, "bad-number", "ожидается число: " + s);
+            return -1;
+        }
+    }
+
+    private void problem(int line, String code, String message) {
+        problems.add(new Problem(file, line, code, message));
+    }
+
+    /**
+     * Параллельная проверка диапазона комнат. Сырое представление после чтения не меняется,
+     * поэтому задачи читают его без синхронизации.
+     */
+    private final class Check extends RecursiveTask<List<Problem>> {
+        private final int from;
+        private final int to;
+
+        Check(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Problem> compute() {
+            if (to - from > CHUNK) {
+                int mid = (from + to) >>> 1;
+                Check left = new Check(from, mid);
+                left.fork();
+                List<Problem> right = new Check(mid, to).compute();
+                List<Problem> result = left.join();
+                result.addAll(right);
+                return result;
+            }
+            List<Problem> found = new ArrayList<>();
+            for (int i = from; i < to; i++) check(rooms.get(i), found);
+            return found;
+        }
+
+        private void check(RawRoom room, List<Problem> found) {
+            for (int e = 0; e < room.exitDirs.size(); e++) {
+                String dir = room.exitDirs.get(e);
+                String target = room.exitTargets.get(e);
+                int line = room.exitLines.get(e);
+                if (target == null) {
+                    found.add(new Problem(file, line, "exit-without-target", "«" + room.name + "»: у выхода " + dir + " нет комнаты назначения"));
+                    continue;
+                }
+                RawRoom to = byName.get(target);
+                if (to == null) {
+                    found.add(new Problem(file, line, "dangling-exit", "«" + room.name + "»: выход " + dir + " ведёт в несуществующую комнату «" + target + "»"));
+                } else if (!to.exitTargets.contains(room.name)) {
+                    found.add(new Problem(file, line, "one-way-exit", "«" + room.name + "» -> «" + target + "» (" + dir + "): обратного выхода нет"));
+                }
+            }
+            for (int i = 0; i < room.items.size(); i++) {
+                String token = room.items.get(i);
+                String error = ItemCatalog.validate(token);
+                if (error != null) {
+                    found.add(new Problem(file, room.itemLines.get(i), "bad-item", "«" + room.name + "»: " + token + ": " + error));
+                } else if (token.startsWith("Key:")) {
+                    String door = ItemCatalog.doorId(token);
+                    if (door == null) {
+                        found.add(new Problem(file, room.itemLines.get(i), "unresolved-key", "«" + room.name + "»: " + token
+                                + ": нет id двери; ключ загрузится, только если в мире есть ключ с таким названием"));
+                    } else if (!doors.contains(door)) {
+                        found.add(new Problem(file, room.itemLines.get(i), "orphan-key", "«" + room.name + "»: ключ от несуществующей двери «" + door + "»"));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.example.dungeon.core;
+
+import com.example.dungeon.model.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Загрузчик мира из внешнего файла.
+ * Текстовый файл мира читается потоково и проверяется по ходу чтения (ошибка сообщает номер строки).
+ * После первого разбора мир компилируется в двоичный кэш, ключом которого служит хеш содержимого файла;
+ * при следующих запусках кэш отображается в память и читается без разбора и проверок.
+ *
+ * Формат файла (поля через ';', строки с '#' — комментарии):
+ * <pre>
+ * player;Герой;20;5
+ * room;Площадь;Каменная площадь с фонтаном.
+ * exit;Площадь;north;Лес
+ * item;Лес;Potion:Малое зелье:5
+ * monster;Лес;Волк;1;8
+ * door;Комната сокровищ;Секретная дверь
+ * loot;Волк;1;Potion:Зелье опыта:3=1;-=1
+ * start;Площадь
+ * </pre>
+ */
+public final class WorldLoader {
+    // Сигнатура и версия двоичного кэша
+    private static final int MAGIC = 0x44574331; // "DWC1"
+    private static final int VERSION = 2;
+    // Каталог кэша рядом с файлом мира
+    private static final String CACHE_DIR = ".world-cache";
+
+    /**
+     * Загружает мир из файла в состояние игры: из кэша, если он есть, иначе разбором текста с записью кэша.
+     * Состояние меняется только после успешной загрузки.
+     * @param file файл мира
+     * @param s состояние игры
+     * @return true, если мир взят из кэша
+     * @throws WorldFormatException если файл мира содержит ошибку
+     */
+    public static boolean load(Path file, GameState s) {
+        Path cache = cachePath(file);
+        if (Files.exists(cache)) {
+            try {
+                readCache(cache, s);
+                return true;
+            } catch (IOException | RuntimeException e) {
+                // Повреждённый кэш не мешает загрузке: мир будет разобран заново
+                System.out.println("Кэш мира повреждён, разбираем файл заново: " + e.getMessage());
+            }
+        }
+        parse(file, s);
+        try {
+            writeCache(cache, s);
+        } catch (IOException e) {
+            System.out.println("Не удалось записать кэш мира: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Потоково разбирает текстовый файл мира, проверяя каждую строку.
+     * Выходы могут ссылаться на комнаты, объявленные ниже; они проверяются в конце файла.
+     * @param file файл мира
+     * @param s состояние игры
+     * @throws WorldFormatException если файл мира содержит ошибку
+     */
+    public static void parse(Path file, GameState s) {
+        Map<String, Room> rooms = new LinkedHashMap<>();
+        // Выходы, цель которых ещё не объявлена: строка, комната, направление, цель
+        List<Object[]> pending = new ArrayList<>();
+        Map<String, LootTable> loot = new HashMap<>();
+        // Названия дверей служат их id, к которым привязаны ключи, поэтому должны быть уникальны
+        Set<String> doorIds = new HashSet<>();
+        Player player = null;
+        String start = null;
+        int lineNo = 0;
+        try (BufferedReader r = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                lineNo++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] f = line.split(";", -1);
+                String where = file + ":" + lineNo + ": ";
+                switch (f[0]) {
+                    case "player" -> {
+                        need(f, 4, where);
+                        player = new Player(f[1], number(f[2], where), number(f[3], where));
+                    }
+                    case "room" -> {
+                        need(f, 3, where);
+                        if (rooms.containsKey(f[1])) throw new WorldFormatException(where + "комната объявлена повторно: " + f[1]);
+                        rooms.put(f[1], new Room(f[1], f[2]));
+                    }
+                    case "exit" -> {
+                        need(f, 4, where);
+                        Room from = room(rooms, f[1], where);
+                        Room to = rooms.get(f[3]);
+                        if (to != null) from.getNeighbors().put(f[2], to);
+                        else pending.add(new Object[]{where, from, f[2], f[3]});
+                    }
+                    case "item" -> {
+                        need(f, 3, where);
+                        Item item = ItemCatalog.parse(f[2]);
+                        if (item == null) throw new WorldFormatException(where + "неизвестный предмет: " + f[2]);
+                        room(rooms, f[1], where).getItems().add(item);
+                    }
+                    case "monster" -> {
+                        need(f, 5, where);
+                        room(rooms, f[1], where).setMonster(new Monster(f[2], number(f[3], where), number(f[4], where)));
+                    }
+                    case "door" -> {
+                        need(f, 3, where);
+                        if (!doorIds.add(f[2])) throw new WorldFormatException(where + "дверь с таким id уже есть: " + f[2]);
+                        room(rooms, f[1], where).setDoor(new Door(f[2]));
+                    }
+                    case "loot" -> {
+                        if (f.length < 4) need(f, 4, where);
+                        if (loot.containsKey(f[1])) throw new WorldFormatException(where + "таблица лута объявлена повторно: " + f[1]);
+                        loot.put(f[1], lootTable(f, where));
+                    }
+                    case "start" -> {
+                        need(f, 2, where);
+                        start = f[1];
+                    }
+                    default -> throw new WorldFormatException(where + "неизвестная строка: " + f[0]);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать мир " + file, e);
+        }
+        for (Object[] p : pending) {
+            Room to = rooms.get((String) p[3]);
+            if (to == null) throw new WorldFormatException(p[0] + "выход в несуществующую комнату: " + p[3]);
+            ((Room) p[1]).getNeighbors().put((String) p[2], to);
+        }
+        if (start == null) throw new WorldFormatException(file + ": не указана стартовая комната (start)");
+        Room current = room(rooms, start, file + ": ");
+        apply(s, player != null ? player : new Player("Герой", 20, 5), rooms, current, loot);
+    }
+
+    // Разбирает таблицу лута: loot;монстр;бросков;предмет=вес;...; запись "-" означает "ничего не выпало"
+    private static LootTable lootTable(String[] f, String where) {
+        List<Item> items = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        for (int i = 3; i < f.length; i++) {
+            int eq = f[i].lastIndexOf('=');
+            if (eq < 0) throw new WorldFormatException(where + "ожидается предмет=вес: " + f[i]);
+            String token = f[i].substring(0, eq);
+            Item item = null;
+            if (!token.equals("-")) {
+                item = ItemCatalog.parse(token);
+                if (item == null) throw new WorldFormatException(where + "неизвестный предмет: " + token);
+            }
+            double weight;
+            try {
+                weight = Double.parseDouble(f[i].substring(eq + 1));
+            } catch (NumberFormatException e) {
+                throw new WorldFormatException(where + "ожидается вес: " + f[i].substring(eq + 1));
+            }
+            if (!(weight > 0) || Double.isInfinite(weight)) throw new WorldFormatException(where + "вес должен быть положительным: " + f[i]);
+            items.add(item);
+            weights.add(weight);
+        }
+        return new LootTable(items, weights, number(f[2], where));
+    }
+
+    // Записывает мир из состояния игры в двоичный кэш (через временный файл)
+    private static void writeCache(Path cache, GameState s) throws IOException {
+        Files.createDirectories(cache.getParent());
+        List<Room> rooms = new ArrayList<>(s.getRooms().values());
+        Map<Room, Integer> index = new IdentityHashMap<>();
+        for (Room room : rooms) index.put(room, index.size());
+        // Таблицы уникальных описаний и предметов, чтобы каждый текст разбирался один раз
+        Map<Integer, Integer> texts = new LinkedHashMap<>();
+        Map<Item, Integer> items = new LinkedHashMap<>();
+        for (Room room : rooms) {
+            texts.putIfAbsent(room.getDescriptionId(), texts.size());
+            for (Item item : room.getItems()) items.putIfAbsent(item, items.size());
+        }
+        for (LootTable table : s.getLootTables().values()) {
+            for (int i = 0; i < table.size(); i++) {
+                if (table.item(i) != null) items.putIfAbsent(table.item(i), items.size());
+            }
+        }
+        Path tmp = cache.resolveSibling(cache.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            Player p = s.getPlayer();
+            writeString(out, p.getName());
+            out.writeInt(p.getHp());
+            out.writeInt(p.getAttack());
+            out.writeInt(texts.size());
+            for (int textId : texts.keySet()) writeString(out, TextPool.text(textId));
+            out.writeInt(items.size());
+            for (Item item : items.keySet()) writeString(out, ItemCatalog.format(item));
+            out.writeInt(rooms.size());
+            for (Room room : rooms) {
+                writeString(out, room.getName());
+                out.writeInt(texts.get(room.getDescriptionId()));
+            }
+            out.writeInt(index.get(s.getCurrent()));
+            for (Room room : rooms) {
+                out.writeInt(room.getNeighbors().size());
+                for (Map.Entry<String, Room> e : room.getNeighbors().entrySet()) {
+                    writeString(out, e.getKey());
+                    out.writeInt(index.get(e.getValue()));
+                }
+                out.writeInt(room.getItems().size());
+                for (Item item : room.getItems()) out.writeInt(items.get(item));
+                Monster m = room.getMonster();
+                out.writeBoolean(m != null);
+                if (m != null) {
+                    writeString(out, m.getName());
+                    out.writeInt(m.getLevel());
+                    out.writeInt(m.getHp());
+                }
+                Door d = room.getDoor();
+                out.writeBoolean(d != null);
+                if (d != null) {
+                    writeString(out, d.getName());
+                    out.writeBoolean(d.isLocked());
+                    out.writeBoolean(d.isOpened());
+                }
+            }
+            out.writeInt(s.getLootTables().size());
+            for (Map.Entry<String, LootTable> e : s.getLootTables().entrySet()) {
+                LootTable table = e.getValue();
+                writeString(out, e.getKey());
+                out.writeInt(table.rolls());
+                out.writeInt(table.size());
+                for (int i = 0; i < table.size(); i++) {
+                    out.writeInt(table.item(i) == null ? -1 : items.get(table.item(i)));
+                    out.writeDouble(table.weight(i));
+                }
+            }
+        }
+        Files.move(tmp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Читает мир из двоичного кэша, отображённого в память
+    private static void readCache(Path cache, GameState s) throws IOException {
+        MappedByteBuffer in;
+        try (FileChannel ch = FileChannel.open(cache, StandardOpenOption.READ)) {
+            in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        if (in.getInt() != MAGIC || in.getInt() != VERSION) throw new IOException("неизвестный формат кэша");
+        Player player = new Player(readString(in), in.getInt(), in.getInt());
+        int[] texts = new int[in.getInt()];
+        for (int i = 0; i < texts.length; i++) texts[i] = TextPool.intern(readString(in));
+        Item[] items = new Item[in.getInt()];
+        for (int i = 0; i < items.length; i++) items[i] = ItemCatalog.parse(readString(in));
+        Room[] rooms = new Room[in.getInt()];
+        Map<String, Room> byName = new LinkedHashMap<>(rooms.length * 4 / 3 + 1);
+        for (int i = 0; i < rooms.length; i++) {
+            rooms[i] = new Room(readString(in), texts[in.getInt()]);
+            byName.put(rooms[i].getName(), rooms[i]);
+        }
+        Room current = rooms[in.getInt()];
+        for (Room room : rooms) {
+            for (int n = in.getInt(); n > 0; n--) room.getNeighbors().put(readString(in), rooms[in.getInt()]);
+            for (int n = in.getInt(); n > 0; n--) room.getItems().add(items[in.getInt()]);
+            if (in.get() != 0) room.setMonster(new Monster(readString(in), in.getInt(), in.getInt()));
+            if (in.get() != 0) {
+                Door door = new Door(readString(in));
+                door.setLocked(in.get() != 0);
+                door.setOpened(in.get() != 0);
+                room.setDoor(door);
+            }
+        }
+        Map<String, LootTable> loot = new HashMap<>();
+        for (int t = in.getInt(); t > 0; t--) {
+            String monster = readString(in);
+            int rolls = in.getInt();
+            int n = in.getInt();
+            List<Item> entries = new ArrayList<>(n);
+            List<Double> weights = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                int item = in.getInt();
+                entries.add(item < 0 ? null : items[item]);
+                weights.add(in.getDouble());
+            }
+            loot.put(monster, new LootTable(entries, weights, rolls));
+        }
+        apply(s, player, byName, current, loot);
+    }
+
+    // Подменяет мир в состоянии игры целиком
+    private static void apply(GameState s, Player player, Map<String, Room> rooms, Room current, Map<String, LootTable> loot) {
+        s.setPlayer(player);
+        s.setLootTables(loot);
+        s.setRooms(rooms);
+        s.setCurrent(current);
+        s.getHistory().clear();
+    }
+
+    // Путь к кэшу: каталог рядом с файлом мира, имя — хеш содержимого
+    private static Path cachePath(Path file) {
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), MessageDigest.getInstance("SHA-256"))) {
+            byte[] buf = new byte[1 << 16];
+            while (in.read(buf) >= 0) {
+                // читаем файл ради хеша
+            }
+            byte[] digest = ((DigestInputStream) in).getMessageDigest().digest();
+            return file.toAbsolutePath().resolveSibling(CACHE_DIR).resolve(HexFormat.of().formatHex(digest, 0, 16) + ".bin");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать мир " + file, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Возвращает объявленную комнату или сообщает об ошибке
+    private static Room room(Map<String, Room> rooms, String name, String where) {
+        Room room = rooms.get(name);
+        if (room == null) throw new WorldFormatException(where + "комната не объявлена: " + name);
+        return room;
+    }
+
+    // Проверяет количество полей в строке
+    private static void need(String[] f, int count, String where) {
+        if (f.length != count) {
+            throw new WorldFormatException(where + "ожидается полей: " + count + ", найдено: " + f.length);
+        }
+    }
+
+    // Разбирает число с сообщением об ошибке
+    private static int number(String s, String where) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new WorldFormatException(where + "ожидается число: " + s);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] b = new byte[in.getInt()];
+        in.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    // Приватный конструктор: класс содержит только статические методы
+    private WorldLoader() {
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.dungeon.core;
+
+import com.example.dungeon.model.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Горячая перезагрузка статического содержимого мира (команда reload-world).
+ * Новый мир строится в фоновом потоке в отдельные объекты; старый мир при этом не меняется
+ * и продолжает обслуживать команды (копирование при записи). Готовый мир публикуется между
+ * командами: комнаты и таблицы лута общего мира (World) заменяются один раз, состояние дверей
+ * и ожидающие запирания переносятся по названию комнаты, и все сессии в памяти сразу переходят
+ * на новую версию (bind): текущая комната находится по названию, игрок с инвентарём и HP остаётся
+ * прежним. Поэтому общей паузы нет, а стоимость публикации зависит от числа дверей и сессий
+ * в памяти, но не от размера мира.
+ */
+public class WorldReloader {
+    // Поток сборки нового мира (демон, чтобы не мешать завершению игры)
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "world-reload");
+        t.setDaemon(true);
+        return t;
+    });
+    // Собираемый мир (null — сборки нет); трогает только поток команд
+    private CompletableFuture<Build> building;
+    // Опубликованный мир (null — мир не перезагружался)
+    private volatile Build published;
+    // Метрики
+    private volatile long reloads;
+    private volatile long lastSwapNanos;
+
+    /**
+     * Запускает сборку мира из файла в фоновом потоке.
+     * @param file файл мира
+     * @return false, если предыдущая сборка ещё не опубликована
+     */
+    public boolean reloadAsync(Path file) {
+        if (building != null) return false;
+        long version = published == null ? 1 : published.version() + 1;
+        building = CompletableFuture.supplyAsync(() -> build(file, version), builder);
+        return true;
+    }
+
+    /**
+     * Публикует собранный мир, если сборка завершилась, и переводит на него сессию.
+     * Остальные сессии в памяти вызывающий переводит сразу после публикации (bind).
+     * Вызывается потоком команд между командами, когда мир не меняется.
+     * @param s состояние сессии, выполняющей следующую команду
+     * @return сообщение для игрока или null, если публиковать нечего
+     */
+    public String install(GameState s) {
+        if (building == null || !building.isDone()) return bind(s);
+        CompletableFuture<Build> done = building;
+        building = null;
+        Build w;
+        try {
+            w = done.join();
+        } catch (CompletionException e) {
+            return "Перезагрузка мира не удалась: " + e.getCause().getMessage();
+        }
+        long start = System.nanoTime();
+        World world = s.getWorld();
+        // Открытые и отпертые двери остаются такими же в новом мире и запрутся в тот же ход
+        for (Room room : w.doorRooms()) {
+            Room old = s.getRoom(room.getName());
+            Door before = old == null ? null : old.getDoor();
+            if (before != null && before.getName().equals(room.getDoor().getName())) {
+                room.getDoor().setLocked(before.isLocked());
+                room.getDoor().setOpened(before.isOpened());
+                room.getDoor().takeRelock(before, world, room);
+            }
+        }
+        // Комнаты общего мира заменяются один раз для всех сессий
+        world.setLootTables(w.loot());
+        world.setRooms(w.rooms());
+        published = w;
+        lastSwapNanos = System.nanoTime() - start;
+        reloads++;
+        String moved = bind(s);
+        return String.format("Мир перезагружен из %s: комнат %d, сборка %d мс, публикация %d мкс%s",
+                w.file(), w.rooms().size(), w.buildMillis(), lastSwapNanos / 1000, moved == null ? "" : "\n" + moved);
+    }
+
+    /**
+     * Переводит сессию на опубликованный мир, если она ещё в старом (см. relocate).
+     * Вызывается потоком команд между командами; стоимость не зависит от размера мира.
+     * @param s состояние сессии
+     * @return сообщение, если игрок перенесён в другую комнату, иначе null
+     */
+    public String bind(GameState s) {
+        Build w = published;
+        if (w == null || s.getWorldVersion() == w.version()) return null;
+        s.setWorldVersion(w.version());
+        return relocate(s, w.start());
+    }
+
+    /**
+     * Переводит сессию в текущий набор комнат общего мира (после перезагрузки мира или загрузки
+     * сохранения): текущая комната ищется по названию (если её больше нет — запасная комната),
+     * история ходов очищается, потому что её дельты ссылаются на объекты прежних комнат.
+     * @param s состояние сессии
+     * @param fallback комната, куда попадает игрок, если его комнаты больше нет
+     * @return сообщение, если игрок перенесён в другую комнату, иначе null
+     */
+    public static String relocate(GameState s, Room fallback) {
+        s.getHistory().clear();
+        Room here = s.getRoom(s.getCurrent().getName());
+        s.setCurrent(here != null ? here : fallback);
+        return here != null ? null : "Комнаты больше нет, вы перенесены в: " + fallback.getName();
+    }
+
+    /**
+     * Дожидается окончания начатой сборки мира (повтор журнала публикует мир там же, где при записи).
+     * Вызывается потоком команд.
+     */
+    public void await() {
+        if (building == null) return;
+        try {
+            building.join();
+        } catch (CompletionException e) {
+            // ошибку сборки сообщит install
+        }
+    }
+
+    /**
+     * Возвращает версию опубликованного мира.
+     * @return версия (0 — мир не перезагружался)
+     */
+    public long version() {
+        Build w = published;
+        return w == null ? 0 : w.version();
+    }
+
+    /**
+     * Возвращает файл опубликованного мира.
+     * @return файл или null, если мир не перезагружался
+     */
+    public Path file() {
+        Build w = published;
+        return w == null ? null : w.file();
+    }
+
+    /**
+     * Возвращает сводку о перезагрузках мира.
+     * @return строка с метриками
+     */
+    public String stats() {
+        Build w = published;
+        return "Перезагрузок мира: " + reloads + (w == null ? "" : ", версия " + w.version() + ", сборка "
+                + w.buildMillis() + " мс, публикация " + lastSwapNanos / 1000 + " мкс")
+                + (building != null ? ", идёт сборка" : "");
+    }
+
+    // Собирает мир из файла в отдельное состояние, которое никто больше не видит
+    private static Build build(Path file, long version) {
+        long start = System.nanoTime();
+        GameState fresh = new GameState();
+        WorldLoader.load(file, fresh);
+        List<Room> doorRooms = new ArrayList<>();
+        for (Room room : fresh.getRooms().values()) {
+            if (room.getDoor() != null) doorRooms.add(room);
+        }
+        return new Build(version, file, fresh.getRooms(), fresh.getLootTables(), fresh.getCurrent(),
+                doorRooms, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Версия содержимого мира: комнаты нового мира, таблицы лута, стартовая комната и комнаты с дверями.
+     */
+    private record Build(long version, Path file, Map<String, Room> rooms, Map<String, LootTable> loot, Room start,
+                         List<Room> doorRooms, long buildMillis) {
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.dungeon.core;
+
+import com.example.dungeon.model.GameState;
+import com.example.dungeon.model.Player;
+import com.example.dungeon.model.Room;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Мир, разделённый на региональные шарды.
+ * Комнаты делятся на регионы по порядку обхода в ширину (соседние комнаты почти всегда попадают
+ * в один регион), и каждым регионом владеет один рабочий поток: сообщение для комнаты выполняет
+ * поток её шарда, а переход игрока через границу регионов — передача (handoff): сообщение прибытия
+ * с игроком и его инвентарём отправляется шарду целевой комнаты, и дальше игроком владеет он.
+ * Шарды не требуют блокировок и работают параллельно (см. ShardBench).
+ * Игра выполняет команды по одной (Game.execute): история, таймеры и симуляция монстров общие
+ * для мира, поэтому потоки шардов ей ничего бы не дали. В игре шарды только учитывают нагрузку
+ * регионов (record), а рабочие потоки не запускаются.
+ * Для каждого шарда видны игроки в нём, команды в секунду, передачи и длина очереди.
+ */
+public class WorldShards {
+    // Шарды
+    private final Shard[] shards;
+    // Регион каждой комнаты и набор комнат, по которому он построен
+    private volatile Map<Room, Integer> region = new IdentityHashMap<>();
+    private Map<String, Room> indexedRooms;
+    private long indexedVersion = -1;
+    // Шард, которому сейчас принадлежит каждый игрок
+    private final Map<Player, Integer> residence = new ConcurrentHashMap<>();
+    // Момент прошлого вывода метрик (для команд в секунду)
+    private long lastStatsNanos = System.nanoTime();
+
+    /**
+     * Создаёт шарды; рабочие потоки (демоны) запускаются при первом сообщении шарду.
+     * @param count количество шардов
+     */
+    public WorldShards(int count) {
+        shards = new Shard[Math.max(1, count)];
+        for (int i = 0; i < shards.length; i++) shards[i] = new Shard(i);
+    }
+
+    /**
+     * Возвращает количество шардов.
+     * @return количество шардов
+     */
+    public int size() {
+        return shards.length;
+    }
+
+    /**
+     * Делит комнаты мира на регионы, если набор комнат изменился с прошлого раза.
+     * Вызывается потоком команд между командами.
+     * @param s состояние игры
+     */
+    public void assign(GameState s) {
+        if (indexedRooms == s.getRooms() && indexedVersion == s.getRoomsVersion()) return;
+        assign(s.getRooms().values(), s.getCurrent());
+        indexedRooms = s.getRooms();
+        indexedVersion = s.getRoomsVersion();
+    }
+
+    /**
+     * Делит комнаты на регионы поровну по порядку обхода в ширину, начиная со стартовой комнаты
+     * (комнаты, недостижимые из неё, обходятся следом от первой необойдённой).
+     * @param rooms все комнаты мира
+     * @param start стартовая комната (может быть null)
+     */
+    public void assign(Collection<Room> rooms, Room start) {
+        Map<Room, Integer> order = new IdentityHashMap<>(rooms.size() * 2);
+        ArrayDeque<Room> queue = new ArrayDeque<>();
+        Iterator<Room> rest = rooms.iterator();
+        Room next = start;
+        while (next != null || rest.hasNext()) {
+            Room root = next != null ? next : rest.next();
+            next = null;
+            if (order.containsKey(root)) continue;
+            order.put(root, order.size());
+            queue.add(root);
+            while (!queue.isEmpty()) {
+                for (Room n : queue.poll().getNeighbors().values()) {
+                    if (n != null && !order.containsKey(n)) {
+                        order.put(n, order.size());
+                        queue.add(n);
+                    }
+                }
+            }
+        }
+        long total = order.size();
+        order.replaceAll((room, index) -> (int) ((long) index * shards.length / Math.max(1, total)));
+        region = order;
+    }
+
+    /**
+     * Возвращает номер шарда комнаты.
+     * @param room комната
+     * @return номер шарда (комнаты вне разбиения — по хешу)
+     */
+    public int shardOf(Room room) {
+        Integer r = region.get(room);
+        return r != null ? r : Math.floorMod(System.identityHashCode(room), shards.length);
+    }
+
+    /**
+     * Отправляет сообщение шарду комнаты, не дожидаясь результата.
+     * @param room комната
+     * @param message сообщение
+     */
+    public void tell(Room room, Runnable message) {
+        shards[shardOf(room)].execute(message);
+    }
+
+    /**
+     * Учитывает команду, выполненную игроком в комнате без участия рабочих потоков (игра):
+     * команда засчитывается шарду комнаты, а если игрок перешёл в другой регион — и передача.
+     * @param player игрок
+     * @param room комната игрока после команды
+     */
+    public void record(Player player, Room room) {
+        int target = shardOf(room);
+        shards[target].commands.incrementAndGet();
+        moved(player, target);
+    }
+
+    /**
+     * Передаёт игрока в комнату асинхронно: прибытие выполняется шардом целевой комнаты,
+     * отправитель не ждёт. Так игроки переходят между шардами без участия общего потока.
+     * @param player игрок
+     * @param to целевая комната
+     * @param arrive сообщение прибытия
+     */
+    public void handoffAsync(Player player, Room to, Runnable arrive) {
+        int target = shardOf(to);
+        moved(player, target);
+        shards[target].execute(arrive);
+    }
+
+    // Переносит игрока в шард и считает передачу, если шард сменился
+    private void moved(Player player, int target) {
+        Integer source = residence.put(player, target);
+        if (source != null && source != target) {
+            shards[source].handoffsOut.incrementAndGet();
+            shards[target].handoffsIn.incrementAndGet();
+        }
+    }
+
+    /**
+     * Отмечает, в каком шарде находится игрок (при входе в игру, после загрузки или отмены ходов).
+     * @param player игрок
+     * @param room текущая комната игрока
+     */
+    public void locate(Player player, Room room) {
+        residence.put(player, shardOf(room));
+    }
+
+    /**
+     * Убирает игрока из учёта шардов (игрок вышел).
+     * @param player игрок
+     */
+    public void leave(Player player) {
+        residence.remove(player);
+    }
+
+    /**
+     * Возвращает нагрузку шардов: игроки, команды в секунду с прошлого вызова, передачи, очередь.
+     * @return строка с метриками
+     */
+    public synchronized String stats() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-9, (now - lastStatsNanos) / 1e9);
+        lastStatsNanos = now;
+        int[] players = new int[shards.length];
+        for (Integer r : residence.values()) players[r]++;
+        StringBuilder sb = new StringBuilder("Шардов: " + shards.length + ", комнат в разбиении: " + region.size());
+        for (Shard s : shards) {
+            long commands = s.commands.get();
+            sb.append(String.format("%n  шард %d: игроков %d, команд %d (%.1f/с), передач: пришло %d, ушло %d, в очереди %d",
+                    s.id, players[s.id], commands, (commands - s.reportedCommands) / seconds,
+                    s.handoffsIn.get(), s.handoffsOut.get(), s.queue.size()));
+            s.reportedCommands = commands;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Останавливает рабочие потоки шардов после выполнения уже отправленных сообщений.
+     */
+    public void shutdown() {
+        for (Shard s : shards) s.executor.shutdown();
+    }
+
+    /**
+     * Шард: один рабочий поток с очередью сообщений и метриками.
+     */
+    private static final class Shard {
+        private final int id;
+        private final LinkedBlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+        private final ThreadPoolExecutor executor;
+        // Выполненные сообщения и передачи игроков
+        private final AtomicLong commands = new AtomicLong();
+        private final AtomicLong handoffsIn = new AtomicLong();
+        private final AtomicLong handoffsOut = new AtomicLong();
+        // Команд на момент прошлого вывода метрик
+        private long reportedCommands;
+
+        Shard(int id) {
+            this.id = id;
+            this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, queue, r -> {
+                Thread t = new Thread(r, "shard-" + id);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        // Ставит сообщение в очередь шарда
+        void execute(Runnable message) {
+            executor.execute(() -> {
+                commands.incrementAndGet();
+                message.run();
+            });
+        }
+    }
+}
@@ -3,14 +3,18 @@ package com.example.dungeon.model;
 /**
  * Класс, представляющий дверь в игре.
  * Определяет состояние двери (заперта/закрыта/открыта) и возможность прохода через неё.
+ * Состояние хранится вне кучи, в строке столбцов RoomColumns.
  */
 public class Door {
+    // Через сколько ходов отпертая дверь снова запирается (0 — не запирается)
+    public static final int RELOCK_TURNS = Integer.getInteger("dungeon.door.relock", 10);
+
     // Название двери
     private String name;
-    // Состояние замка: true - заперта, false - не заперта
-    private boolean locked;
-    // Состояние двери: true - открыта, false - закрыта
-    private boolean opened;
+    // Строка двери в столбцах RoomColumns (биты «заперта» и «открыта»)
+    private final int slot;
+    // Таймер повторного запирания на колесе мира (null — не запланирован)
+    private TimerWheel.Timer relock;
 
     /**
      * Конструктор двери.
@@ -19,8 +23,8 @@ public class Door {
      */
     public Door(String name) {
         this.name = name;
-        this.locked = true; // Дверь изначально заперта
-        this.opened = false; // Дверь изначально закрыта
+        // Дверь изначально заперта и закрыта
+        this.slot = RoomColumns.door(this, true, false);
     }
 
     /**
@@ -36,7 +40,7 @@ public class Door {
      * @return true, если дверь заперта, иначе false
      */
     public boolean isLocked() {
-        return locked;
+        return RoomColumns.locked(slot);
     }
 
     /**
@@ -44,7 +48,7 @@ public class Door {
      * @param locked true - заперта, false - не заперта
      */
     public void setLocked(boolean locked) {
-        this.locked = locked;
+        RoomColumns.setDoor(slot, locked, isOpened());
     }
 
     /**
@@ -52,7 +56,7 @@ public class Door {
      * @return true, если дверь открыта, иначе false
      */
     public boolean isOpened() {
-        return opened;
+        return RoomColumns.opened(slot);
     }
 
     /**
@@ -60,7 +64,51 @@ public class Door {
      * @param opened true - открыта, false - закрыта
      */
     public void setOpened(boolean opened) {
-        this.opened = opened;
+        RoomColumns.setDoor(slot, isLocked(), opened);
+    }
+
+    /**
+     * Отпирает и открывает дверь и планирует её повторное запирание через RELOCK_TURNS ходов мира.
+     * Таймер стоит на колесе мира, поэтому следующее отпирание любой сессией отменяет его,
+     * а запирание не входит в историю сессии, которая отперла дверь.
+     * @param ctx состояние игры
+     * @param room комната с дверью
+     */
+    public void unlock(GameState ctx, Room room) {
+        ctx.getHistory().doorChanged(room, this);
+        RoomColumns.setDoor(slot, false, true);
+        ctx.touch(room);
+        ctx.getEvents().publish(ctx, EventRing.Type.DOOR_OPENED, room.getName(), name);
+        World world = ctx.getWorld();
+        world.getTimers().cancel(relock);
+        relock = null;
+        if (RELOCK_TURNS > 0) scheduleRelock(world, room, world.getTimers().now() + RELOCK_TURNS);
+    }
+
+    /**
+     * Переносит на эту дверь ожидающее запирание двери прежнего мира (перезагрузка мира):
+     * таймер старой двери отменяется, а эта дверь запрётся в тот же ход.
+     * @param old дверь прежнего мира
+     * @param world мир
+     * @param room комната этой двери
+     */
+    public void takeRelock(Door old, World world, Room room) {
+        TimerWheel.Timer pending = old.relock;
+        if (pending == null || !world.getTimers().cancel(pending)) return;
+        old.relock = null;
+        scheduleRelock(world, room, pending.deadline());
+    }
+
+    // Планирует повторное запирание на заданный ход мира
+    private void scheduleRelock(World world, Room room, long deadline) {
+        relock = world.getTimers().scheduleAt(deadline, () -> {
+            relock = null;
+            // Комнаты уже нет в мире (загружено сохранение) — запирать нечего
+            if (isLocked() || !world.contains(room)) return;
+            RoomColumns.setDoor(slot, true, false);
+            world.touch(room);
+            System.out.println("Дверь снова заперлась: " + name);
+        });
     }
 
     /**
@@ -68,6 +116,6 @@ public class Door {
      * @return true, если дверь открыта и не заперта, иначе false
      */
     public boolean canPass() {
-        return opened && !locked;
+        return isOpened() && !isLocked();
     }
 }
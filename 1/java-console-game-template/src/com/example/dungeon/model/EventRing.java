@@ -0,0 +1,269 @@
+package com.example.dungeon.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Кольцевой буфер доменных событий в духе Disruptor: один производитель, несколько потребителей.
+ * Ячейки событий выделяются один раз при создании буфера и переиспользуются, поэтому публикация
+ * события — это захват номера, запись полей ячейки и упорядоченная запись курсора, без блокировок
+ * и без выделения памяти. Каждый потребитель (EventSink) читает события в своём потоке и отмечает
+ * обработанный номер; производитель ждёт только тогда, когда обгоняет самого медленного
+ * потребителя на целый круг буфера.
+ *
+ * Буфер один на игру: в него публикуют события все сессии, а событие помнит свою сессию.
+ * Публикует события поток команд (команды выполняются по одной), поэтому
+ * захват номера не требует атомарных операций. Ожидающие потоки не крутятся вхолостую:
+ * после короткого ожидания они засыпают на время до миллисекунды.
+ */
+public final class EventRing {
+
+    /**
+     * Тип доменного события.
+     */
+    public enum Type {
+        /** Команда выполнена успешно (subject — название команды). */
+        COMMAND,
+        /** Игрок вошёл в комнату (room). */
+        ROOM_ENTERED,
+        /** Игрок взял предмет (subject) в комнате (room). */
+        ITEM_TAKEN,
+        /** Игрок убил монстра (subject) в комнате (room). */
+        MONSTER_KILLED,
+        /** Дверь (subject) в комнате (room) открыта. */
+        DOOR_OPENED,
+        /** Игрок погиб в комнате (room) от монстра (subject). */
+        PLAYER_DIED
+    }
+
+    /**
+     * Ячейка буфера с событием. Поля заполняет производитель перед публикацией,
+     * потребители только читают их.
+     */
+    public static final class Event {
+        private GameState session;
+        private Type type;
+        private String room;
+        private String subject;
+        private long time;
+
+        /**
+         * Возвращает сессию, в которой произошло событие.
+         * @return состояние сессии или null
+         */
+        public GameState session() {
+            return session;
+        }
+
+        /**
+         * Возвращает тип события.
+         * @return тип события
+         */
+        public Type type() {
+            return type;
+        }
+
+        /**
+         * Возвращает название комнаты события.
+         * @return название комнаты или null
+         */
+        public String room() {
+            return room;
+        }
+
+        /**
+         * Возвращает предмет события (название предмета, монстра, двери или команды).
+         * @return название или null
+         */
+        public String subject() {
+            return subject;
+        }
+
+        /**
+         * Возвращает момент публикации события.
+         * @return время в миллисекундах от начала эпохи
+         */
+        public long time() {
+            return time;
+        }
+    }
+
+    // Ячейки буфера и маска номера (размер — степень двойки)
+    private final Event[] slots;
+    private final int mask;
+    // Номер последнего опубликованного события
+    private final AtomicLong cursor = new AtomicLong(-1);
+    // Следующий номер для захвата (только производитель)
+    private long next;
+    // Известный производителю наименьший обработанный номер среди потребителей
+    private long gate = -1;
+    // Потребители
+    private final List<Consumer> consumers = new ArrayList<>();
+    private volatile boolean running;
+    // Сколько раз производитель ждал медленного потребителя
+    private long producerWaits;
+
+    /**
+     * Создаёт буфер с ячейками под заданное число событий.
+     * @param capacity вместимость (округляется вверх до степени двойки)
+     */
+    public EventRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        slots = new Event[size];
+        for (int i = 0; i < size; i++) slots[i] = new Event();
+        mask = size - 1;
+    }
+
+    /**
+     * Добавляет потребителя; вызывается до start.
+     * @param name название потребителя (для имени потока и метрик)
+     * @param sink потребитель
+     */
+    public void addSink(String name, EventSink sink) {
+        if (running) throw new IllegalStateException("Потребители добавляются до запуска буфера");
+        consumers.add(new Consumer(name, sink));
+    }
+
+    /**
+     * Запускает потоки потребителей (демоны).
+     */
+    public void start() {
+        if (running) return;
+        running = true;
+        for (Consumer c : consumers) {
+            c.thread = new Thread(c, "events-" + c.name);
+            c.thread.setDaemon(true);
+            c.thread.start();
+        }
+    }
+
+    /**
+     * Публикует событие. Вызывается только производителем.
+     * @param session сессия, в которой произошло событие (может быть null)
+     * @param type тип события
+     * @param room название комнаты (может быть null)
+     * @param subject предмет события (может быть null)
+     */
+    public void publish(GameState session, Type type, String room, String subject) {
+        long seq = next;
+        long wrap = seq - slots.length;
+        if (wrap > gate) {
+            // Ячейку ещё читает отстающий потребитель — ждём его (буфер полон)
+            gate = minProcessed();
+            while (wrap > gate) {
+                producerWaits++;
+                LockSupport.parkNanos(100_000);
+                gate = minProcessed();
+            }
+        }
+        Event e = slots[(int) seq & mask];
+        e.session = session;
+        e.type = type;
+        e.room = room;
+        e.subject = subject;
+        e.time = System.currentTimeMillis();
+        next = seq + 1;
+        cursor.lazySet(seq); // упорядоченная запись: поля ячейки видны раньше курсора
+    }
+
+    /**
+     * Ждёт, пока все потребители обработают уже опубликованные события.
+     * Вызывается производителем, когда ему нужен их результат (например, счёт перед сохранением).
+     */
+    public void awaitProcessed() {
+        long target = cursor.get();
+        for (int idle = 0; running && minProcessed() < target; idle++) {
+            idle(idle);
+        }
+    }
+
+    /**
+     * Дожидается обработки опубликованных событий, останавливает потребителей и закрывает их.
+     */
+    public void shutdown() {
+        if (!running) return;
+        awaitProcessed();
+        running = false;
+        for (Consumer c : consumers) {
+            try {
+                c.thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Возвращает сводку метрик буфера: опубликовано, отставание потребителей, ожидания производителя.
+     * @return строка с метриками
+     */
+    public String stats() {
+        long published = cursor.get() + 1;
+        StringBuilder sb = new StringBuilder("Событий опубликовано: " + published + ", ячеек: " + slots.length
+                + ", ожиданий производителя: " + producerWaits);
+        for (Consumer c : consumers) {
+            sb.append("\n  ").append(c.name).append(": обработано ").append(c.sequence.get() + 1)
+                    .append(", отставание ").append(published - 1 - c.sequence.get())
+                    .append(", ошибок ").append(c.errors);
+        }
+        return sb.toString();
+    }
+
+    // Наименьший обработанный номер среди потребителей (без потребителей — ждать некого)
+    private long minProcessed() {
+        long min = Long.MAX_VALUE;
+        for (Consumer c : consumers) min = Math.min(min, c.sequence.get());
+        return min;
+    }
+
+    // Ожидание без холостого кручения: сначала уступаем процессор, затем спим всё дольше (до 1 мс)
+    private static void idle(int round) {
+        if (round < 100) Thread.onSpinWait();
+        else if (round < 200) Thread.yield();
+        else LockSupport.parkNanos(Math.min(1_000_000L, 1_000L * (round - 199)));
+    }
+
+    /**
+     * Поток потребителя: читает опубликованные события пачками и отмечает обработанный номер.
+     */
+    private final class Consumer implements Runnable {
+        private final String name;
+        private final EventSink sink;
+        // Номер последнего обработанного события
+        private final AtomicLong sequence = new AtomicLong(-1);
+        private volatile long errors;
+        private Thread thread;
+
+        Consumer(String name, EventSink sink) {
+            this.name = name;
+            this.sink = sink;
+        }
+
+        @Override
+        public void run() {
+            long nextSeq = 0;
+            int round = 0;
+            while (true) {
+                long available = cursor.get();
+                if (available < nextSeq) {
+                    if (!running) break;
+                    idle(round++);
+                    continue;
+                }
+                round = 0;
+                for (long s = nextSeq; s <= available; s++) {
+                    try {
+                        sink.onEvent(slots[(int) s & mask], s, s == available);
+                    } catch (RuntimeException e) {
+                        errors++; // ошибка одного события не останавливает потребителя
+                    }
+                }
+                sequence.lazySet(available);
+                nextSeq = available + 1;
+            }
+            sink.close();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.dungeon.model;
+
+/**
+ * Потребитель доменных событий из кольцевого буфера EventRing.
+ * Каждый потребитель работает в своём потоке и получает события по порядку, пачками:
+ * признак конца пачки позволяет, например, сбрасывать буфер журнала один раз на пачку.
+ */
+public interface EventSink {
+
+    /**
+     * Обрабатывает событие. Ячейка события переиспользуется буфером, поэтому
+     * ссылку на неё нельзя хранить после возврата из метода.
+     * @param event событие
+     * @param sequence номер события
+     * @param endOfBatch последнее ли это событие из доступных сейчас
+     */
+    void onEvent(EventRing.Event event, long sequence, boolean endOfBatch);
+
+    /**
+     * Освобождает ресурсы потребителя; вызывается после обработки последнего события.
+     */
+    default void close() {
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.dungeon.model;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * Класс, представляющий состояние игры.
@@ -11,10 +13,31 @@ public class GameState {
     private Player player;
     // Текущая комната, в которой находится игрок
     private Room current;
-    // Счёт игрока
-    private int score;
-    // Карта всех комнат в игровом мире, где ключ - название комнаты
-    private Map<String, Room> rooms = new HashMap<>();
+    // Счёт игрока (начисляет потребитель событий в своём потоке, читает поток команд)
+    private final AtomicInteger score = new AtomicInteger();
+    // Мир: комнаты, таблицы лута, изменённые комнаты, индекс (общий для сессий одной игры)
+    private World world = new World();
+    // Версия содержимого мира, на которой работает сессия (0 — мир не перезагружался)
+    private long worldVersion;
+    // Номер последнего снимка состояния сессии
+    private long snapshotVersion;
+    // История ходов для undo/rewind (ограниченный кольцевой буфер дельт)
+    private final History history = new History(4096);
+    // Колесо таймеров сессии, тик которого — её ход (регенерация); таймеры мира — в World
+    private final TimerWheel timers = new TimerWheel();
+    // Таблица лута для монстров без своей таблицы: "Зелье опыта" с шансом 50%
+    private static final LootTable DEFAULT_LOOT = LootTable.chance(ItemCatalog.potion("Зелье опыта", 3), 0.5);
+    // Кольцевой буфер доменных событий, общий для сессий одной игры; создаётся при первом обращении
+    // (вместимость задаётся свойством dungeon.events.capacity)
+    private EventRing events;
+    // Игра окончена (игрок погиб или вышел); цикл команд сессии завершается
+    private volatile boolean gameOver;
+    // Источник статистики игроков по имени (хранилище игры); без него статистика ведётся только в этом состоянии
+    private Function<String, PlayerStats> statsSource;
+    private final PlayerStats localStats = new PlayerStats();
+    // Зерно генераторов случайных чисел сессии (свойство dungeon.seed) и сколько генераторов уже выдано
+    private long seed = Long.getLong("dungeon.seed", System.nanoTime());
+    private long draws;
 
     /**
      * Возвращает игрока.
@@ -53,7 +76,7 @@ public class GameState {
      * @return счёт
      */
     public int getScore() {
-        return score;
+        return score.get();
     }
 
     /**
@@ -61,7 +84,135 @@ public class GameState {
      * @param d количество очков для добавления
      */
     public void addScore(int d) {
-        this.score += d;
+        score.addAndGet(d);
+    }
+
+    /**
+     * Проверяет, окончена ли игра.
+     * @return true, если игрок погиб или вышел
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Завершает игру сессии (вместо завершения всей JVM, в которой могут играть и другие).
+     */
+    public void endGame() {
+        this.gameOver = true;
+    }
+
+    /**
+     * Возвращает историю ходов.
+     * @return история ходов
+     */
+    public History getHistory() {
+        return history;
+    }
+
+    /**
+     * Возвращает колесо таймеров ходов сессии.
+     * @return колесо таймеров
+     */
+    public TimerWheel getTimers() {
+        return timers;
+    }
+
+    /**
+     * Возвращает кольцевой буфер доменных событий (общий с сессиями, подключёнными через shareWorld).
+     * Публикует события только поток команд.
+     * @return буфер событий
+     */
+    public EventRing getEvents() {
+        if (events == null) events = new EventRing(Integer.getInteger("dungeon.events.capacity", 1024));
+        return events;
+    }
+
+    /**
+     * Возвращает статистику текущего игрока за всё время.
+     * @return статистика игрока
+     */
+    public PlayerStats getStats() {
+        return statsSource == null ? localStats : statsSource.apply(player.getName());
+    }
+
+    /**
+     * Задаёт источник статистики игроков (например, общее хранилище с файлом статистики).
+     * @param statsSource статистика по имени игрока
+     */
+    public void setStatsSource(Function<String, PlayerStats> statsSource) {
+        this.statsSource = statsSource;
+    }
+
+    /**
+     * Возвращает следующий генератор случайных чисел сессии (например, для одного броска лута).
+     * Генератор определяется зерном и номером выдачи, поэтому состояние случайности сессии —
+     * два числа, которые можно сохранить, ничего не вытягивая из последовательности.
+     * Используется только потоком, выполняющим команды сессии.
+     * @return генератор случайных чисел
+     */
+    public SplittableRandom getRandom() {
+        // Шаг зерна тот же, что у SplittableRandom между соседними генераторами
+        return new SplittableRandom(seed + draws++ * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * Задаёт зерно генераторов случайных чисел сессии (для воспроизводимых прогонов).
+     * @param seed зерно
+     */
+    public void setSeed(long seed) {
+        setRandomState(seed, 0);
+    }
+
+    /**
+     * Восстанавливает состояние случайности сессии (например, при пробуждении из файла).
+     * @param seed зерно
+     * @param draws сколько генераторов уже выдано
+     */
+    public void setRandomState(long seed, long draws) {
+        this.seed = seed;
+        this.draws = draws;
+    }
+
+    /**
+     * Возвращает зерно генераторов случайных чисел сессии.
+     * @return зерно
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Возвращает, сколько генераторов случайных чисел уже выдано.
+     * @return число выдач
+     */
+    public long getDraws() {
+        return draws;
+    }
+
+    /**
+     * Возвращает таблицу лута для монстра.
+     * @param monsterName название монстра
+     * @return таблица лута монстра или таблица по умолчанию
+     */
+    public LootTable lootTable(String monsterName) {
+        return world.getLootTables().getOrDefault(monsterName, DEFAULT_LOOT);
+    }
+
+    /**
+     * Возвращает таблицы лута по названию монстра.
+     * @return таблицы лута
+     */
+    public Map<String, LootTable> getLootTables() {
+        return world.getLootTables();
+    }
+
+    /**
+     * Устанавливает таблицы лута.
+     * @param lootTables таблицы лута по названию монстра
+     */
+    public void setLootTables(Map<String, LootTable> lootTables) {
+        world.setLootTables(lootTables);
     }
 
     /**
@@ -69,15 +220,22 @@ public class GameState {
      * @return карта комнат
      */
     public Map<String, Room> getRooms() {
-        return rooms;
+        return world.getRooms();
     }
 
     /**
-     * Устанавливает карту комнат.
+     * Устанавливает карту комнат (для всех сессий, разделяющих мир).
      * @param rooms карта комнат
      */
     public void setRooms(Map<String, Room> rooms) {
-        this.rooms = rooms;
+        world.setRooms(rooms);
+    }
+
+    /**
+     * Удаляет все комнаты (например, перед загрузкой сохранения).
+     */
+    public void clearRooms() {
+        world.clearRooms();
     }
 
     /**
@@ -86,7 +244,53 @@ public class GameState {
      * @param room объект Room
      */
     public void addRoom(String name, Room room) {
-        this.rooms.put(name, room);
+        world.addRoom(name, room);
+    }
+
+    /**
+     * Возвращает мир сессии.
+     * @return мир
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Подключает новую сессию к миру другой сессии: мир (комнаты, таблицы лута, изменённые комнаты,
+     * последний снимок комнат, индекс), буфер событий и источник статистики становятся общими,
+     * а игрок, история и таймеры остаются своими.
+     * @param other состояние сессии, мир которой используется
+     */
+    public void shareWorld(GameState other) {
+        this.world = other.world;
+        this.worldVersion = other.worldVersion;
+        this.statsSource = other.statsSource;
+        this.events = other.getEvents();
+    }
+
+    /**
+     * Возвращает версию набора комнат (меняется, когда комнаты заменяются, очищаются или добавляются).
+     * Позволяет индексам мира понять, что их нужно построить заново.
+     * @return версия набора комнат
+     */
+    public long getRoomsVersion() {
+        return world.getRoomsVersion();
+    }
+
+    /**
+     * Возвращает версию содержимого мира, на которую переведена сессия (растёт при reload-world).
+     * @return версия содержимого мира
+     */
+    public long getWorldVersion() {
+        return worldVersion;
+    }
+
+    /**
+     * Устанавливает версию содержимого мира сессии.
+     * @param worldVersion версия содержимого мира
+     */
+    public void setWorldVersion(long worldVersion) {
+        this.worldVersion = worldVersion;
     }
 
     /**
@@ -95,6 +299,39 @@ public class GameState {
      * @return объект Room или null, если комната не найдена
      */
     public Room getRoom(String name) {
-        return this.rooms.get(name);
+        return world.getRooms().get(name);
+    }
+
+    /**
+     * Отмечает комнату как изменённую, чтобы следующий снимок её пересобрал.
+     * Вызывается после команд, которые меняют предметы, монстра или дверь комнаты.
+     * @param room изменённая комната
+     */
+    public void touch(Room room) {
+        world.touch(room);
+    }
+
+    /**
+     * Возвращает обратный индекс мира.
+     * Индекс строится при первом запросе и после каждой замены набора комнат (загрузка мира
+     * или сохранения), а дальше обновляется по одной комнате в touch.
+     * @return индекс мира
+     */
+    public WorldIndex getIndex() {
+        return world.getIndex();
+    }
+
+    /**
+     * Снимает неизменяемый снимок состояния.
+     * Снимки неизменённых комнат берутся из предыдущего снимка мира (его могла снять и другая сессия),
+     * поэтому стоимость пропорциональна числу комнат, изменённых с прошлого раза, а не размеру мира.
+     * Вызывается между командами, когда мир не меняется; перед снимком дожидается, пока потребители
+     * обработают опубликованные события, чтобы счёт в снимке был полным.
+     * @return снимок состояния
+     */
+    public StateSnapshot snapshot() {
+        getEvents().awaitProcessed();
+        return new StateSnapshot(++snapshotVersion, player.getName(), player.getHp(), player.getAttack(),
+                List.copyOf(player.getInventory()), current.getName(), score.get(), world.snapshotRooms());
     }
 }
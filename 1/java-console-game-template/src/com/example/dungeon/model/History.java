@@ -0,0 +1,344 @@
+package com.example.dungeon.model;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * История ходов для команд undo и rewind.
+ * Каждая команда записывает небольшие обратимые изменения (дельты): предмет перемещён, HP изменено,
+ * дверь отперта, игрок сменил комнату. Дельты хранятся в кольцевом буфере фиксированного размера
+ * из параллельных массивов, поэтому память на историю ограничена и не зависит от размера мира.
+ * При переполнении вытесняется самый старый ход целиком.
+ * Мир общий, поэтому перед отменой ход проверяется целиком: предметы должны быть там, куда их
+ * положил ход, комнаты — ещё в мире, а в комнате убитого монстра — никого, и сам он ещё не возродился. Если хоть одна дельта
+ * больше не применима, ход не отменяется и остаётся в истории (значения HP, атаки и флаги двери
+ * восстанавливаются всегда).
+ */
+public class History {
+    // Виды дельт
+    private static final byte TURN = 0;           // начало хода
+    private static final byte ROOM_CHANGED = 1;   // target - прежняя комната
+    private static final byte HP = 2;             // target - сущность, arg - прежнее HP
+    private static final byte ATTACK = 3;         // target - игрок, arg - прежняя атака
+    private static final byte ITEM_TAKEN = 4;     // target - комната, ref - предмет, arg - позиция в комнате
+    private static final byte ITEM_CONSUMED = 5;  // ref - предмет, arg - позиция в инвентаре
+    private static final byte ITEM_DROPPED = 6;   // target - комната, ref - предмет
+    private static final byte MONSTER = 7;        // target - комната, ref - прежний монстр
+    private static final byte DOOR = 8;           // target - дверь, ref - комната, arg - прежние флаги
+
+    // Колонки кольцевого буфера
+    private final byte[] kind;
+    private final int[] arg;
+    private final Object[] target;
+    private final Object[] ref;
+    // Индекс следующей записи и количество записей в буфере
+    private int head;
+    private int size;
+    // Количество ходов (маркеров TURN) в буфере
+    private int turns;
+    // Текущий ход не поместился в буфер и не может быть отменён
+    private boolean overflow;
+
+    /**
+     * Конструктор истории.
+     * @param capacity максимальное количество дельт
+     */
+    public History(int capacity) {
+        this.kind = new byte[capacity];
+        this.arg = new int[capacity];
+        this.target = new Object[capacity];
+        this.ref = new Object[capacity];
+    }
+
+    /**
+     * Отмечает начало нового хода.
+     */
+    public void beginTurn() {
+        overflow = false;
+        push(TURN, 0, null, null);
+    }
+
+    /**
+     * Игрок перешёл из комнаты.
+     * @param previous прежняя комната
+     */
+    public void roomChanged(Room previous) {
+        push(ROOM_CHANGED, 0, previous, null);
+    }
+
+    /**
+     * Изменилось здоровье сущности.
+     * @param entity сущность
+     * @param previousHp прежнее здоровье
+     */
+    public void hpChanged(Entity entity, int previousHp) {
+        push(HP, previousHp, entity, null);
+    }
+
+    /**
+     * Изменилась атака игрока.
+     * @param player игрок
+     * @param previousAttack прежняя атака
+     */
+    public void attackChanged(Player player, int previousAttack) {
+        push(ATTACK, previousAttack, player, null);
+    }
+
+    /**
+     * Предмет перенесён из комнаты в инвентарь.
+     * @param room комната
+     * @param item предмет
+     * @param index позиция предмета в комнате
+     */
+    public void itemTaken(Room room, Item item, int index) {
+        push(ITEM_TAKEN, index, room, item);
+    }
+
+    /**
+     * Предмет израсходован и убран из инвентаря.
+     * @param item предмет
+     * @param index позиция предмета в инвентаре
+     */
+    public void itemConsumed(Item item, int index) {
+        push(ITEM_CONSUMED, index, null, item);
+    }
+
+    /**
+     * В комнате появился предмет (например, лут).
+     * @param room комната
+     * @param item предмет
+     */
+    public void itemDropped(Room room, Item item) {
+        push(ITEM_DROPPED, 0, room, item);
+    }
+
+    /**
+     * В комнате сменился монстр.
+     * @param room комната
+     * @param previous прежний монстр (может быть null)
+     */
+    public void monsterChanged(Room room, Monster previous) {
+        push(MONSTER, 0, room, previous);
+    }
+
+    /**
+     * Изменилось состояние двери.
+     * @param room комната с дверью
+     * @param door дверь
+     */
+    public void doorChanged(Room room, Door door) {
+        push(DOOR, (door.isLocked() ? 2 : 0) | (door.isOpened() ? 1 : 0), door, room);
+    }
+
+    /**
+     * Отменяет последние ходы, которые что-то изменили (пустые ходы пропускаются).
+     * @param ctx состояние игры
+     * @param n сколько ходов отменить
+     * @return сколько ходов отменено
+     */
+    public int undo(GameState ctx, int n) {
+        int undone = 0;
+        while (undone < n && turns > 0 && applicable(ctx)) {
+            if (revertTurn(ctx)) undone++;
+        }
+        return undone;
+    }
+
+    /**
+     * Откатывает мир на заданное количество ходов назад, считая все ходы, включая пустые.
+     * @param ctx состояние игры
+     * @param n на сколько ходов откатиться
+     * @return на сколько ходов удалось откатиться
+     */
+    public int rewind(GameState ctx, int n) {
+        int rewound = 0;
+        while (rewound < n && turns > 0 && applicable(ctx)) {
+            revertTurn(ctx);
+            rewound++;
+        }
+        return rewound;
+    }
+
+    /**
+     * Возвращает количество ходов, которые можно отменить.
+     * @return количество ходов в истории
+     */
+    public int turns() {
+        return turns;
+    }
+
+    /**
+     * Очищает историю (например, после загрузки сохранения).
+     */
+    public void clear() {
+        for (int i = 0; i < kind.length; i++) {
+            target[i] = null;
+            ref[i] = null;
+        }
+        head = 0;
+        size = 0;
+        turns = 0;
+        overflow = false;
+    }
+
+    // Добавляет дельту; при переполнении вытесняет самый старый ход целиком
+    private void push(byte k, int a, Object t, Object r) {
+        if (overflow) return;
+        if (size == kind.length) {
+            if (turns <= 1) {
+                // В буфере только текущий ход, и он не помещается: отменить его будет нельзя
+                clear();
+                overflow = true;
+                return;
+            }
+            evictOldestTurn();
+        }
+        kind[head] = k;
+        arg[head] = a;
+        target[head] = t;
+        ref[head] = r;
+        head = (head + 1) % kind.length;
+        size++;
+        if (k == TURN) turns++;
+    }
+
+    // Удаляет самый старый ход: маркер и все дельты до следующего маркера
+    private void evictOldestTurn() {
+        int tail = (head - size + kind.length) % kind.length;
+        do {
+            if (kind[tail] == TURN) turns--;
+            target[tail] = null;
+            ref[tail] = null;
+            tail = (tail + 1) % kind.length;
+            size--;
+        } while (size > 0 && kind[tail] != TURN);
+    }
+
+    // Проверяет, что все дельты последнего хода ещё применимы, ничего не меняя; иначе сообщает почему
+    private boolean applicable(GameState ctx) {
+        String problem = check(ctx);
+        if (problem != null) System.out.println("Ход нельзя отменить: " + problem);
+        return problem == null;
+    }
+
+    // Проходит дельты последнего хода в порядке отмены и возвращает первую неприменимую (null — все применимы)
+    private String check(GameState ctx) {
+        List<Item> inventory = ctx.getPlayer().getInventory();
+        // Сколько экземпляров предмета добавят (+) или заберут (-) уже проверенные дельты хода, по спискам предметов
+        Map<List<Item>, Map<Item, Integer>> moved = new IdentityHashMap<>();
+        for (int i = 0, at = head; i < size; i++) {
+            at = (at - 1 + kind.length) % kind.length;
+            byte k = kind[at];
+            if (k == TURN) break;
+            Object t = target[at];
+            Object r = ref[at];
+            switch (k) {
+                case ROOM_CHANGED -> {
+                    if (!inWorld(ctx, (Room) t)) return "комнаты «" + ((Room) t).getName() + "» больше нет";
+                }
+                case ITEM_TAKEN -> {
+                    if (!inWorld(ctx, (Room) t)) return "комнаты «" + ((Room) t).getName() + "» больше нет";
+                    if (!take(moved, inventory, (Item) r)) return "предмета «" + ((Item) r).getName() + "» нет в инвентаре";
+                    put(moved, ((Room) t).getItems(), (Item) r);
+                }
+                case ITEM_CONSUMED -> put(moved, inventory, (Item) r);
+                case ITEM_DROPPED -> {
+                    Room room = (Room) t;
+                    if (!inWorld(ctx, room)) return "комнаты «" + room.getName() + "» больше нет";
+                    if (!take(moved, room.getItems(), (Item) r)) {
+                        return "предмета «" + ((Item) r).getName() + "» уже нет в комнате «" + room.getName() + "»";
+                    }
+                }
+                case MONSTER -> {
+                    Room room = (Room) t;
+                    if (!inWorld(ctx, room)) return "комнаты «" + room.getName() + "» больше нет";
+                    if (room.getMonster() != null) return "в комнату «" + room.getName() + "» пришёл монстр " + room.getMonster().getName();
+                    if (r != null && ((Monster) r).getHp() > 0) return "монстр " + ((Monster) r).getName() + " уже возродился";
+                }
+                case DOOR -> {
+                    if (!inWorld(ctx, (Room) r)) return "комнаты «" + ((Room) r).getName() + "» больше нет";
+                }
+                default -> {
+                    // HP и атака восстанавливаются всегда
+                }
+            }
+        }
+        return null;
+    }
+
+    // Комната всё ещё в мире (после загрузки сохранения другой сессией или перезагрузки мира её может не быть)
+    private static boolean inWorld(GameState ctx, Room room) {
+        return ctx.getWorld().contains(room);
+    }
+
+    // Забирает экземпляр предмета из списка с учётом уже проверенных дельт; false, если его там нет
+    private static boolean take(Map<List<Item>, Map<Item, Integer>> moved, List<Item> list, Item item) {
+        Map<Item, Integer> counts = moved.computeIfAbsent(list, l -> new IdentityHashMap<>());
+        int delta = counts.getOrDefault(item, 0);
+        if (Collections.frequency(list, item) + delta <= 0) return false;
+        counts.put(item, delta - 1);
+        return true;
+    }
+
+    // Добавляет экземпляр предмета в список с учётом уже проверенных дельт
+    private static void put(Map<List<Item>, Map<Item, Integer>> moved, List<Item> list, Item item) {
+        moved.computeIfAbsent(list, l -> new IdentityHashMap<>()).merge(item, 1, Integer::sum);
+    }
+
+    // Отменяет дельты последнего хода до его маркера; возвращает true, если ход что-то менял
+    private boolean revertTurn(GameState ctx) {
+        boolean changed = false;
+        while (size > 0) {
+            head = (head - 1 + kind.length) % kind.length;
+            size--;
+            byte k = kind[head];
+            Object t = target[head];
+            Object r = ref[head];
+            target[head] = null;
+            ref[head] = null;
+            if (k == TURN) {
+                turns--;
+                break;
+            }
+            revert(ctx, k, arg[head], t, r);
+            changed = true;
+        }
+        return changed;
+    }
+
+    // Применяет обратное действие для одной дельты
+    private static void revert(GameState ctx, byte k, int a, Object t, Object r) {
+        List<Item> inventory = ctx.getPlayer().getInventory();
+        switch (k) {
+            case ROOM_CHANGED -> ctx.setCurrent((Room) t);
+            case HP -> ((Entity) t).setHp(a);
+            case ATTACK -> ((Player) t).setAttack(a);
+            case ITEM_TAKEN -> {
+                Room room = (Room) t;
+                inventory.remove(inventory.lastIndexOf(r));
+                room.getItems().add(Math.min(a, room.getItems().size()), (Item) r);
+                ctx.touch(room);
+            }
+            case ITEM_CONSUMED -> inventory.add(Math.min(a, inventory.size()), (Item) r);
+            case ITEM_DROPPED -> {
+                Room room = (Room) t;
+                room.getItems().remove(room.getItems().lastIndexOf(r));
+                ctx.touch(room);
+            }
+            case MONSTER -> {
+                Room room = (Room) t;
+                room.setMonster((Monster) r);
+                ctx.touch(room);
+            }
+            case DOOR -> {
+                Door door = (Door) t;
+                door.setLocked((a & 2) != 0);
+                door.setOpened((a & 1) != 0);
+                ctx.touch((Room) r);
+            }
+            default -> throw new IllegalStateException("Неизвестная дельта: " + k);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.dungeon.model;
 
+import java.util.List;
+
 /**
  * Абстрактный класс, представляющий предмет в игре.
  * Определяет базовые свойства и методы для всех предметов.
@@ -7,6 +9,8 @@ package com.example.dungeon.model;
 public abstract class Item {
     // Название предмета
     private final String name;
+    // Id определения в каталоге предметов (-1, если предмет создан вне каталога)
+    private int id = -1;
 
     /**
      * Конструктор предмета.
@@ -24,10 +28,38 @@ public abstract class Item {
         return name;
     }
 
+    /**
+     * Возвращает id предмета в каталоге.
+     * @return id предмета или -1, если предмет создан вне каталога
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Устанавливает id предмета; вызывается только каталогом при регистрации.
+     * @param id id предмета
+     */
+    void setId(int id) {
+        this.id = id;
+    }
+
     /**
      * Абстрактный метод применения предмета.
      * Реализуется в каждом конкретном типе предмета.
      * @param ctx состояние игры, в котором применяется предмет
      */
     public abstract void apply(GameState ctx);
+
+    /**
+     * Убирает израсходованный предмет из инвентаря игрока и записывает это в историю ходов.
+     * @param ctx состояние игры
+     */
+    protected void consume(GameState ctx) {
+        List<Item> inventory = ctx.getPlayer().getInventory();
+        int index = inventory.indexOf(this);
+        if (index < 0) return;
+        inventory.remove(index);
+        ctx.getHistory().itemConsumed(this, index);
+    }
 }
@@ -0,0 +1,209 @@
+package com.example.dungeon.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Каталог определений предметов.
+ * Предметы неизменяемы, поэтому каждое определение (тип, название, значение) существует в одном экземпляре
+ * с компактным числовым id, а комнаты и инвентари хранят ссылки на общие экземпляры (flyweight).
+ * Каталог также переводит предметы в строковый вид для сохранения и обратно без потери значений.
+ */
+public final class ItemCatalog {
+    // Определения по id
+    private static final List<Item> byId = new ArrayList<>();
+    // Определения по полному ключу "Тип:название:значение"
+    private static final Map<String, Item> byKey = new HashMap<>();
+    // Первое определение по ключу "Тип:название" (для старых сохранений без значений)
+    private static final Map<String, Item> byName = new HashMap<>();
+    // Значения старого формата "Тип:название" (так предметы сохраняла первая версия игры),
+    // если определения с таким названием в каталоге ещё нет
+    private static final int LEGACY_HEAL = 5;
+    private static final int LEGACY_BONUS = 3;
+
+    /**
+     * Возвращает общее зелье с указанными параметрами.
+     * @param name название зелья
+     * @param heal сколько здоровья восстанавливает
+     * @return зелье из каталога
+     */
+    public static synchronized Potion potion(String name, int heal) {
+        return potion(name, heal, 0);
+    }
+
+    /**
+     * Возвращает общее зелье регенерации, которое лечит по частям в течение нескольких ходов.
+     * @param name название зелья
+     * @param heal сколько здоровья восстанавливает всего
+     * @param turns за сколько ходов (0 — сразу)
+     * @return зелье из каталога
+     */
+    public static synchronized Potion potion(String name, int heal, int turns) {
+        String value = turns > 0 ? heal + "/" + turns : String.valueOf(heal);
+        return (Potion) intern("Potion:" + name + ":" + value, () -> new Potion(name, heal, turns));
+    }
+
+    /**
+     * Возвращает общее оружие с указанными параметрами.
+     * @param name название оружия
+     * @param bonus бонус к атаке
+     * @return оружие из каталога
+     */
+    public static synchronized Weapon weapon(String name, int bonus) {
+        return (Weapon) intern("Weapon:" + name + ":" + bonus, () -> new Weapon(name, bonus));
+    }
+
+    /**
+     * Возвращает общий ключ от указанной двери.
+     * @param name название ключа
+     * @param doorName название двери, которую открывает ключ
+     * @return ключ из каталога
+     */
+    public static synchronized Key key(String name, String doorName) {
+        return (Key) intern("Key:" + name + ":" + doorName, () -> new Key(name, doorName));
+    }
+
+    /**
+     * Возвращает предмет по id.
+     * @param id id предмета
+     * @return предмет
+     */
+    public static synchronized Item get(int id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Возвращает количество определений в каталоге.
+     * @return количество определений
+     */
+    public static synchronized int size() {
+        return byId.size();
+    }
+
+    /**
+     * Переводит предмет в строку сохранения "Тип:название:значение".
+     * Значение зелья регенерации записывается как "лечение/ходов".
+     * @param item предмет
+     * @return строковое представление
+     */
+    public static String format(Item item) {
+        String type = item.getClass().getSimpleName();
+        if (item instanceof Potion p) {
+            return type + ":" + p.getName() + ":" + p.getHeal() + (p.getTurns() > 0 ? "/" + p.getTurns() : "");
+        }
+        if (item instanceof Weapon w) return type + ":" + w.getName() + ":" + w.getBonus();
+        if (item instanceof Key k) return type + ":" + k.getName() + ":" + k.getDoorName();
+        return type + ":" + item.getName();
+    }
+
+    /**
+     * Разбирает строку сохранения в предмет из каталога.
+     * Старый формат "Тип:название" без значения принимается везде (файл мира, сохранение, файл
+     * сессии, проверка lint): значение берётся из уже известного определения с тем же названием,
+     * а если его нет — как в первой версии игры: зелье лечит на 5, оружие даёт +3 к атаке. Ключ без
+     * id двери и без известного определения привязать не к чему, и он не распознаётся.
+     * @param token строка вида "Тип:название[:значение]"
+     * @return предмет или null, если формат не распознан или дверь ключа неизвестна
+     */
+    public static synchronized Item parse(String token) {
+        String[] t = token.split(":", 3);
+        if (t.length < 2 || t[1].isEmpty()) return null;
+        if (t.length == 2) {
+            Item known = byName.get(t[0] + ":" + t[1]);
+            if (known != null) return known;
+        }
+        try {
+            return switch (t[0]) {
+                case "Potion" -> potion(t, LEGACY_HEAL);
+                case "Weapon" -> weapon(t[1], t.length == 3 ? Integer.parseInt(t[2]) : LEGACY_BONUS);
+                case "Key" -> {
+                    String door = doorId(t);
+                    yield door != null ? key(t[1], door) : null;
+                }
+                default -> null;
+            };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Возвращает id двери, которую откроет ключ из строки, по тем же правилам, что у parse.
+     * @param token строка ключа "Key:название[:дверь]"
+     * @return id двери или null, если это не ключ или у ключа без id двери нет известного определения
+     */
+    public static synchronized String doorId(String token) {
+        String[] t = token.split(":", 3);
+        if (t.length < 2 || !t[0].equals("Key") || t[1].isEmpty()) return null;
+        return doorId(t);
+    }
+
+    /**
+     * Проверяет строку предмета, не регистрируя его в каталоге (для проверки файлов мира и сохранений).
+     * Правила те же, что у parse: тип Potion, Weapon или Key, непустое название и, если значение
+     * указано, значение нужного вида (строка старого формата без значения допустима).
+     * @param token строка вида "Тип:название[:значение]"
+     * @return описание ошибки или null, если строка корректна
+     */
+    public static String validate(String token) {
+        String[] t = token.split(":", 3);
+        if (t.length < 2 || t[1].isEmpty()) return "ожидается Тип:название:значение";
+        if (!t[0].equals("Potion") && !t[0].equals("Weapon") && !t[0].equals("Key")) return "неизвестный тип предмета: " + t[0];
+        if (t.length == 2) return null;
+        try {
+            switch (t[0]) {
+                case "Potion" -> {
+                    int slash = t[2].indexOf('/');
+                    if (slash < 0) {
+                        Integer.parseInt(t[2]);
+                    } else {
+                        Integer.parseInt(t[2].substring(0, slash));
+                        if (Integer.parseInt(t[2].substring(slash + 1)) <= 0) return "число ходов должно быть положительным: " + t[2];
+                    }
+                }
+                case "Weapon" -> Integer.parseInt(t[2]);
+                default -> {
+                    if (t[2].isEmpty()) return "нет id двери";
+                }
+            }
+        } catch (NumberFormatException e) {
+            return "ожидается число: " + t[2];
+        }
+        return null;
+    }
+
+    // Разбирает зелье: значение "лечение" или "лечение/ходов"
+    private static Potion potion(String[] t, int defaultHeal) {
+        if (t.length < 3) return potion(t[1], defaultHeal);
+        int slash = t[2].indexOf('/');
+        if (slash < 0) return potion(t[1], Integer.parseInt(t[2]));
+        return potion(t[1], Integer.parseInt(t[2].substring(0, slash)), Integer.parseInt(t[2].substring(slash + 1)));
+    }
+
+    // Дверь ключа: из значения или из известного ключа с тем же названием (null — неизвестна)
+    private static String doorId(String[] t) {
+        if (t.length == 3) return t[2];
+        Item known = byName.get("Key:" + t[1]);
+        return known instanceof Key k ? k.getDoorName() : null;
+    }
+
+    // Возвращает существующее определение или регистрирует новое
+    private static Item intern(String key, Supplier<Item> factory) {
+        Item item = byKey.get(key);
+        if (item == null) {
+            item = factory.get();
+            item.setId(byId.size());
+            byId.add(item);
+            byKey.put(key, item);
+            byName.putIfAbsent(item.getClass().getSimpleName() + ":" + item.getName(), item);
+        }
+        return item;
+    }
+
+    // Приватный конструктор: каталог содержит только статические методы
+    private ItemCatalog() {
+    }
+}
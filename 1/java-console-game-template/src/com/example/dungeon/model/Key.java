@@ -2,58 +2,60 @@ package com.example.dungeon.model;
 
 /**
  * Класс, представляющий ключ в игре.
- * При применении открывает соответствующую дверь, если та находится в той же комнате.
+ * Ключ привязан к id двери (её названию, уникальному в мире) и при применении отпирает эту дверь,
+ * если она стоит в текущей или соседней комнате.
+ * Дверь через несколько ходов запирается снова, поэтому ключ не расходуется.
+ * Экземпляры создаются через ItemCatalog и разделяются всеми комнатами и инвентарями.
  */
 public class Key extends Item {
-    // Имя двери, которую можно открыть этим ключом
-    private String doorName;
-
-    /**
-     * Конструктор ключа.
-     * Извлекает имя двери из названия ключа.
-     * @param name название ключа
-     */
-    public Key(String name) {
-        super(name);
-        this.doorName = name.replace("Ключ", "").trim(); // Предполагаем, что имя двери содержится в названии ключа
-    }
+    // Id (название) двери, которую открывает этот ключ
+    private final String doorName;
 
     /**
      * Конструктор ключа с явным указанием двери.
      * @param name название ключа
-     * @param doorName имя двери, которую открывает ключ
+     * @param doorName id (название) двери, которую открывает ключ
      */
-    public Key(String name, String doorName) {
+    Key(String name, String doorName) {
         super(name);
         this.doorName = doorName;
     }
 
     /**
-     * Применяет ключ - открывает дверь в текущей комнате, если ключ подходит.
+     * Применяет ключ - отпирает свою дверь, если она стоит в текущей комнате
+     * или на входе в одну из соседних комнат.
      * @param ctx состояние игры, в котором применяется ключ
      */
     @Override
     public void apply(GameState ctx) {
         Room currentRoom = ctx.getCurrent();
-        
-        // Проверяем, есть ли дверь в комнате
-        if (currentRoom.getDoor() != null && currentRoom.getDoor().isLocked()) {
-            Door door = currentRoom.getDoor();
-            
-            // Проверяем, подходит ли ключ к этой двери
-            if (door.getName().equals(doorName)) {
-                door.setLocked(false);
-                door.setOpened(true);
-                System.out.println("Ключ открыл дверь: " + door.getName());
-                
-                // Удаляем ключ из инвентаря
-                ctx.getPlayer().getInventory().remove(this);
-            } else {
-                System.out.println("Ключ не подходит к этой двери.");
-            }
+        Room doorRoom = null;
+        if (opens(currentRoom.getDoor())) {
+            doorRoom = currentRoom;
         } else {
-            System.out.println("В этой комнате нет двери, которую можно открыть.");
+            for (Room neighbor : currentRoom.getNeighbors().values()) {
+                if (opens(neighbor.getDoor())) {
+                    doorRoom = neighbor;
+                    break;
+                }
+            }
+        }
+        if (doorRoom == null) {
+            System.out.println("Рядом нет запертой двери, которую открывает этот ключ.");
+            return;
         }
+        Door door = doorRoom.getDoor();
+        door.unlock(ctx, doorRoom);
+        System.out.println("Ключ открыл дверь: " + door.getName());
+    }
+
+    /**
+     * Проверяет, отпирает ли ключ дверь: дверь заперта и её id совпадает с id двери ключа.
+     * @param door дверь (может быть null)
+     * @return true, если ключ отпирает дверь
+     */
+    public boolean opens(Door door) {
+        return door != null && door.isLocked() && door.getName().equals(doorName);
     }
 
     /**
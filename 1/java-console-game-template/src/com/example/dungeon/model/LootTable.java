@@ -0,0 +1,168 @@
+package com.example.dungeon.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Таблица выпадения лута для типа монстров.
+ * Каждая запись — предмет (или null, "ничего не выпало") с весом; за одно убийство делается
+ * несколько бросков. Выборка по весам выполняется за O(1) методом псевдонимов (alias method, Vose):
+ * таблица вероятностей и псевдонимов строится один раз, а каждый бросок — это одно случайное
+ * число для выбора столбца и одно для выбора между столбцом и его псевдонимом.
+ */
+public final class LootTable {
+    // Предметы записей (null — ничего не выпало)
+    private final Item[] items;
+    // Исходные веса записей
+    private final double[] weights;
+    // Вероятность остаться в столбце и псевдоним столбца
+    private final double[] prob;
+    private final int[] alias;
+    // Количество бросков за одно убийство
+    private final int rolls;
+
+    /**
+     * Конструктор таблицы.
+     * @param items предметы записей (null — ничего не выпало)
+     * @param weights положительные веса записей
+     * @param rolls количество бросков за одно убийство
+     */
+    public LootTable(List<Item> items, List<Double> weights, int rolls) {
+        int n = items.size();
+        if (n == 0 || n != weights.size()) throw new IllegalArgumentException("Пустая таблица лута или веса не совпадают с записями");
+        if (rolls < 0) throw new IllegalArgumentException("Отрицательное количество бросков: " + rolls);
+        this.items = items.toArray(new Item[0]);
+        this.weights = new double[n];
+        this.prob = new double[n];
+        this.alias = new int[n];
+        this.rolls = rolls;
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            double w = weights.get(i);
+            if (!(w > 0) || Double.isInfinite(w)) throw new IllegalArgumentException("Вес должен быть положительным: " + w);
+            this.weights[i] = w;
+            sum += w;
+        }
+        // Метод Vose: столбцы делятся на "малые" (< 1) и "большие" (>= 1), малые дополняются большими
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int s = 0;
+        int l = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = this.weights[i] * n / sum;
+            if (scaled[i] < 1) small[s++] = i;
+            else large[l++] = i;
+        }
+        while (s > 0 && l > 0) {
+            int less = small[--s];
+            int more = large[--l];
+            prob[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1) small[s++] = more;
+            else large[l++] = more;
+        }
+        // Оставшиеся столбцы заполнены целиком (с точностью до погрешности округления)
+        while (l > 0) {
+            int i = large[--l];
+            prob[i] = 1;
+            alias[i] = i;
+        }
+        while (s > 0) {
+            int i = small[--s];
+            prob[i] = 1;
+            alias[i] = i;
+        }
+    }
+
+    /**
+     * Таблица с одной записью "предмет или ничего" (как прежнее выпадение с шансом).
+     * @param item предмет
+     * @param chance вероятность выпадения от 0 до 1
+     * @return таблица с одним броском
+     */
+    public static LootTable chance(Item item, double chance) {
+        List<Item> items = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        if (chance > 0) {
+            items.add(item);
+            weights.add(chance);
+        }
+        if (chance < 1) {
+            items.add(null);
+            weights.add(1 - chance);
+        }
+        return new LootTable(items, weights, 1);
+    }
+
+    /**
+     * Выбирает номер записи по весам за O(1) без выделения памяти.
+     * @param rnd генератор случайных чисел вызывающего потока или сессии
+     * @return номер записи
+     */
+    public int sample(SplittableRandom rnd) {
+        int i = rnd.nextInt(prob.length);
+        return rnd.nextDouble() < prob[i] ? i : alias[i];
+    }
+
+    /**
+     * Выполняет все броски для одного убийства.
+     * @param rnd генератор случайных чисел
+     * @return выпавшие предметы (может быть пустым)
+     */
+    public List<Item> roll(SplittableRandom rnd) {
+        List<Item> drops = new ArrayList<>(rolls);
+        for (int r = 0; r < rolls; r++) {
+            Item item = items[sample(rnd)];
+            if (item != null) drops.add(item);
+        }
+        return drops;
+    }
+
+    /**
+     * Возвращает предмет записи.
+     * @param index номер записи
+     * @return предмет или null, если запись означает "ничего"
+     */
+    public Item item(int index) {
+        return items[index];
+    }
+
+    /**
+     * Возвращает ожидаемую вероятность записи (вес, делённый на сумму весов).
+     * @param index номер записи
+     * @return вероятность
+     */
+    public double probability(int index) {
+        double sum = 0;
+        for (double w : weights) sum += w;
+        return weights[index] / sum;
+    }
+
+    /**
+     * Возвращает вес записи.
+     * @param index номер записи
+     * @return вес
+     */
+    public double weight(int index) {
+        return weights[index];
+    }
+
+    /**
+     * Возвращает количество записей.
+     * @return количество записей
+     */
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * Возвращает количество бросков за одно убийство.
+     * @return количество бросков
+     */
+    public int rolls() {
+        return rolls;
+    }
+}
@@ -3,10 +3,11 @@ package com.example.dungeon.model;
 /**
  * Класс, представляющий монстра в игре.
  * Наследуется от Entity, добавляя уровень монстра.
+ * Уровень и здоровье хранятся вне кучи, в строке столбцов RoomColumns.
  */
 public class Monster extends Entity {
-    // Уровень монстра, влияет на его силу и здоровье
-    private int level;
+    // Строка монстра в столбцах RoomColumns (уровень, здоровье)
+    private final int slot;
 
     /**
      * Конструктор монстра.
@@ -15,8 +16,8 @@ public class Monster extends Entity {
      * @param hp здоровье монстра
      */
     public Monster(String name, int level, int hp) {
-        super(name, hp);
-        this.level = level;
+        super(name, 0);
+        this.slot = RoomColumns.monster(this, level, hp);
     }
 
     /**
@@ -24,7 +25,7 @@ public class Monster extends Entity {
      * @return уровень монстра
      */
     public int getLevel() {
-        return level;
+        return RoomColumns.level(slot);
     }
 
     /**
@@ -32,6 +33,24 @@ public class Monster extends Entity {
      * @param level уровень монстра
      */
     public void setLevel(int level) {
-        this.level = level;
+        RoomColumns.setLevel(slot, level);
+    }
+
+    /**
+     * Возвращает здоровье монстра.
+     * @return здоровье монстра
+     */
+    @Override
+    public int getHp() {
+        return RoomColumns.hp(slot);
+    }
+
+    /**
+     * Устанавливает здоровье монстра.
+     * @param hp здоровье монстра
+     */
+    @Override
+    public void setHp(int hp) {
+        RoomColumns.setHp(slot, hp);
     }
 }
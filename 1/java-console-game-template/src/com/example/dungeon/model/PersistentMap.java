@@ -0,0 +1,280 @@
+package com.example.dungeon.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Неизменяемая (персистентная) хеш-карта на основе HAMT (hash array mapped trie).
+ * Каждое изменение возвращает новую карту, которая разделяет с исходной все нетронутые узлы,
+ * поэтому новая версия стоит O(log32 n) памяти, а старые версии остаются валидными.
+ * Значения null не допускаются.
+ * @param <K> тип ключа
+ * @param <V> тип значения
+ */
+public final class PersistentMap<K, V> {
+    // Пустая карта (общая для всех типов)
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+    // Корневой узел (null у пустой карты)
+    private final Node root;
+    // Количество пар ключ-значение
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Возвращает пустую карту.
+     * @param <K> тип ключа
+     * @param <V> тип значения
+     * @return пустая карта
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Возвращает значение по ключу.
+     * @param key ключ
+     * @return значение или null, если ключа нет
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        return root == null ? null : (V) root.find(0, hash(key), key);
+    }
+
+    /**
+     * Возвращает карту, в которой ключу сопоставлено значение.
+     * @param key ключ
+     * @param value значение (не null)
+     * @return новая карта (или эта же, если значение не изменилось)
+     */
+    public PersistentMap<K, V> plus(K key, V value) {
+        Objects.requireNonNull(value, "value");
+        boolean[] added = new boolean[1];
+        Node start = root == null ? BitmapNode.EMPTY : root;
+        Node next = start.assoc(0, hash(key), key, value, added);
+        if (next == root) return this;
+        return new PersistentMap<>(next, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Возвращает карту без указанного ключа.
+     * @param key ключ
+     * @return новая карта (или эта же, если ключа не было)
+     */
+    public PersistentMap<K, V> minus(K key) {
+        if (root == null || get(key) == null) return this;
+        return new PersistentMap<>(root.without(0, hash(key), key), size - 1);
+    }
+
+    /**
+     * Возвращает количество пар ключ-значение.
+     * @return размер карты
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Обходит все пары ключ-значение (порядок не определён).
+     * @param action действие для каждой пары
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null) root.forEach((BiConsumer<Object, Object>) action);
+    }
+
+    // Перемешивает биты хеша, чтобы верхние уровни дерева заполнялись равномерно
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    // Возвращает бит узла для данного хеша на данном уровне
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 31);
+    }
+
+    /**
+     * Узел дерева.
+     */
+    private interface Node {
+        Object find(int shift, int hash, Object key);
+
+        Node assoc(int shift, int hash, Object key, Object value, boolean[] added);
+
+        Node without(int shift, int hash, Object key);
+
+        void forEach(BiConsumer<Object, Object> action);
+    }
+
+    /**
+     * Узел с битовой маской: массив пар [ключ, значение] или [null, поддерево].
+     */
+    private static final class BitmapNode implements Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        public Object find(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) return null;
+            int idx = index(bit);
+            Object k = array[2 * idx];
+            Object v = array[2 * idx + 1];
+            if (k == null) return ((Node) v).find(shift + 5, hash, key);
+            return key.equals(k) ? v : null;
+        }
+
+        @Override
+        public Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = bit(hash, shift);
+            int idx = index(bit);
+            if ((bitmap & bit) == 0) {
+                // Свободная ячейка: вставляем пару
+                Object[] next = new Object[array.length + 2];
+                System.arraycopy(array, 0, next, 0, 2 * idx);
+                next[2 * idx] = key;
+                next[2 * idx + 1] = value;
+                System.arraycopy(array, 2 * idx, next, 2 * idx + 2, array.length - 2 * idx);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, next);
+            }
+            Object k = array[2 * idx];
+            Object v = array[2 * idx + 1];
+            if (k == null) {
+                Node child = ((Node) v).assoc(shift + 5, hash, key, value, added);
+                return child == v ? this : new BitmapNode(bitmap, with(array, 2 * idx + 1, child));
+            }
+            if (key.equals(k)) {
+                return v == value ? this : new BitmapNode(bitmap, with(array, 2 * idx + 1, value));
+            }
+            // Коллизия на этом уровне: пара уходит в поддерево
+            added[0] = true;
+            Node child = pair(shift + 5, k, v, hash, key, value);
+            Object[] next = with(array, 2 * idx + 1, child);
+            next[2 * idx] = null;
+            return new BitmapNode(bitmap, next);
+        }
+
+        @Override
+        public Node without(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) return this;
+            int idx = index(bit);
+            Object k = array[2 * idx];
+            Object v = array[2 * idx + 1];
+            if (k == null) {
+                Node child = ((Node) v).without(shift + 5, hash, key);
+                if (child == v) return this;
+                if (child != null) return new BitmapNode(bitmap, with(array, 2 * idx + 1, child));
+            } else if (!key.equals(k)) {
+                return this;
+            }
+            if (bitmap == bit) return null;
+            Object[] next = new Object[array.length - 2];
+            System.arraycopy(array, 0, next, 0, 2 * idx);
+            System.arraycopy(array, 2 * idx + 2, next, 2 * idx, array.length - 2 * idx - 2);
+            return new BitmapNode(bitmap ^ bit, next);
+        }
+
+        @Override
+        public void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) ((Node) array[i + 1]).forEach(action);
+                else action.accept(array[i], array[i + 1]);
+            }
+        }
+
+        // Создаёт поддерево из двух пар
+        private static Node pair(int shift, Object k1, Object v1, int h2, Object k2, Object v2) {
+            int h1 = hash(k1);
+            if (h1 == h2) return new CollisionNode(h1, new Object[]{k1, v1, k2, v2});
+            boolean[] ignored = new boolean[1];
+            return EMPTY.assoc(shift, h1, k1, v1, ignored).assoc(shift, h2, k2, v2, ignored);
+        }
+    }
+
+    /**
+     * Узел для ключей с полностью совпадающим хешем.
+     */
+    private static final class CollisionNode implements Node {
+        final int hash;
+        final Object[] array;
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        public Object find(int shift, int hash, Object key) {
+            int i = indexOf(key);
+            return i < 0 ? null : array[i + 1];
+        }
+
+        @Override
+        public Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                // Другой хеш: оборачиваем узел в узел с маской и вставляем туда
+                return new BitmapNode(bit(this.hash, shift), new Object[]{null, this})
+                        .assoc(shift, hash, key, value, added);
+            }
+            int i = indexOf(key);
+            if (i >= 0) {
+                return array[i + 1] == value ? this : new CollisionNode(hash, with(array, i + 1, value));
+            }
+            Object[] next = Arrays.copyOf(array, array.length + 2);
+            next[array.length] = key;
+            next[array.length + 1] = value;
+            added[0] = true;
+            return new CollisionNode(hash, next);
+        }
+
+        @Override
+        public Node without(int shift, int hash, Object key) {
+            int i = indexOf(key);
+            if (i < 0) return this;
+            if (array.length == 2) return null;
+            Object[] next = new Object[array.length - 2];
+            System.arraycopy(array, 0, next, 0, i);
+            System.arraycopy(array, i + 2, next, i, array.length - i - 2);
+            return new CollisionNode(hash, next);
+        }
+
+        @Override
+        public void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) action.accept(array[i], array[i + 1]);
+        }
+    }
+
+    // Копирует массив с заменой одного элемента
+    private static Object[] with(Object[] array, int i, Object value) {
+        Object[] next = array.clone();
+        next[i] = value;
+        return next;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.dungeon.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Статистика игрока за всё время: команды, урон, использованные предметы, открытые комнаты
+ * и убийства по видам монстров. Счётчики — LongAdder (у каждого потока своя ячейка), поэтому
+ * несколько сессий одного игрока обновляют их без общей блокировки и без борьбы за одну
+ * строку кэша; сумма считается только при чтении (команда stats и сброс в файл).
+ */
+public final class PlayerStats {
+    // Количество выполненных команд
+    private final LongAdder commands = new LongAdder();
+    // Нанесённый и полученный урон
+    private final LongAdder damageDealt = new LongAdder();
+    private final LongAdder damageTaken = new LongAdder();
+    // Использованные предметы
+    private final LongAdder itemsUsed = new LongAdder();
+    // Открытые комнаты (по названию) и их количество
+    private final Set<String> rooms = ConcurrentHashMap.newKeySet();
+    // Открытые комнаты в порядке открытия (дописывается под блокировкой, только при первом входе)
+    private final List<String> discoveryOrder = new ArrayList<>();
+    // Убийства по названию монстра
+    private final Map<String, LongAdder> kills = new ConcurrentHashMap<>();
+
+    /**
+     * Учитывает выполненную команду.
+     */
+    public void command() {
+        commands.increment();
+    }
+
+    /**
+     * Учитывает урон, нанесённый игроком.
+     * @param amount урон
+     */
+    public void dealt(int amount) {
+        damageDealt.add(amount);
+    }
+
+    /**
+     * Учитывает урон, полученный игроком.
+     * @param amount урон
+     */
+    public void taken(int amount) {
+        damageTaken.add(amount);
+    }
+
+    /**
+     * Учитывает использованный предмет.
+     */
+    public void itemUsed() {
+        itemsUsed.increment();
+    }
+
+    /**
+     * Учитывает вход в комнату; считается только первый вход.
+     * @param room название комнаты
+     * @return true, если комната открыта впервые
+     */
+    public boolean discovered(String room) {
+        if (!rooms.add(room)) return false;
+        synchronized (discoveryOrder) {
+            discoveryOrder.add(room);
+        }
+        return true;
+    }
+
+    /**
+     * Возвращает комнаты, открытые после первых from открытий, — чтобы карта учитывала
+     * только новые открытия, не перебирая все открытые комнаты.
+     * @param from сколько открытий уже учтено
+     * @return названия комнат в порядке открытия (копия)
+     */
+    public List<String> discoveredSince(int from) {
+        synchronized (discoveryOrder) {
+            return new ArrayList<>(discoveryOrder.subList(Math.min(from, discoveryOrder.size()), discoveryOrder.size()));
+        }
+    }
+
+    /**
+     * Учитывает убийство монстра.
+     * @param monster название монстра
+     */
+    public void killed(String monster) {
+        kills.computeIfAbsent(monster, m -> new LongAdder()).increment();
+    }
+
+    /**
+     * Возвращает количество выполненных команд.
+     * @return количество команд
+     */
+    public long commands() {
+        return commands.sum();
+    }
+
+    /**
+     * Возвращает нанесённый урон.
+     * @return урон
+     */
+    public long damageDealt() {
+        return damageDealt.sum();
+    }
+
+    /**
+     * Возвращает полученный урон.
+     * @return урон
+     */
+    public long damageTaken() {
+        return damageTaken.sum();
+    }
+
+    /**
+     * Возвращает количество использованных предметов.
+     * @return количество предметов
+     */
+    public long itemsUsed() {
+        return itemsUsed.sum();
+    }
+
+    /**
+     * Возвращает открытые комнаты.
+     * @return названия комнат (живое представление)
+     */
+    public Set<String> rooms() {
+        return rooms;
+    }
+
+    /**
+     * Возвращает убийства по названию монстра, упорядоченные по названию.
+     * @return копия счётчиков убийств
+     */
+    public Map<String, Long> kills() {
+        Map<String, Long> out = new TreeMap<>();
+        kills.forEach((monster, n) -> out.put(monster, n.sum()));
+        return out;
+    }
+
+    /**
+     * Восстанавливает счётчики, прочитанные из файла статистики.
+     * @param commands команды
+     * @param dealt нанесённый урон
+     * @param taken полученный урон
+     * @param used использованные предметы
+     */
+    public void restore(long commands, long dealt, long taken, long used) {
+        this.commands.add(commands);
+        this.damageDealt.add(dealt);
+        this.damageTaken.add(taken);
+        this.itemsUsed.add(used);
+    }
+
+    /**
+     * Восстанавливает убийства монстра, прочитанные из файла статистики.
+     * @param monster название монстра
+     * @param n количество убийств
+     */
+    public void restoreKills(String monster, long n) {
+        kills.computeIfAbsent(monster, m -> new LongAdder()).add(n);
+    }
+
+    /**
+     * Возвращает сумму всех счётчиков; по её изменению видно, что статистику пора сбросить в файл.
+     * @return сумма счётчиков
+     */
+    public long total() {
+        long sum = commands.sum() + damageDealt.sum() + damageTaken.sum() + itemsUsed.sum() + rooms.size();
+        for (LongAdder n : kills.values()) sum += n.sum();
+        return sum;
+    }
+
+    /**
+     * Возвращает статистику в виде для команды stats.
+     * @return строка со статистикой
+     */
+    public String describe() {
+        Map<String, Long> k = kills();
+        return "Команд: " + commands() + ", урона нанесено: " + damageDealt() + ", получено: " + damageTaken()
+                + ", предметов использовано: " + itemsUsed() + ", комнат открыто: " + rooms.size()
+                + "\nУбийства: " + (k.isEmpty() ? "нет" : k.toString().replaceAll("[{}]", ""));
+    }
+}
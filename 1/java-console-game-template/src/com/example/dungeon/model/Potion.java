@@ -2,31 +2,68 @@ package com.example.dungeon.model;
 
 /**
  * Класс, представляющий зелье в игре.
- * При применении восстанавливает здоровье игрока.
+ * При применении восстанавливает здоровье игрока сразу или (зелье регенерации) по частям в течение нескольких ходов.
+ * Экземпляры создаются через ItemCatalog и разделяются всеми комнатами и инвентарями.
  */
 public class Potion extends Item {
     // Количество здоровья, которое восстанавливает зелье
     private final int heal;
+    // За сколько ходов восстанавливается здоровье (0 — сразу)
+    private final int turns;
 
     /**
      * Конструктор зелья.
      * @param name название зелья
      * @param heal количество здоровья, которое восстанавливает зелье
+     * @param turns за сколько ходов восстанавливается здоровье (0 — сразу)
      */
-    public Potion(String name, int heal) {
+    Potion(String name, int heal, int turns) {
         super(name);
         this.heal = heal;
+        this.turns = turns;
+    }
+
+    /**
+     * Возвращает количество восстанавливаемого здоровья.
+     * @return количество здоровья
+     */
+    public int getHeal() {
+        return heal;
+    }
+
+    /**
+     * Возвращает, за сколько ходов восстанавливается здоровье.
+     * @return количество ходов (0 — сразу)
+     */
+    public int getTurns() {
+        return turns;
     }
 
     /**
      * Применяет зелье - восстанавливает здоровье игрока и удаляет зелье из инвентаря.
+     * Зелье регенерации ставит на колесо таймеров ходов по одному таймеру на каждый ход действия.
      * @param ctx состояние игры, в котором применяется зелье
      */
     @Override
     public void apply(GameState ctx) {
         Player p = ctx.getPlayer();
+        if (turns > 0) {
+            for (int t = 1; t <= turns; t++) {
+                // Остаток от деления достаётся первым ходам
+                int part = heal / turns + (t <= heal % turns ? 1 : 0);
+                ctx.getTimers().schedule(t, () -> {
+                    ctx.getHistory().hpChanged(p, p.getHp());
+                    p.setHp(p.getHp() + part);
+                    System.out.println("Регенерация: +" + part + " HP. Текущее HP: " + p.getHp());
+                });
+            }
+            System.out.println("Выпито зелье регенерации: +" + heal + " HP за " + turns + " ход(ов).");
+            consume(ctx);
+            return;
+        }
+        ctx.getHistory().hpChanged(p, p.getHp());
         p.setHp(p.getHp() + heal);
         System.out.println("Выпито зелье: +" + heal + " HP. Текущее HP: " + p.getHp());
-        p.getInventory().remove(this);
+        consume(ctx);
     }
 }
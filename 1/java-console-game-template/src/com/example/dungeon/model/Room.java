@@ -9,8 +9,8 @@ import java.util.*;
 public class Room {
     // Название комнаты
     private final String name;
-    // Описание комнаты, которое видит игрок
-    private final String description;
+    // Id описания комнаты в пуле текстов (одинаковые описания хранятся один раз)
+    private final int description;
     // Карта соседних комнат, где ключ - направление (например, "north", "south")
     private final Map<String, Room> neighbors = new HashMap<>();
     // Список предметов, находящихся в комнате
@@ -27,7 +27,17 @@ public class Room {
      */
     public Room(String name, String description) {
         this.name = name;
-        this.description = description;
+        this.description = TextPool.intern(description);
+    }
+
+    /**
+     * Конструктор комнаты с описанием, уже находящимся в пуле текстов.
+     * @param name название комнаты
+     * @param descriptionId id описания в пуле текстов
+     */
+    public Room(String name, int descriptionId) {
+        this.name = name;
+        this.description = descriptionId;
     }
 
     /**
@@ -43,6 +53,14 @@ public class Room {
      * @return описание комнаты
      */
     public String getDescription() {
+        return TextPool.text(description);
+    }
+
+    /**
+     * Возвращает id описания комнаты в пуле текстов.
+     * @return id описания
+     */
+    public int getDescriptionId() {
         return description;
     }
 
@@ -99,7 +117,8 @@ public class Room {
      * @return строка с описанием комнаты
      */
     public String describe() {
-        StringBuilder sb = new StringBuilder(name + ": " + description);
+        // Описание декодируется из пула только при выводе
+        StringBuilder sb = new StringBuilder(name + ": " + TextPool.text(description));
         if (!items.isEmpty()) {
             sb.append("\nПредметы: ").append(String.join(", ", items.stream().map(Item::getName).toList()));
         }
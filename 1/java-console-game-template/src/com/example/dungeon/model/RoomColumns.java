@@ -0,0 +1,208 @@
+package com.example.dungeon.model;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Числовое состояние комнат вне кучи, по столбцам: уровень и HP монстров, биты дверей
+ * (заперта, открыта). Monster и Door хранят только номер своей строки (слота) и читают
+ * и меняют значения через этот класс, поэтому числа мира лежат в прямой памяти, а не в полях
+ * объектов. Объекты монстров и дверей остаются: по ним история, таймеры и симуляция узнают,
+ * о каком монстре или двери речь, и в них лежат названия.
+ *
+ * Столбцы растут блоками по BLOCK строк; блок — прямой ByteBuffer, внутри которого столбцы
+ * идут подряд. Выделенные блоки не перемещаются, поэтому читать значения можно из любого
+ * потока (как и обычные поля, без синхронизации), а выделение строк синхронизировано.
+ * Строка освобождается, когда сборщик мусора забирает её монстра или дверь (Cleaner),
+ * и достаётся следующему объекту.
+ */
+public final class RoomColumns {
+    // Строк в одном блоке столбцов
+    private static final int BLOCK_BITS = 14;
+    private static final int BLOCK = 1 << BLOCK_BITS;
+    private static final int MASK = BLOCK - 1;
+    // Биты двери
+    private static final byte LOCKED = 1, OPENED = 2;
+    // Монстры: столбец уровней и столбец HP (по 4 байта); двери: столбец битов (1 байт)
+    private static final Columns MONSTERS = new Columns(4, 4);
+    private static final Columns DOORS = new Columns(1);
+
+    /**
+     * Выделяет строку монстра; строка освободится, когда монстр станет недостижим.
+     * @param owner монстр
+     * @param level уровень
+     * @param hp здоровье
+     * @return номер строки
+     */
+    static int monster(Monster owner, int level, int hp) {
+        int slot = MONSTERS.allocate(owner);
+        setLevel(slot, level);
+        setHp(slot, hp);
+        return slot;
+    }
+
+    /**
+     * Возвращает уровень монстра.
+     * @param slot строка монстра
+     * @return уровень
+     */
+    static int level(int slot) {
+        return MONSTERS.block(slot).getInt(MONSTERS.offset(0, slot));
+    }
+
+    /**
+     * Задаёт уровень монстра.
+     * @param slot строка монстра
+     * @param level уровень
+     */
+    static void setLevel(int slot, int level) {
+        MONSTERS.block(slot).putInt(MONSTERS.offset(0, slot), level);
+    }
+
+    /**
+     * Возвращает HP монстра.
+     * @param slot строка монстра
+     * @return здоровье
+     */
+    static int hp(int slot) {
+        return MONSTERS.block(slot).getInt(MONSTERS.offset(1, slot));
+    }
+
+    /**
+     * Задаёт HP монстра.
+     * @param slot строка монстра
+     * @param hp здоровье
+     */
+    static void setHp(int slot, int hp) {
+        MONSTERS.block(slot).putInt(MONSTERS.offset(1, slot), hp);
+    }
+
+    /**
+     * Выделяет строку двери; строка освободится, когда дверь станет недостижима.
+     * @param owner дверь
+     * @param locked заперта
+     * @param opened открыта
+     * @return номер строки
+     */
+    static int door(Door owner, boolean locked, boolean opened) {
+        int slot = DOORS.allocate(owner);
+        setDoor(slot, locked, opened);
+        return slot;
+    }
+
+    /**
+     * Проверяет, заперта ли дверь.
+     * @param slot строка двери
+     * @return true, если заперта
+     */
+    static boolean locked(int slot) {
+        return (DOORS.block(slot).get(DOORS.offset(0, slot)) & LOCKED) != 0;
+    }
+
+    /**
+     * Проверяет, открыта ли дверь.
+     * @param slot строка двери
+     * @return true, если открыта
+     */
+    static boolean opened(int slot) {
+        return (DOORS.block(slot).get(DOORS.offset(0, slot)) & OPENED) != 0;
+    }
+
+    /**
+     * Задаёт состояние двери.
+     * @param slot строка двери
+     * @param locked заперта
+     * @param opened открыта
+     */
+    static void setDoor(int slot, boolean locked, boolean opened) {
+        DOORS.block(slot).put(DOORS.offset(0, slot), (byte) ((locked ? LOCKED : 0) | (opened ? OPENED : 0)));
+    }
+
+    /**
+     * Возвращает занятые строки и память столбцов вне кучи (для heap-report).
+     * @return строка со статистикой
+     */
+    public static String stats() {
+        return String.format("монстров %d, дверей %d; столбцы вне кучи: %d КБ", MONSTERS.used(), DOORS.used(),
+                (MONSTERS.bytes() + DOORS.bytes()) / 1024);
+    }
+
+    /**
+     * Группа столбцов одного вида объектов: блоки прямой памяти и свободные строки.
+     */
+    private static final class Columns {
+        // Ширина каждого столбца в байтах и смещение столбца внутри блока
+        private final int[] width;
+        private final int[] start;
+        private final int blockBytes;
+        // Блоки; массив заменяется целиком при добавлении блока
+        private volatile ByteBuffer[] blocks = new ByteBuffer[0];
+        // Освобождённые строки и число выделенных строк
+        private int[] free = new int[16];
+        private int freeCount;
+        private int next;
+
+        Columns(int... width) {
+            this.width = width;
+            this.start = new int[width.length];
+            int bytes = 0;
+            for (int c = 0; c < width.length; c++) {
+                start[c] = bytes;
+                bytes += width[c] * BLOCK;
+            }
+            this.blockBytes = bytes;
+        }
+
+        // Блок строки
+        ByteBuffer block(int slot) {
+            return blocks[slot >>> BLOCK_BITS];
+        }
+
+        // Смещение значения строки в столбце внутри блока
+        int offset(int column, int slot) {
+            return start[column] + (slot & MASK) * width[column];
+        }
+
+        // Выделяет строку (свободную или новую) и освобождает её вместе с владельцем
+        synchronized int allocate(Object owner) {
+            int slot;
+            if (freeCount > 0) {
+                slot = free[--freeCount];
+            } else {
+                slot = next++;
+                if (slot >>> BLOCK_BITS == blocks.length) {
+                    ByteBuffer[] grown = Arrays.copyOf(blocks, blocks.length + 1);
+                    grown[blocks.length] = ByteBuffer.allocateDirect(blockBytes).order(ByteOrder.nativeOrder());
+                    blocks = grown;
+                }
+            }
+            Reclaim.CLEANER.register(owner, () -> release(slot));
+            return slot;
+        }
+
+        // Возвращает строку в список свободных
+        synchronized void release(int slot) {
+            if (freeCount == free.length) free = Arrays.copyOf(free, free.length * 2);
+            free[freeCount++] = slot;
+        }
+
+        synchronized int used() {
+            return next - freeCount;
+        }
+
+        long bytes() {
+            return (long) blocks.length * blockBytes;
+        }
+    }
+
+    // Поток освобождения строк создаётся при первом монстре или двери
+    private static final class Reclaim {
+        private static final Cleaner CLEANER = Cleaner.create();
+    }
+
+    // Приватный конструктор: класс содержит только статические методы
+    private RoomColumns() {
+    }
+}
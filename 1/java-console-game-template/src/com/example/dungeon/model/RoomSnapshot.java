@@ -0,0 +1,49 @@
+package com.example.dungeon.model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Неизменяемый снимок комнаты.
+ * Снимки неизменённых комнат переиспользуются между версиями состояния игры.
+ * @param name название комнаты
+ * @param descriptionId id описания комнаты в пуле текстов
+ * @param neighbors выходы: направление - название соседней комнаты
+ * @param items предметы в комнате
+ * @param monsterName имя монстра или null, если монстра нет
+ * @param monsterLevel уровень монстра
+ * @param monsterHp здоровье монстра
+ * @param doorName название двери или null, если двери нет
+ * @param doorLocked заперта ли дверь
+ * @param doorOpened открыта ли дверь
+ */
+public record RoomSnapshot(String name, int descriptionId, Map<String, String> neighbors, List<Item> items,
+                           String monsterName, int monsterLevel, int monsterHp,
+                           String doorName, boolean doorLocked, boolean doorOpened) {
+
+    /**
+     * Снимает снимок комнаты.
+     * @param room комната
+     * @return снимок комнаты
+     */
+    public static RoomSnapshot of(Room room) {
+        Map<String, String> exits = new LinkedHashMap<>();
+        room.getNeighbors().forEach((dir, r) -> exits.put(dir, r.getName()));
+        Monster m = room.getMonster();
+        Door d = room.getDoor();
+        return new RoomSnapshot(room.getName(), room.getDescriptionId(), Collections.unmodifiableMap(exits),
+                List.copyOf(room.getItems()),
+                m == null ? null : m.getName(), m == null ? 0 : m.getLevel(), m == null ? 0 : m.getHp(),
+                d == null ? null : d.getName(), d != null && d.isLocked(), d != null && d.isOpened());
+    }
+
+    /**
+     * Возвращает описание комнаты, декодируя его из пула текстов.
+     * @return описание комнаты
+     */
+    public String description() {
+        return TextPool.text(descriptionId);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.dungeon.model;
+
+import java.util.List;
+
+/**
+ * Неизменяемая версия состояния игры.
+ * Комнаты хранятся в персистентной карте, поэтому соседние версии разделяют все неизменённые комнаты,
+ * а память на каждую новую версию пропорциональна числу изменённых комнат.
+ * @param version номер версии
+ * @param playerName имя игрока
+ * @param playerHp здоровье игрока
+ * @param playerAttack сила атаки игрока
+ * @param inventory инвентарь игрока
+ * @param currentRoom название текущей комнаты
+ * @param score счёт игрока
+ * @param rooms снимки всех комнат по названию
+ */
+public record StateSnapshot(long version, String playerName, int playerHp, int playerAttack, List<Item> inventory,
+                            String currentRoom, int score, PersistentMap<String, RoomSnapshot> rooms) {
+}
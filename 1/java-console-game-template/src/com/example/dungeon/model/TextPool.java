@@ -0,0 +1,88 @@
+package com.example.dungeon.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Пул текстов (таблица символов) для описаний комнат.
+ * Каждый уникальный текст хранится один раз в виде массива байт UTF-8 и получает числовой id;
+ * комнаты хранят только id, а строка декодируется, когда описание выводится игроку.
+ * Поиск дубликатов идёт по самим байтам, поэтому пул не удерживает объекты String.
+ */
+public final class TextPool {
+    // Тексты по id в UTF-8
+    private static volatile byte[][] texts = new byte[64][];
+    // Количество текстов в пуле
+    private static int size;
+    // Открытая адресация: id + 1 в ячейке (0 - пусто), размер - степень двойки
+    private static int[] slots = new int[128];
+    // Суммарный размер текстов в байтах
+    private static long bytes;
+
+    /**
+     * Добавляет текст в пул (или находит уже имеющийся) и возвращает его id.
+     * @param text текст
+     * @return id текста
+     */
+    public static synchronized int intern(String text) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        int mask = slots.length - 1;
+        int i = Arrays.hashCode(utf8) & mask;
+        while (slots[i] != 0) {
+            int id = slots[i] - 1;
+            if (Arrays.equals(texts[id], utf8)) return id;
+            i = (i + 1) & mask;
+        }
+        int id = size++;
+        if (id == texts.length) {
+            texts = Arrays.copyOf(texts, id * 2);
+        }
+        texts[id] = utf8;
+        slots[i] = id + 1;
+        bytes += utf8.length;
+        // Держим заполнение таблицы не выше половины
+        if (size * 2 > slots.length) rehash();
+        return id;
+    }
+
+    /**
+     * Декодирует текст по id.
+     * @param id id текста
+     * @return текст
+     */
+    public static String text(int id) {
+        return new String(texts[id], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Возвращает количество уникальных текстов в пуле.
+     * @return количество текстов
+     */
+    public static synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Возвращает суммарный размер текстов в байтах UTF-8.
+     * @return размер в байтах
+     */
+    public static synchronized long byteSize() {
+        return bytes;
+    }
+
+    // Увеличивает таблицу поиска вдвое и переносит id
+    private static void rehash() {
+        int[] next = new int[slots.length * 2];
+        int mask = next.length - 1;
+        for (int id = 0; id < size; id++) {
+            int i = Arrays.hashCode(texts[id]) & mask;
+            while (next[i] != 0) i = (i + 1) & mask;
+            next[i] = id + 1;
+        }
+        slots = next;
+    }
+
+    // Приватный конструктор: пул содержит только статические методы
+    private TextPool() {
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.dungeon.model;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Иерархическое колесо таймеров для отложенных событий мира.
+ * Время измеряется целыми тиками (ходами или квантами реального времени — решает владелец колеса,
+ * продвигая его через advanceTo). Четыре уровня по 64 ячейки покрывают 2^24 тиков; таймеры дальше
+ * этого горизонта ждут на верхнем уровне и переразмещаются при каскаде. Ячейки — двусвязные списки
+ * внутри самих таймеров, поэтому добавление и отмена выполняются за O(1) без поиска, а продвижение
+ * на тик трогает только одну ячейку нижнего уровня (и изредка — ячейку верхнего уровня).
+ * Колесо не потокобезопасно: его продвигает и пополняет один поток (поток команд),
+ * а задачи таймеров выполняются переданным исполнителем.
+ */
+public final class TimerWheel {
+    // Бит на уровень и ячеек на уровне
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    // Горизонт колеса в тиках
+    private static final long SPAN = 1L << (BITS * LEVELS);
+
+    /**
+     * Запланированный таймер. Отменяется через TimerWheel.cancel.
+     */
+    public static final class Timer {
+        // Срок срабатывания в тиках колеса
+        private final long deadline;
+        // Задача таймера
+        private final Runnable task;
+        // Соседи по ячейке и номер ячейки (-1 — таймер не в колесе)
+        private Timer prev;
+        private Timer next;
+        private int bucket = -1;
+
+        private Timer(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        /**
+         * Возвращает срок срабатывания.
+         * @return тик срабатывания
+         */
+        public long deadline() {
+            return deadline;
+        }
+
+        /**
+         * Проверяет, ожидает ли таймер срабатывания.
+         * @return true, если таймер ещё в колесе
+         */
+        public boolean isPending() {
+            return bucket >= 0;
+        }
+    }
+
+    // Головы списков ячеек: уровень * SLOTS + ячейка
+    private final Timer[] buckets = new Timer[LEVELS * SLOTS];
+    // Исполнитель задач таймеров
+    private final Executor executor;
+    // Текущий тик
+    private long now;
+    // Метрики
+    private int pending;
+    private long fired;
+    private long cancelled;
+    private long totalLateness;
+    private long maxLateness;
+
+    /**
+     * Колесо, задачи которого выполняются в потоке, продвигающем колесо.
+     */
+    public TimerWheel() {
+        this(Runnable::run);
+    }
+
+    /**
+     * Колесо с исполнителем задач (например, пулом потоков).
+     * @param executor исполнитель задач таймеров
+     */
+    public TimerWheel(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Планирует задачу через заданное число тиков.
+     * @param delay задержка в тиках (не меньше 1)
+     * @param task задача
+     * @return таймер, который можно отменить
+     */
+    public Timer schedule(long delay, Runnable task) {
+        return scheduleAt(now + Math.max(1, delay), task);
+    }
+
+    /**
+     * Планирует задачу на заданный тик; прошедший срок переносится на следующий тик.
+     * @param deadline тик срабатывания
+     * @param task задача
+     * @return таймер, который можно отменить
+     */
+    public Timer scheduleAt(long deadline, Runnable task) {
+        Timer t = new Timer(Math.max(deadline, now + 1), task);
+        insert(t);
+        pending++;
+        return t;
+    }
+
+    /**
+     * Отменяет таймер за O(1).
+     * @param t таймер (может быть null)
+     * @return true, если таймер ожидал срабатывания и отменён
+     */
+    public boolean cancel(Timer t) {
+        if (t == null || t.bucket < 0) return false;
+        unlink(t);
+        pending--;
+        cancelled++;
+        return true;
+    }
+
+    /**
+     * Продвигает колесо до заданного тика и выполняет все наступившие таймеры.
+     * Если ждущих таймеров нет, время переносится сразу, без прохода по тикам.
+     * @param time новый текущий тик
+     */
+    public void advanceTo(long time) {
+        while (now < time) {
+            if (pending == 0) {
+                now = time;
+                return;
+            }
+            now++;
+            // Каскад сверху вниз: ячейка уровня, чей период начался на этом тике, переразмещается ниже
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((now & ((1L << (BITS * level)) - 1)) == 0) {
+                    cascade(level * SLOTS + (int) ((now >>> (BITS * level)) & MASK));
+                }
+            }
+            int slot = (int) (now & MASK);
+            Timer t;
+            while ((t = buckets[slot]) != null) {
+                unlink(t);
+                if (t.deadline > now) {
+                    insert(t); // срок ещё не наступил (таймер за горизонтом колеса)
+                    continue;
+                }
+                pending--;
+                fired++;
+                long lateness = time - t.deadline;
+                totalLateness += lateness;
+                maxLateness = Math.max(maxLateness, lateness);
+                executor.execute(t.task);
+            }
+        }
+    }
+
+    /**
+     * Продвигает колесо на один тик.
+     */
+    public void tick() {
+        advanceTo(now + 1);
+    }
+
+    /**
+     * Возвращает текущий тик.
+     * @return текущий тик
+     */
+    public long now() {
+        return now;
+    }
+
+    /**
+     * Возвращает количество ожидающих таймеров.
+     * @return количество таймеров
+     */
+    public int pending() {
+        return pending;
+    }
+
+    /**
+     * Возвращает сводку метрик колеса.
+     * Опоздание — на сколько тиков позже срока сработал таймер (колесо продвигается только
+     * вместе с его владельцем, поэтому, например, таймеры реального времени ждут следующей команды).
+     * @return строка с метриками
+     */
+    public String stats() {
+        return "ожидают: " + pending + ", сработали: " + fired + ", отменены: " + cancelled
+                + ", опоздание: в среднем " + String.format("%.2f", fired == 0 ? 0.0 : (double) totalLateness / fired)
+                + ", максимум " + maxLateness + " тиков";
+    }
+
+    // Помещает таймер в ячейку уровня, соответствующего оставшемуся времени
+    private void insert(Timer t) {
+        long delta = t.deadline - now;
+        // Таймеры за горизонтом ставятся в самую дальнюю ячейку и переразмещаются при каскаде
+        long target = delta >= SPAN ? now + SPAN - 1 : t.deadline;
+        int level = 0;
+        while (level < LEVELS - 1 && target - now >= (1L << (BITS * (level + 1)))) level++;
+        int index = level * SLOTS + (int) ((target >>> (BITS * level)) & MASK);
+        t.bucket = index;
+        t.prev = null;
+        t.next = buckets[index];
+        if (t.next != null) t.next.prev = t;
+        buckets[index] = t;
+    }
+
+    // Убирает таймер из его ячейки
+    private void unlink(Timer t) {
+        if (t.prev != null) t.prev.next = t.next;
+        else buckets[t.bucket] = t.next;
+        if (t.next != null) t.next.prev = t.prev;
+        t.prev = null;
+        t.next = null;
+        t.bucket = -1;
+    }
+
+    // Переразмещает все таймеры ячейки верхнего уровня на нижние уровни
+    private void cascade(int index) {
+        Timer t = buckets[index];
+        buckets[index] = null;
+        while (t != null) {
+            Timer next = t.next;
+            t.prev = null;
+            t.next = null;
+            insert(t);
+            t = next;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.dungeon.model;
 /**
  * Класс, представляющий оружие в игре.
  * При применении увеличивает силу атаки игрока.
+ * Экземпляры создаются через ItemCatalog и разделяются всеми комнатами и инвентарями.
  */
 public class Weapon extends Item {
     // Бонус к атаке, который даёт оружие
@@ -13,11 +14,19 @@ public class Weapon extends Item {
      * @param name название оружия
      * @param bonus бонус к атаке, который даёт оружие
      */
-    public Weapon(String name, int bonus) {
+    Weapon(String name, int bonus) {
         super(name);
         this.bonus = bonus;
     }
 
+    /**
+     * Возвращает бонус к атаке.
+     * @return бонус к атаке
+     */
+    public int getBonus() {
+        return bonus;
+    }
+
     /**
      * Применяет оружие - увеличивает силу атаки игрока и удаляет оружие из инвентаря.
      * @param ctx состояние игры, в котором применяется оружие
@@ -25,8 +34,9 @@ public class Weapon extends Item {
     @Override
     public void apply(GameState ctx) {
         var p = ctx.getPlayer();
+        ctx.getHistory().attackChanged(p, p.getAttack());
         p.setAttack(p.getAttack() + bonus);
         System.out.println("Оружие экипировано. Атака теперь: " + p.getAttack());
-        p.getInventory().remove(this);
+        consume(ctx);
     }
 }
@@ -0,0 +1,161 @@
+package com.example.dungeon.model;
+
+import java.util.*;
+
+/**
+ * Общий мир сессий: комнаты, таблицы лута и всё, что по ним считается.
+ * Сессии одной игры ссылаются на один объект World (см. GameState.shareWorld), поэтому
+ * набор изменённых комнат, последний снимок комнат, обратный индекс и версия набора комнат
+ * у них общие: изменение, сделанное одной сессией, попадает в снимок любой другой, а замена
+ * комнат одной сессией сразу видна всем. Здесь же колесо таймеров мира (запирание дверей):
+ * его тик — ход любой сессии, поэтому таймер не зависит от того, кто его поставил и спит ли эта сессия.
+ * Класс не потокобезопасен: мир меняют и читают команды, которые игра выполняет по одной.
+ */
+public final class World {
+    // Карта всех комнат в игровом мире, где ключ - название комнаты
+    private Map<String, Room> rooms = new HashMap<>();
+    // Таблицы лута по названию монстра (из файла мира)
+    private Map<String, LootTable> lootTables = new HashMap<>();
+    // Комнаты, изменённые с момента последнего снимка
+    private final Set<Room> dirty = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Признак того, что набор комнат заменён целиком и снимок нужно построить заново
+    private boolean roomsReplaced = true;
+    // Версия набора комнат: растёт при замене, очистке и добавлении комнат
+    private long roomsVersion;
+    // Обратный индекс мира для запросов find/where/rooms-with и версия набора комнат, по которой он построен
+    private final WorldIndex index = new WorldIndex();
+    private long indexedVersion = -1;
+    // Комнаты последнего снимка (null — снимков ещё не было)
+    private PersistentMap<String, RoomSnapshot> lastRooms;
+    // Колесо таймеров мира, тик которого — ход любой сессии
+    private final TimerWheel timers = new TimerWheel();
+
+    /**
+     * Возвращает карту всех комнат.
+     * @return карта комнат
+     */
+    public Map<String, Room> getRooms() {
+        return rooms;
+    }
+
+    /**
+     * Заменяет набор комнат целиком.
+     * @param rooms карта комнат
+     */
+    public void setRooms(Map<String, Room> rooms) {
+        this.rooms = rooms;
+        this.roomsReplaced = true;
+        this.roomsVersion++;
+    }
+
+    /**
+     * Удаляет все комнаты (например, перед загрузкой сохранения).
+     */
+    public void clearRooms() {
+        this.rooms.clear();
+        this.roomsReplaced = true;
+        this.roomsVersion++;
+    }
+
+    /**
+     * Добавляет комнату в карту комнат.
+     * @param name название комнаты
+     * @param room объект Room
+     */
+    public void addRoom(String name, Room room) {
+        this.rooms.put(name, room);
+        this.dirty.add(room);
+        this.roomsVersion++;
+    }
+
+    /**
+     * Проверяет, что комната всё ещё принадлежит миру (после загрузки сохранения или перезагрузки
+     * мира старые объекты комнат остаются у таймеров и истории, но в мире их уже нет).
+     * @param room комната
+     * @return true, если комната с таким названием в мире — этот же объект
+     */
+    public boolean contains(Room room) {
+        return rooms.get(room.getName()) == room;
+    }
+
+    /**
+     * Возвращает колесо таймеров мира.
+     * @return колесо таймеров
+     */
+    public TimerWheel getTimers() {
+        return timers;
+    }
+
+    /**
+     * Возвращает версию набора комнат (меняется, когда комнаты заменяются, очищаются или добавляются).
+     * @return версия набора комнат
+     */
+    public long getRoomsVersion() {
+        return roomsVersion;
+    }
+
+    /**
+     * Возвращает таблицы лута по названию монстра.
+     * @return таблицы лута
+     */
+    public Map<String, LootTable> getLootTables() {
+        return lootTables;
+    }
+
+    /**
+     * Устанавливает таблицы лута.
+     * @param lootTables таблицы лута по названию монстра
+     */
+    public void setLootTables(Map<String, LootTable> lootTables) {
+        this.lootTables = lootTables;
+    }
+
+    /**
+     * Отмечает комнату как изменённую: следующий снимок любой сессии её пересоберёт,
+     * а построенный индекс обновляется сразу (устаревший перестроится при следующем запросе).
+     * @param room изменённая комната
+     */
+    public void touch(Room room) {
+        // Комната, которой уже нет в мире, в снимок не попадает
+        if (!contains(room)) return;
+        this.dirty.add(room);
+        if (indexedVersion == roomsVersion) index.update(room);
+    }
+
+    /**
+     * Возвращает обратный индекс мира, при необходимости перестроив его по текущему набору комнат.
+     * @return индекс мира
+     */
+    public WorldIndex getIndex() {
+        if (indexedVersion != roomsVersion) {
+            index.rebuild(rooms.values());
+            indexedVersion = roomsVersion;
+        }
+        return index;
+    }
+
+    /**
+     * Снимает неизменяемые снимки комнат.
+     * Снимки неизменённых комнат берутся из предыдущего снимка (какая бы сессия его ни сняла),
+     * поэтому стоимость пропорциональна числу комнат, изменённых с прошлого раза.
+     * @return снимки всех комнат по названию
+     */
+    public PersistentMap<String, RoomSnapshot> snapshotRooms() {
+        PersistentMap<String, RoomSnapshot> snap;
+        if (lastRooms == null || roomsReplaced) {
+            snap = PersistentMap.empty();
+            for (Map.Entry<String, Room> e : rooms.entrySet()) {
+                snap = snap.plus(e.getKey(), RoomSnapshot.of(e.getValue()));
+            }
+        } else {
+            snap = lastRooms;
+            for (Room r : dirty) {
+                snap = snap.plus(r.getName(), RoomSnapshot.of(r));
+            }
+        }
+        dirty.clear();
+        roomsReplaced = false;
+        lastRooms = snap;
+        return snap;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.dungeon.model;
+
+import java.util.*;
+
+/**
+ * Обратный индекс мира: от названия предмета, названия монстра и типа к комнатам.
+ * Для каждой комнаты индекс помнит ключи, под которыми она записана, и при обновлении комнаты
+ * меняет только разницу между старыми и новыми ключами. Поэтому обновление стоит столько,
+ * сколько в комнате предметов, а запрос — столько, сколько комнат он возвращает, независимо
+ * от размера мира. Полная перестройка нужна только при замене набора комнат (загрузка мира или сохранения).
+ * Индекс не потокобезопасен: его обновляет и опрашивает поток команд.
+ */
+public final class WorldIndex {
+    // Виды ключей индекса (префиксы ключей)
+    private static final int ITEM = 0;
+    private static final int MONSTER = 1;
+    private static final int TYPE = 2;
+    private static final String[] PREFIX = {"i:", "m:", "t:"};
+    // Пустой набор ключей
+    private static final String[] NONE = new String[0];
+
+    // Комнаты по ключу (множества по ссылке, как и набор изменённых комнат в GameState)
+    private final Map<String, Set<Room>> postings = new HashMap<>();
+    // Ключи, под которыми комната записана сейчас (комнаты без ключей не хранятся)
+    private final Map<Room, String[]> indexed = new IdentityHashMap<>();
+    // Готовые ключи по виду и названию: одинаковые названия не приводятся к нижнему регистру заново
+    private final List<Map<String, String>> keys = List.of(new HashMap<>(), new HashMap<>(), new HashMap<>());
+
+    /**
+     * Строит индекс заново по всем комнатам мира.
+     * @param rooms комнаты мира
+     */
+    public void rebuild(Collection<Room> rooms) {
+        postings.clear();
+        indexed.clear();
+        for (Room room : rooms) update(room);
+    }
+
+    /**
+     * Переиндексирует комнату после изменения её предметов, монстра или двери.
+     * @param room изменённая комната
+     */
+    public void update(Room room) {
+        String[] now = keysOf(room);
+        String[] was = indexed.getOrDefault(room, NONE);
+        if (Arrays.equals(was, now)) return;
+        for (String key : was) {
+            if (contains(now, key)) continue;
+            Set<Room> set = postings.get(key);
+            set.remove(room);
+            if (set.isEmpty()) postings.remove(key);
+        }
+        for (String key : now) {
+            if (!contains(was, key)) {
+                postings.computeIfAbsent(key, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(room);
+            }
+        }
+        if (now.length == 0) indexed.remove(room);
+        else indexed.put(room, now);
+    }
+
+    /**
+     * Возвращает комнаты, в которых лежит предмет с заданным названием.
+     * @param name название предмета (без учёта регистра)
+     * @return комнаты с предметом (неизменяемое представление)
+     */
+    public Set<Room> withItem(String name) {
+        return lookup(ITEM, name);
+    }
+
+    /**
+     * Возвращает комнаты, в которых находится монстр с заданным названием.
+     * @param name название монстра (без учёта регистра)
+     * @return комнаты с монстром (неизменяемое представление)
+     */
+    public Set<Room> withMonster(String name) {
+        return lookup(MONSTER, name);
+    }
+
+    /**
+     * Возвращает комнаты, в которых есть что-то заданного типа: предмет (potion, weapon, key),
+     * монстр (monster) или дверь (door).
+     * @param type тип (без учёта регистра)
+     * @return комнаты с содержимым этого типа (неизменяемое представление)
+     */
+    public Set<Room> withType(String type) {
+        return lookup(TYPE, type);
+    }
+
+    /**
+     * Возвращает количество различных ключей и проиндексированных комнат.
+     * @return строка со сводкой
+     */
+    public String stats() {
+        return "ключей: " + postings.size() + ", комнат в индексе: " + indexed.size();
+    }
+
+    // Ищет множество комнат по ключу
+    private Set<Room> lookup(int kind, String name) {
+        Set<Room> set = postings.get(key(kind, name));
+        return set == null ? Set.of() : Collections.unmodifiableSet(set);
+    }
+
+    // Собирает различные ключи комнаты: предметы и их типы, монстр, дверь
+    private String[] keysOf(Room room) {
+        List<Item> items = room.getItems();
+        Monster monster = room.getMonster();
+        if (items.isEmpty() && monster == null && room.getDoor() == null) return NONE;
+        List<String> out = new ArrayList<>(items.size() * 2 + 3);
+        for (Item item : items) {
+            add(out, key(ITEM, item.getName()));
+            add(out, key(TYPE, item.getClass().getSimpleName()));
+        }
+        if (monster != null) {
+            add(out, key(MONSTER, monster.getName()));
+            add(out, key(TYPE, "monster"));
+        }
+        if (room.getDoor() != null) add(out, key(TYPE, "door"));
+        String[] result = out.toArray(NONE);
+        Arrays.sort(result); // порядок не зависит от порядка предметов, поэтому неизменная комната не переиндексируется
+        return result;
+    }
+
+    // Ключ вида "i:малое зелье"
+    private String key(int kind, String name) {
+        return keys.get(kind).computeIfAbsent(name, n -> PREFIX[kind] + n.toLowerCase(Locale.ROOT));
+    }
+
+    // Добавляет ключ, если его ещё нет
+    private static void add(List<String> out, String key) {
+        if (!out.contains(key)) out.add(key);
+    }
+
+    // Линейный поиск в коротком массиве ключей комнаты
+    private static boolean contains(String[] keys, String key) {
+        for (String k : keys) {
+            if (k.equals(key)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,360 @@
+package com.example.dungeon.model;
+
+import java.util.*;
+
+/**
+ * Раскладка мира на клетчатой карте для команды map.
+ * Координаты комнат выводятся из направлений выходов (north — вверх, east — вправо) и
+ * вычисляются лениво, участками по 8×8 клеток: разложенная комната ждёт в очереди своего
+ * участка, пока карта не понадобится рядом с ней, и тогда раскладывает соседей. Поэтому
+ * вывод карты обходит только комнаты вокруг игрока, а однажды разложенный участок больше
+ * не пересчитывается — ни при следующем выводе, ни для других сессий. Открытые комнаты
+ * каждого игрока хранятся битами по участкам и дополняются только новыми открытиями, поэтому
+ * вывод читает таблицу клеток и биты, не заглядывая в объекты комнат. Комната, которая не
+ * связана с уже разложенными, начинает новый слой со своим началом координат; комната,
+ * клетка которой уже занята (выходы не ложатся на плоскость), на карту не попадает.
+ * Раскладка строится заново только при замене набора комнат (загрузка мира или сохранения).
+ * Карта не потокобезопасна: её строит и читает поток команд.
+ */
+public final class WorldMap {
+    // Размер участка — 2^CHUNK_BITS клеток по каждой оси (64 клетки — одно слово битов открытых комнат)
+    private static final int CHUNK_BITS = 3;
+    // Разряды координаты в упакованном ключе клетки (слой — в старших разрядах)
+    private static final int AXIS_BITS = 24;
+    private static final long AXIS_MASK = (1L << AXIS_BITS) - 1;
+    // Направления выходов, которые ложатся на плоскость
+    private static final String[] DIRECTIONS = {"north", "south", "east", "west"};
+    private static final int[] DX = {0, 0, 1, -1};
+    private static final int[] DY = {-1, 1, 0, 0};
+    // Признаки клетки: выходы по направлениям (биты 0–3), дверь
+    private static final int DOOR = 1 << 4;
+
+    // Клетка каждой разложенной комнаты; комната и признаки каждой занятой клетки (без упаковки
+    // ключей: вывод карты читает таблицу клеток тысячи раз, а в сами комнаты не заглядывает)
+    private final Map<Room, Long> cells = new IdentityHashMap<>();
+    private final CellTable rooms = new CellTable();
+    // Разложенные комнаты, соседи которых ещё не разложены, по участкам
+    private final Map<Long, ArrayDeque<Room>> pending = new HashMap<>();
+    // Комнаты, не попавшие на карту из-за занятой клетки
+    private final Set<Room> overlapped = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Набор комнат, по которому построена раскладка
+    private Map<String, Room> laidRooms;
+    private long laidVersion = -1;
+    // Количество слоёв
+    private int layers;
+    // Открытые комнаты на карте по игрокам
+    private final Map<PlayerStats, View> views = new WeakHashMap<>();
+    // Буфер символов карты, переиспользуется между выводами одного размера
+    private char[][] grid = new char[0][0];
+
+    /**
+     * Рисует открытые игроком комнаты вокруг текущей: комнаты в чётных позициях строки,
+     * выходы между ними — символами '-' и '|'.
+     * @param s состояние сессии
+     * @param radius сколько комнат видно в каждую сторону
+     * @return карта (строки, каждая с переводом строки, без пустых полей) и легенда
+     */
+    public String render(GameState s, int radius) {
+        sync(s);
+        Room current = s.getCurrent();
+        long center = place(current, radius);
+        int layer = layer(center);
+        int cx = x(center);
+        int cy = y(center);
+        layOut(layer, cx - radius - 1, cy - radius - 1, cx + radius + 1, cy + radius + 1);
+        View view = catchUp(s);
+
+        // Биты открытых клеток участков окна
+        int chunkX = (cx - radius) >> CHUNK_BITS;
+        int chunkY = (cy - radius) >> CHUNK_BITS;
+        long[][] explored = new long[((cy + radius) >> CHUNK_BITS) - chunkY + 1][((cx + radius) >> CHUNK_BITS) - chunkX + 1];
+        for (int j = 0; j < explored.length; j++) {
+            for (int i = 0; i < explored[j].length; i++) {
+                long[] bits = view.explored.get(key(layer, chunkX + i, chunkY + j));
+                if (bits != null) explored[j][i] = bits[0];
+            }
+        }
+
+        int side = 4 * radius + 1;
+        if (grid.length != side) grid = new char[side][side];
+        for (char[] row : grid) Arrays.fill(row, ' ');
+        for (int dy = -radius; dy <= radius; dy++) {
+            for (int dx = -radius; dx <= radius; dx++) {
+                int x = cx + dx;
+                int y = cy + dy;
+                int slot = rooms.find(key(layer, x, y));
+                if (slot < 0) continue;
+                Room room = rooms.room(slot);
+                long bits = explored[(y >> CHUNK_BITS) - chunkY][(x >> CHUNK_BITS) - chunkX];
+                if (room != current && (bits & 1L << bit(x, y)) == 0) continue;
+                int flags = rooms.flags(slot);
+                int col = 2 * (dx + radius);
+                int row = 2 * (dy + radius);
+                grid[row][col] = room == current ? '@' : (flags & DOOR) != 0 ? '+' : '#';
+                // Выходы открытой комнаты видны; неоткрытые соседи отмечаются '?'
+                for (int d = 0; d < DIRECTIONS.length; d++) {
+                    if ((flags & 1 << d) == 0 || Math.abs(dx + DX[d]) > radius || Math.abs(dy + DY[d]) > radius) continue;
+                    grid[row + DY[d]][col + DX[d]] = DX[d] != 0 ? '-' : '|';
+                    char mark = grid[row + 2 * DY[d]][col + 2 * DX[d]];
+                    if (mark == ' ') grid[row + 2 * DY[d]][col + 2 * DX[d]] = '?';
+                }
+            }
+        }
+
+        // Пустые строки и общий отступ слева обрезаются
+        int top = side;
+        int bottom = -1;
+        int left = side;
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
+                if (grid[row][col] == ' ') continue;
+                top = Math.min(top, row);
+                bottom = row;
+                left = Math.min(left, col);
+                break;
+            }
+        }
+        StringBuilder sb = new StringBuilder(side * (side + 1) + 80);
+        for (int row = top; row <= bottom; row++) {
+            int end = side;
+            while (end > left && grid[row][end - 1] == ' ') end--;
+            sb.append(grid[row], left, Math.max(0, end - left)).append('\n');
+        }
+        return sb.append("@ — вы, # — открытая комната, + — комната с дверью, ? — неоткрытая комната\n").toString();
+    }
+
+    /**
+     * Возвращает сводку о раскладке.
+     * @return строка с метриками
+     */
+    public String stats() {
+        int waiting = 0;
+        for (ArrayDeque<Room> q : pending.values()) waiting += q.size();
+        return "Разложено комнат: " + cells.size() + ", слоёв: " + layers + ", участков с очередью: " + pending.size()
+                + ", комнат в очереди: " + waiting + ", не легли на плоскость: " + overlapped.size();
+    }
+
+    // Сбрасывает раскладку, если набор комнат заменён
+    private void sync(GameState s) {
+        if (laidRooms == s.getRooms() && laidVersion == s.getRoomsVersion()) return;
+        cells.clear();
+        rooms.clear();
+        pending.clear();
+        overlapped.clear();
+        views.clear();
+        layers = 0;
+        laidRooms = s.getRooms();
+        laidVersion = s.getRoomsVersion();
+    }
+
+    // Клетка комнаты; неразложенная комната ставится рядом с ближайшей разложенной
+    // (поиск в ширину не дальше радиуса обзора), а если такой нет — в начало нового слоя
+    private long place(Room room, int radius) {
+        Long known = cells.get(room);
+        if (known != null) return known;
+        overlapped.remove(room);
+        // Смещение каждой найденной комнаты от искомой
+        Map<Room, Long> offset = new IdentityHashMap<>();
+        ArrayDeque<Room> queue = new ArrayDeque<>();
+        offset.put(room, 0L);
+        queue.add(room);
+        while (!queue.isEmpty()) {
+            Room r = queue.poll();
+            long o = offset.get(r);
+            int ox = (int) (o >> 32);
+            int oy = (int) o;
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                Room next = r.getNeighbors().get(DIRECTIONS[d]);
+                int nx = ox + DX[d];
+                int ny = oy + DY[d];
+                if (next == null || offset.containsKey(next) || Math.abs(nx) > radius || Math.abs(ny) > radius) continue;
+                Long cell = cells.get(next);
+                if (cell != null) {
+                    long own = key(layer(cell), x(cell) - nx, y(cell) - ny);
+                    if (rooms.find(own) < 0) return put(room, own);
+                    continue;
+                }
+                offset.put(next, ((long) nx << 32) | (ny & 0xFFFFFFFFL));
+                queue.add(next);
+            }
+        }
+        return put(room, key(layers++, 0, 0));
+    }
+
+    // Раскладывает соседей комнат из очередей участков, покрывающих прямоугольник клеток
+    private void layOut(int layer, int x0, int y0, int x1, int y1) {
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            for (int cy = y0 >> CHUNK_BITS; cy <= y1 >> CHUNK_BITS; cy++) {
+                for (int cx = x0 >> CHUNK_BITS; cx <= x1 >> CHUNK_BITS; cx++) {
+                    ArrayDeque<Room> queue = pending.remove(key(layer, cx, cy));
+                    if (queue == null) continue;
+                    progress = true;
+                    for (Room room : queue) expand(room);
+                }
+            }
+        }
+    }
+
+    // Раскладывает неразложенных соседей комнаты и запоминает признаки её клетки
+    private void expand(Room room) {
+        long cell = cells.get(room);
+        int flags = room.getDoor() != null ? DOOR : 0;
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            Room next = room.getNeighbors().get(DIRECTIONS[d]);
+            if (next == null) continue;
+            long target = key(layer(cell), x(cell) + DX[d], y(cell) + DY[d]);
+            Long placed = cells.get(next);
+            if (placed == null && !overlapped.contains(next)) {
+                if (rooms.find(target) >= 0) {
+                    overlapped.add(next);
+                } else {
+                    placed = put(next, target);
+                }
+            }
+            // Выход рисуется, только если сосед лёг в соседнюю клетку
+            if (placed != null && placed == target) flags |= 1 << d;
+        }
+        rooms.setFlags(cell, flags);
+    }
+
+    // Учитывает комнаты, открытые игроком после прошлого вывода карты
+    private View catchUp(GameState s) {
+        View view = views.computeIfAbsent(s.getStats(), k -> new View());
+        List<String> fresh = s.getStats().discoveredSince(view.seen);
+        view.seen += fresh.size();
+        for (String name : fresh) {
+            Room room = s.getRoom(name);
+            if (room == null) continue;
+            Long cell = cells.get(room);
+            if (cell != null) {
+                view.mark(cell);
+            } else {
+                view.waiting.add(room);
+            }
+        }
+        return view;
+    }
+
+    // Кладёт комнату в клетку и ставит её в очередь участка
+    private long put(Room room, long cell) {
+        cells.put(room, cell);
+        rooms.put(cell, room);
+        for (View view : views.values()) {
+            if (view.waiting.remove(room)) view.mark(cell);
+        }
+        pending.computeIfAbsent(key(layer(cell), x(cell) >> CHUNK_BITS, y(cell) >> CHUNK_BITS), k -> new ArrayDeque<>()).add(room);
+        return cell;
+    }
+
+    /**
+     * Открытые комнаты игрока на карте: по биту на клетку участка.
+     */
+    private static final class View {
+        // Биты открытых клеток по ключу участка
+        private final Map<Long, long[]> explored = new HashMap<>();
+        // Открытые комнаты, которые ещё не разложены
+        private final Set<Room> waiting = Collections.newSetFromMap(new IdentityHashMap<>());
+        // Сколько открытий игрока уже учтено
+        private int seen;
+
+        void mark(long cell) {
+            long chunk = key(layer(cell), x(cell) >> CHUNK_BITS, y(cell) >> CHUNK_BITS);
+            explored.computeIfAbsent(chunk, k -> new long[1])[0] |= 1L << bit(x(cell), y(cell));
+        }
+    }
+
+    /**
+     * Таблица «клетка → комната и признаки» с открытой адресацией по примитивным ключам.
+     */
+    private static final class CellTable {
+        private long[] keys = new long[1024];
+        private Room[] values = new Room[1024];
+        private byte[] flags = new byte[1024];
+        private int size;
+
+        // Ячейка клетки или -1
+        int find(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) return i;
+            }
+            return -1;
+        }
+
+        Room room(int slot) {
+            return values[slot];
+        }
+
+        int flags(int slot) {
+            return flags[slot];
+        }
+
+        void setFlags(long key, int value) {
+            flags[find(key)] = (byte) value;
+        }
+
+        void put(long key, Room room) {
+            if (2 * (size + 1) > keys.length) grow();
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (values[i] != null && keys[i] != key) i = (i + 1) & mask;
+            if (values[i] == null) size++;
+            keys[i] = key;
+            values[i] = room;
+        }
+
+        void clear() {
+            Arrays.fill(values, null);
+            Arrays.fill(flags, (byte) 0);
+            size = 0;
+        }
+
+        // Удваивает таблицу и перекладывает клетки вместе с признаками
+        private void grow() {
+            long[] oldKeys = keys;
+            Room[] oldValues = values;
+            byte[] oldFlags = flags;
+            keys = new long[oldKeys.length * 2];
+            values = new Room[oldValues.length * 2];
+            flags = new byte[oldFlags.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] == null) continue;
+                put(oldKeys[i], oldValues[i]);
+                flags[find(oldKeys[i])] = oldFlags[i];
+            }
+        }
+
+        // Перемешивание ключа: соседние клетки не должны занимать соседние ячейки
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+
+    // Упакованный ключ клетки (или участка): слой и две координаты
+    private static long key(int layer, int x, int y) {
+        return ((long) layer << (2 * AXIS_BITS)) | ((x & AXIS_MASK) << AXIS_BITS) | (y & AXIS_MASK);
+    }
+
+    // Номер клетки внутри участка
+    private static int bit(int x, int y) {
+        int mask = (1 << CHUNK_BITS) - 1;
+        return (y & mask) << CHUNK_BITS | (x & mask);
+    }
+
+    private static int layer(long key) {
+        return (int) (key >>> (2 * AXIS_BITS));
+    }
+
+    // Координаты восстанавливаются со знаком
+    private static int x(long key) {
+        return (int) (key << (64 - 2 * AXIS_BITS) >> (64 - AXIS_BITS));
+    }
+
+    private static int y(long key) {
+        return (int) (key << (64 - AXIS_BITS) >> (64 - AXIS_BITS));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.dungeon.tools;
+
+import com.example.dungeon.model.EventRing;
+import com.example.dungeon.model.EventSink;
+
+/**
+ * Проверка и замер кольцевого буфера доменных событий.
+ * Запуск: java -cp out com.example.dungeon.tools.EventBench [событий] [вместимость]
+ * Производитель публикует события, три потребителя в своих потоках проверяют, что получили
+ * все номера по порядку и с верными полями. Выводит стоимость публикации и число ожиданий
+ * производителя (буфер был полон, потому что потребители отстали на целый круг).
+ */
+public final class EventBench {
+    // Предметы событий (заранее созданные строки, чтобы замерять только буфер)
+    private static final String[] SUBJECTS = {"look", "move", "take", "fight"};
+    private static final EventRing.Type[] TYPES = EventRing.Type.values();
+
+    /**
+     * Точка входа проверки.
+     * @param args количество событий и вместимость буфера (необязательно)
+     */
+    public static void main(String[] args) {
+        long count = args.length > 0 ? Long.parseLong(args[0]) : 20_000_000L;
+        int capacity = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+        EventRing ring = new EventRing(capacity);
+        Checker[] checkers = {new Checker(), new Checker(), new Checker()};
+        for (int i = 0; i < checkers.length; i++) ring.addSink("check-" + i, checkers[i]);
+        ring.start();
+
+        long start = System.nanoTime();
+        for (long i = 0; i < count; i++) {
+            ring.publish(null, TYPES[(int) (i % TYPES.length)], null, SUBJECTS[(int) (i & 3)]);
+        }
+        long published = System.nanoTime();
+        ring.shutdown();
+        long end = System.nanoTime();
+
+        System.out.printf("Событий: %d, публикация: %.1f нс/событие, до обработки всеми: %d мс%n",
+                count, (published - start) / (double) count, (end - start) / 1_000_000);
+        System.out.println(ring.stats());
+        long errors = 0;
+        for (Checker c : checkers) errors += c.errors + (c.seen == count ? 0 : 1);
+        System.out.println(errors == 0 ? "Все потребители получили все события по порядку" : "ОШИБОК: " + errors);
+        if (errors != 0) System.exit(1);
+    }
+
+    /**
+     * Потребитель, проверяющий порядок номеров и поля событий.
+     */
+    private static final class Checker implements EventSink {
+        private long seen;
+        private long errors;
+
+        @Override
+        public void onEvent(EventRing.Event event, long sequence, boolean endOfBatch) {
+            if (sequence != seen
+                    || event.type() != TYPES[(int) (sequence % TYPES.length)]
+                    || !event.subject().equals(SUBJECTS[(int) (sequence & 3)])) {
+                errors++;
+            }
+            seen++;
+        }
+    }
+
+    // Приватный конструктор: класс содержит только точку входа
+    private EventBench() {
+    }
+}
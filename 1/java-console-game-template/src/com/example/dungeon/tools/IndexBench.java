@@ -0,0 +1,112 @@
+package com.example.dungeon.tools;
+
+import com.example.dungeon.model.GameState;
+import com.example.dungeon.model.ItemCatalog;
+import com.example.dungeon.model.Monster;
+import com.example.dungeon.model.Player;
+import com.example.dungeon.model.Room;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Замер обратного индекса мира на мирах разного размера.
+ * Запуск: java -Xmx4g -cp out com.example.dungeon.tools.IndexBench [комнат]
+ * Для каждого размера мира строит индекс, затем чередует изменения комнат (взятие предмета,
+ * перемещение монстра) с запросами find/where по редкому предмету и монстру и выводит
+ * стоимость перестройки, обновления и запроса. Время запроса не должно расти вместе с миром.
+ * Результаты запросов сверяются с полным обходом комнат.
+ */
+public final class IndexBench {
+    // Изменений и запросов на каждом размере мира
+    private static final int OPS = 200_000;
+
+    /**
+     * Точка входа замера.
+     * @param args наибольшее количество комнат (необязательно)
+     */
+    public static void main(String[] args) {
+        int largest = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        boolean ok = true;
+        for (int size = 10_000; size <= largest; size *= 10) {
+            GameState state = world(size);
+            Room[] rooms = state.getRooms().values().toArray(new Room[0]);
+            long start = System.nanoTime();
+            state.getIndex();
+            long built = System.nanoTime();
+
+            SplittableRandom rnd = new SplittableRandom(42);
+            long updateNanos = 0;
+            long queryNanos = 0;
+            long found = 0;
+            for (int i = 0; i < OPS; i++) {
+                long t0 = System.nanoTime();
+                Room from = rooms[rnd.nextInt(rooms.length)];
+                Room to = rooms[rnd.nextInt(rooms.length)];
+                if (!from.getItems().isEmpty()) {
+                    to.getItems().add(from.getItems().remove(0));
+                } else if (from.getMonster() != null && to.getMonster() == null) {
+                    to.setMonster(from.getMonster());
+                    from.setMonster(null);
+                }
+                state.touch(from);
+                state.touch(to);
+                long t1 = System.nanoTime();
+                found += state.getIndex().withItem("Волшебный меч").size();
+                found += state.getIndex().withMonster("Дракон").size();
+                long t2 = System.nanoTime();
+                updateNanos += t1 - t0;
+                queryNanos += t2 - t1;
+            }
+            boolean match = state.getIndex().withItem("Волшебный меч").equals(scanItem(rooms, "Волшебный меч"))
+                    && state.getIndex().withType("monster").equals(scanMonsters(rooms));
+            ok &= match;
+            System.out.printf("комнат=%-8d перестройка %7.1f мс, обновление %6.0f нс, запрос %5.0f нс, найдено %d, %s%n",
+                    size, (built - start) / 1e6, updateNanos / (double) OPS, queryNanos / (2.0 * OPS), found,
+                    match ? "совпадает с обходом" : "НЕ СОВПАДАЕТ С ОБХОДОМ");
+        }
+        if (!ok) System.exit(1);
+    }
+
+    // Мир без выходов: в каждой комнате зелье, в каждой десятой монстр, редкие предметы и монстры — в сотне комнат
+    private static GameState world(int size) {
+        Map<String, Room> byName = new LinkedHashMap<>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            Room room = new Room("r" + i, "Тестовая комната.");
+            room.getItems().add(ItemCatalog.potion("Малое зелье", 5));
+            if (i % (size / 100) == 0) room.getItems().add(ItemCatalog.weapon("Волшебный меч", 10));
+            if (i % 10 == 0) room.setMonster(new Monster(i % (size / 100) == 0 ? "Дракон" : "Волк", 1, 8));
+            byName.put(room.getName(), room);
+        }
+        GameState state = new GameState();
+        state.setPlayer(new Player("Бенч", 1, 1));
+        state.setRooms(byName);
+        state.setCurrent(byName.values().iterator().next());
+        return state;
+    }
+
+    // Комнаты с предметом — полным обходом
+    private static Set<Room> scanItem(Room[] rooms, String name) {
+        Set<Room> out = new HashSet<>();
+        for (Room r : rooms) {
+            if (r.getItems().stream().anyMatch(i -> i.getName().equals(name))) out.add(r);
+        }
+        return out;
+    }
+
+    // Комнаты с монстрами — полным обходом
+    private static Set<Room> scanMonsters(Room[] rooms) {
+        Set<Room> out = new HashSet<>();
+        for (Room r : rooms) {
+            if (r.getMonster() != null) out.add(r);
+        }
+        return out;
+    }
+
+    // Приватный конструктор: класс содержит только точку входа
+    private IndexBench() {
+    }
+}
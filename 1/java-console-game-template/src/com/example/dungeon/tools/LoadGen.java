@@ -0,0 +1,440 @@
+package com.example.dungeon.tools;
+
+import com.example.dungeon.core.BotServer;
+import com.example.dungeon.core.Game;
+import com.example.dungeon.core.Json;
+import com.example.dungeon.core.OutputCapture;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Генератор нагрузки: N игроков-ботов одновременно играют в одном мире.
+ * Запуск: java -cp out com.example.dungeon.tools.LoadGen [игроков[,игроков...]] [секунд на ступень]
+ *         [пауза между командами, мс] [- | порт API ботов] [файл сценария]
+ * Каждый бот — отдельный поток со своей сессией. Без сценария бот играет случайной смесью команд
+ * (look, move, take, fight, save), выбирая выходы, предметы и монстров по выводу последнего look;
+ * со сценарием бот повторяет строки файла по кругу с случайного места. "-" (по умолчанию) — игра
+ * в этом же процессе через Game.play, порт — запросы к API ботов (--http) по одной команде.
+ * Каждая ступень длится заданное время; раз в секунду выводятся пропускная способность, p99,
+ * ошибки и сборки мусора этого процесса, после ступени — перцентили по командам. Несколько
+ * ступеней через запятую показывают, при каком числе игроков движок насыщается.
+ */
+public final class LoadGen {
+    // Направления для move, пока бот не знает выходов
+    private static final String[] DIRECTIONS = {"north", "south", "east", "west"};
+    // Смесь команд по умолчанию: доли look, move, take, fight и save (в сумме 100)
+    private static final int LOOK = 25;
+    private static final int MOVE = 35;
+    private static final int TAKE = 15;
+    private static final int FIGHT = 20;
+
+    /**
+     * Ответ игры на одну команду.
+     * @param ok команда выполнена без ошибки
+     * @param output вывод команды
+     * @param gameOver игра сессии окончена
+     */
+    private record Reply(boolean ok, String output, boolean gameOver) {
+    }
+
+    /**
+     * Игра, которой боты отправляют команды.
+     */
+    private interface Target {
+        /**
+         * Выполняет одну команду сессии.
+         * @param session id сессии
+         * @param command строка команды
+         * @return ответ игры
+         * @throws IOException если запрос не дошёл до игры
+         */
+        Reply send(String session, String command) throws IOException;
+
+        /**
+         * Освобождает ресурсы после замера.
+         */
+        default void close() {
+        }
+    }
+
+    /**
+     * Точка входа генератора.
+     * @param args ступени игроков, секунды на ступень, пауза, цель и файл сценария (необязательно)
+     * @throws Exception если сценарий не прочитан или замер прерван
+     */
+    public static void main(String[] args) throws Exception {
+        int[] stages = Arrays.stream((args.length > 0 ? args[0] : "1,10,100").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        long thinkMillis = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        String where = args.length > 3 ? args[3] : "-";
+        List<String> script = args.length > 4 ? script(Paths.get(args[4])) : null;
+
+        Target target = where.equals("-") ? inProcess() : http(Integer.parseInt(where));
+        System.out.printf("Цель: %s, смесь: %s, пауза %d мс; сборки мусора — этого процесса%n",
+                where.equals("-") ? "игра в этом процессе" : "API ботов на порту " + where,
+                script == null ? "случайная" : "сценарий " + args[4] + " (" + script.size() + " команд)", thinkMillis);
+        double[] throughput = new double[stages.length];
+        long[] p99 = new long[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            Stats stats = stage(target, stages[i], seconds, thinkMillis, script);
+            throughput[i] = stats.total.count() / (double) seconds;
+            p99[i] = stats.total.percentile(0.99);
+        }
+        target.close();
+
+        System.out.println();
+        System.out.println("Игроков   команд/с   p99");
+        int saturated = -1;
+        for (int i = 0; i < stages.length; i++) {
+            System.out.printf("%7d %10.0f %8s%n", stages[i], throughput[i], micros(p99[i]));
+            if (saturated < 0 && i > 0 && stages[i] > stages[i - 1] && throughput[i] < throughput[i - 1] * 1.1) {
+                saturated = i - 1;
+            }
+        }
+        if (saturated >= 0) {
+            System.out.printf("Насыщение около %d игроков: дальше пропускная способность почти не растёт, растёт только задержка%n",
+                    stages[saturated]);
+        }
+    }
+
+    // Одна ступень: players ботов играют seconds секунд
+    private static Stats stage(Target target, int players, int seconds, long thinkMillis, List<String> script)
+            throws InterruptedException {
+        System.out.printf("%n== Игроков: %d, %d с ==%n", players, seconds);
+        Stats stats = new Stats();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Thread> bots = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            Thread t = new Thread(new Bot("bot" + i, target, stats, script, thinkMillis, deadline, i), "bot-" + i);
+            t.setDaemon(true);
+            bots.add(t);
+            t.start();
+        }
+        long begin = deadline - TimeUnit.SECONDS.toNanos(seconds);
+        long[] gc = gcTotals();
+        for (int second = 1; second <= seconds; second++) {
+            long wait = begin + TimeUnit.SECONDS.toNanos(second) - System.nanoTime();
+            if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+            Histogram interval = stats.interval.getAndSet(new Histogram());
+            long[] now = gcTotals();
+            long count = interval.count();
+            long errors = stats.intervalErrors.sumThenReset();
+            System.out.printf("%3d с: %,8d команд/с, p99 %8s, ошибок %5.1f%%, сборок %d (%d мс), куча %,d МБ%n",
+                    second, count, micros(interval.percentile(0.99)), count == 0 ? 0.0 : 100.0 * errors / count,
+                    now[0] - gc[0], now[1] - gc[1], usedHeapMb());
+            gc = now;
+        }
+        for (Thread t : bots) t.join();
+
+        long total = stats.total.count();
+        System.out.printf("Всего %,d команд, %,.0f команд/с, ошибок %.1f%%, не дошло до игры %d%n",
+                total, total / (double) seconds, total == 0 ? 0.0 : 100.0 * stats.errors.sum() / total, stats.transport.sum());
+        System.out.println("команда      всего  ошибок      p50      p99     p999     макс");
+        for (Map.Entry<String, CommandStats> e : new TreeMap<>(stats.byCommand).entrySet()) {
+            CommandStats c = e.getValue();
+            long n = c.latency.count();
+            System.out.printf("%-8s %9d %6.1f%% %8s %8s %8s %8s%n", e.getKey(), n, n == 0 ? 0.0 : 100.0 * c.errors.sum() / n,
+                    micros(c.latency.percentile(0.5)), micros(c.latency.percentile(0.99)),
+                    micros(c.latency.percentile(0.999)), micros(c.latency.max()));
+        }
+        return stats;
+    }
+
+    /**
+     * Бот: своя сессия и то, что он знает о текущей комнате по последнему look.
+     */
+    private static final class Bot implements Runnable {
+        private final String id;
+        private final Target target;
+        private final Stats stats;
+        private final List<String> script;
+        private final long thinkMillis;
+        private final long deadline;
+        private final SplittableRandom random;
+        // Позиция в сценарии
+        private int position;
+        // Что бот видел в комнате; после move и fight — устарело, следующая команда look
+        private List<String> exits = List.of();
+        private List<String> items = List.of();
+        private boolean monster;
+        private boolean stale = true;
+
+        Bot(String id, Target target, Stats stats, List<String> script, long thinkMillis, long deadline, int seed) {
+            this.id = id;
+            this.target = target;
+            this.stats = stats;
+            this.script = script;
+            this.thinkMillis = thinkMillis;
+            this.deadline = deadline;
+            this.random = new SplittableRandom(seed);
+            this.position = script == null ? 0 : random.nextInt(script.size());
+        }
+
+        @Override
+        public void run() {
+            while (System.nanoTime() < deadline) {
+                String command = next();
+                String name = command.split(" ", 2)[0];
+                Reply reply = null;
+                long start = System.nanoTime();
+                try {
+                    reply = target.send(id, command);
+                } catch (IOException | RuntimeException e) {
+                    stats.transport.increment();
+                }
+                stats.record(name, (System.nanoTime() - start) / 1000, reply != null && reply.ok());
+                if (reply != null) learn(command, reply);
+                if (thinkMillis > 0) {
+                    try {
+                        Thread.sleep(thinkMillis);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        // Следующая команда: из сценария или из случайной смеси
+        private String next() {
+            if (script != null) return script.get(position++ % script.size());
+            if (stale) return "look";
+            int roll = random.nextInt(100);
+            if (roll < LOOK) return "look";
+            if (roll < LOOK + MOVE) return move();
+            if (roll < LOOK + MOVE + TAKE) return items.isEmpty() ? "look" : "take " + items.get(random.nextInt(items.size()));
+            if (roll < LOOK + MOVE + TAKE + FIGHT) return monster ? "fight" : move();
+            return "save";
+        }
+
+        // move в один из известных выходов
+        private String move() {
+            List<String> known = exits.isEmpty() ? Arrays.asList(DIRECTIONS) : exits;
+            return "move " + known.get(random.nextInt(known.size()));
+        }
+
+        // Обновляет знание о комнате по ответу
+        private void learn(String command, Reply reply) {
+            if (reply.gameOver()) {
+                // Игрок погиб: следующая команда начнёт новую сессию с тем же id
+                stale = true;
+                return;
+            }
+            if (!reply.ok()) return;
+            if (command.equals("look")) {
+                exits = List.of();
+                items = List.of();
+                monster = false;
+                for (String line : reply.output().split("\n")) {
+                    if (line.startsWith("Выходы: ")) exits = List.of(line.substring(8).split(", "));
+                    else if (line.startsWith("Предметы: ")) items = new ArrayList<>(List.of(line.substring(10).split(", ")));
+                    else if (line.startsWith("В комнате монстр: ")) monster = true;
+                }
+                stale = false;
+            } else if (command.startsWith("take ")) {
+                items.remove(command.substring(5));
+            } else if (command.startsWith("move ") || command.equals("fight")) {
+                stale = true;
+            }
+        }
+    }
+
+    /**
+     * Счётчики ступени: задержки и ошибки по командам и задержки за текущую секунду.
+     */
+    private static final class Stats {
+        private final Map<String, CommandStats> byCommand = new ConcurrentHashMap<>();
+        private final Histogram total = new Histogram();
+        private final AtomicReference<Histogram> interval = new AtomicReference<>(new Histogram());
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder intervalErrors = new LongAdder();
+        private final LongAdder transport = new LongAdder();
+
+        void record(String command, long micros, boolean ok) {
+            CommandStats c = byCommand.computeIfAbsent(command, k -> new CommandStats());
+            c.latency.record(micros);
+            total.record(micros);
+            interval.get().record(micros);
+            if (!ok) {
+                c.errors.increment();
+                errors.increment();
+                intervalErrors.increment();
+            }
+        }
+    }
+
+    /**
+     * Задержки и ошибки одной команды.
+     */
+    private static final class CommandStats {
+        private final Histogram latency = new Histogram();
+        private final LongAdder errors = new LongAdder();
+    }
+
+    /**
+     * Гистограмма задержек в микросекундах с логарифмическими корзинами: до 128 мкс точно,
+     * дальше 64 корзины на каждое удвоение (погрешность меньше 2%). Запись без блокировок.
+     */
+    private static final class Histogram {
+        // Корзин на удвоение
+        private static final int SUB = 64;
+        private final AtomicLongArray counts = new AtomicLongArray(2 * SUB + 56 * SUB);
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long micros) {
+            long v = Math.max(0, micros);
+            counts.incrementAndGet(index(v));
+            max.accumulate(v);
+        }
+
+        long count() {
+            long n = 0;
+            for (int i = 0; i < counts.length(); i++) n += counts.get(i);
+            return n;
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        // Значение, не меньше которого доля q записей (верхняя граница корзины)
+        long percentile(double q) {
+            long n = count();
+            if (n == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * n));
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank) return Math.min(upper(i), max());
+            }
+            return max();
+        }
+
+        static int index(long v) {
+            if (v < 2 * SUB) return (int) v;
+            int shift = 63 - Long.numberOfLeadingZeros(v) - 6; // v >> shift в [64, 128)
+            return 2 * SUB + (shift - 1) * SUB + (int) ((v >> shift) - SUB);
+        }
+
+        static long upper(int index) {
+            if (index < 2 * SUB) return index;
+            int shift = (index - 2 * SUB) / SUB + 1;
+            long sub = (index - 2 * SUB) % SUB + SUB;
+            return ((sub + 1) << shift) - 1;
+        }
+    }
+
+    // Игра в этом процессе; вывод команд перехватывается, чтобы не печатать его в терминал
+    private static Target inProcess() throws IOException {
+        // Сессии и статистика ботов не должны попасть в файлы настоящей игры: они пишутся
+        // во временный каталог (файлов ещё нет), который удаляется после замера
+        Path temp = Files.createTempDirectory("loadgen");
+        if (System.getProperty("dungeon.sessions.dir") == null) {
+            System.setProperty("dungeon.sessions.dir", temp.resolve("sessions").toString());
+        }
+        if (System.getProperty("dungeon.stats") == null) {
+            System.setProperty("dungeon.stats", temp.resolve("stats.bin").toString());
+        }
+        OutputCapture.install();
+        Game game = new Game();
+        return new Target() {
+            @Override
+            public Reply send(String session, String command) {
+                BotServer.Batch batch = game.play(session, List.of(command));
+                BotServer.CommandResult r = batch.results().get(0);
+                return new Reply(r.ok(), r.output(), batch.gameOver());
+            }
+
+            @Override
+            public void close() {
+                game.close();
+                delete(temp);
+            }
+        };
+    }
+
+    // Удаляет временный каталог замера
+    private static void delete(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+        } catch (IOException e) {
+            System.err.println("Временный каталог замера не удалён: " + dir);
+        }
+    }
+
+    // API ботов на localhost: одна команда в запросе, чтобы задержка была задержкой команды
+    private static Target http(int port) {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        return (session, command) -> {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/sessions/" + session + "/commands"))
+                    .POST(HttpRequest.BodyPublishers.ofString(Json.quote(new StringBuilder("["), command).append(']').toString()))
+                    .header("Content-Type", "application/json")
+                    .build();
+            HttpResponse<String> response;
+            try {
+                response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("запрос прерван", e);
+            }
+            if (response.statusCode() != 200) return new Reply(false, response.body(), false);
+            Map<?, ?> body = (Map<?, ?>) Json.parse(response.body());
+            Map<?, ?> result = (Map<?, ?>) ((List<?>) body.get("results")).get(0);
+            return new Reply(Boolean.TRUE.equals(result.get("ok")), (String) result.get("output"),
+                    Boolean.TRUE.equals(body.get("gameOver")));
+        };
+    }
+
+    // Строки сценария без пустых и комментариев
+    private static List<String> script(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file).stream().map(String::trim)
+                .filter(l -> !l.isEmpty() && !l.startsWith("#")).collect(Collectors.toList());
+        if (lines.isEmpty()) throw new IllegalArgumentException("Сценарий пуст: " + file);
+        return lines;
+    }
+
+    // Количество и суммарное время всех сборок мусора
+    private static long[] gcTotals() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += gc.getCollectionCount();
+            millis += gc.getCollectionTime();
+        }
+        return new long[]{count, millis};
+    }
+
+    // Занятая куча без принудительной сборки
+    private static long usedHeapMb() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() >> 20;
+    }
+
+    // Микросекунды в читаемом виде
+    private static String micros(long us) {
+        if (us < 1000) return us + " мкс";
+        if (us < 1_000_000) return String.format("%.1f мс", us / 1000.0);
+        return String.format("%.2f с", us / 1_000_000.0);
+    }
+
+    // Приватный конструктор: класс содержит только точку входа
+    private LoadGen() {
+    }
+}
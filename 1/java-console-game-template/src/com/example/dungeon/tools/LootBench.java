@@ -0,0 +1,86 @@
+package com.example.dungeon.tools;
+
+import com.example.dungeon.model.Item;
+import com.example.dungeon.model.ItemCatalog;
+import com.example.dungeon.model.LootTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Проверка и замер таблиц лута.
+ * Запуск: java -cp out com.example.dungeon.tools.LootBench [убийств] [потоков]
+ * Разыгрывает заданное число убийств на нескольких потоках, у каждого из которых свой
+ * SplittableRandom (split от общего зерна), сравнивает частоты выпадений с весами
+ * по критерию хи-квадрат и выводит скорость выборки.
+ */
+public final class LootBench {
+    // Критические значения хи-квадрат при уровне значимости 0.001 для 1..8 степеней свободы
+    private static final double[] CHI2_CRITICAL = {10.83, 13.82, 16.27, 18.47, 20.52, 22.46, 24.32, 26.12};
+
+    /**
+     * Точка входа проверки.
+     * @param args количество убийств и количество потоков (необязательно)
+     * @throws InterruptedException если ожидание потоков было прервано
+     */
+    public static void main(String[] args) throws InterruptedException {
+        long kills = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        List<Item> items = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        add(items, weights, ItemCatalog.potion("Малое зелье", 5), 40);
+        add(items, weights, ItemCatalog.potion("Зелье опыта", 3), 25);
+        add(items, weights, ItemCatalog.weapon("Ржавый меч", 2), 4);
+        add(items, weights, ItemCatalog.weapon("Волшебный меч", 10), 1);
+        add(items, weights, null, 30);
+        LootTable table = new LootTable(items, weights, 2);
+        long[][] counts = new long[threads][table.size()];
+        SplittableRandom root = new SplittableRandom(42);
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom rnd = root.split();
+            long[] local = counts[t];
+            long quota = kills / threads + (t < kills % threads ? 1 : 0);
+            workers[t] = new Thread(() -> {
+                for (long k = 0; k < quota; k++) {
+                    for (int r = 0; r < table.rolls(); r++) local[table.sample(rnd)]++;
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread w : workers) w.join();
+        long nanos = System.nanoTime() - start;
+        long[] total = new long[table.size()];
+        for (long[] local : counts) {
+            for (int i = 0; i < total.length; i++) total[i] += local[i];
+        }
+        long samples = Arrays.stream(total).sum();
+        double chi2 = 0;
+        System.out.println("Убийств: " + kills + ", бросков: " + samples + ", потоков: " + threads);
+        for (int i = 0; i < table.size(); i++) {
+            double expected = samples * table.probability(i);
+            chi2 += (total[i] - expected) * (total[i] - expected) / expected;
+            Item item = table.item(i);
+            System.out.printf("%-16s ожидалось %.5f, получено %.5f%n",
+                    item == null ? "(ничего)" : item.getName(), table.probability(i), (double) total[i] / samples);
+        }
+        double critical = CHI2_CRITICAL[Math.min(table.size() - 1, CHI2_CRITICAL.length) - 1];
+        System.out.printf("Хи-квадрат: %.2f (критическое значение %.2f): %s%n", chi2, critical,
+                chi2 < critical ? "частоты соответствуют весам" : "ЧАСТОТЫ НЕ СООТВЕТСТВУЮТ ВЕСАМ");
+        System.out.printf("Скорость: %,.0f бросков/с%n", samples * 1e9 / nanos);
+        if (chi2 >= critical) System.exit(1);
+    }
+
+    // Добавляет запись в таблицу
+    private static void add(List<Item> items, List<Double> weights, Item item, double weight) {
+        items.add(item);
+        weights.add(weight);
+    }
+
+    // Приватный конструктор: класс содержит только точку входа
+    private LootBench() {
+    }
+}
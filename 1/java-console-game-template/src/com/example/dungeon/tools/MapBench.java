@@ -0,0 +1,165 @@
+package com.example.dungeon.tools;
+
+import com.example.dungeon.model.Door;
+import com.example.dungeon.model.GameState;
+import com.example.dungeon.model.Player;
+import com.example.dungeon.model.Room;
+import com.example.dungeon.model.WorldMap;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Замер команды map на большом мире-решётке.
+ * Запуск: java -Xmx2g -cp out com.example.dungeon.tools.MapBench [сторона сетки] [радиус]
+ * Игрок открывает комнаты случайным блужданием от центра сетки, затем карта выводится:
+ * первый раз на новой карте (раскладка участков вокруг игрока), повторно на том же месте (раскладка и открытые клетки из кэша)
+ * и после каждого шага блуждания (раскладываются только новые участки). Выводит время
+ * вывода в медиане, 99-м перцентиле и максимум и сколько комнат разложено, а количество
+ * комнат на карте сверяется с координатами решётки.
+ */
+public final class MapBench {
+    // Шагов блуждания до замера и выводов карты в каждой серии
+    private static final int WALK = 20_000;
+    private static final int RENDERS = 20_000;
+    // Направления выходов решётки
+    private static final String[] DIRECTIONS = {"north", "south", "east", "west"};
+
+    /**
+     * Точка входа замера.
+     * @param args сторона сетки и радиус карты (необязательно)
+     */
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int radius = args.length > 1 ? Integer.parseInt(args[1]) : 25;
+        GameState state = world(side);
+        Room[] grid = state.getRooms().values().toArray(new Room[0]);
+        System.out.printf("Комнат: %d, карта %d×%d комнат%n", grid.length, 2 * radius + 1, 2 * radius + 1);
+
+        SplittableRandom rnd = new SplittableRandom(42);
+        int at = side / 2 * side + side / 2;
+        state.setCurrent(grid[at]);
+        state.getStats().discovered(grid[at].getName());
+        for (int i = 0; i < WALK; i++) at = step(state, grid, side, at, rnd);
+
+        // Мир построен: сборка сейчас, чтобы рост кучи не попал в замер
+        System.gc();
+        // Прогрев JIT на отдельной карте, чтобы первый вывод измерял раскладку, а не интерпретатор
+        WorldMap warm = new WorldMap();
+        for (int i = 0; i < RENDERS; i++) warm.render(state, radius);
+        WorldMap map = new WorldMap();
+        long start = System.nanoTime();
+        String first = map.render(state, radius);
+        System.out.printf("Первый вывод: %.2f мс (%s)%n", (System.nanoTime() - start) / 1e6, map.stats());
+
+        long[] again = new long[RENDERS];
+        long[] gc = gc();
+        for (int i = 0; i < RENDERS; i++) {
+            long t0 = System.nanoTime();
+            map.render(state, radius);
+            again[i] = System.nanoTime() - t0;
+        }
+        print("Повторный вывод на месте", again, gc);
+
+        long[] walking = new long[RENDERS];
+        gc = gc();
+        boolean match = count(first) == explored(state, grid, side, at, radius);
+        for (int i = 0; i < RENDERS; i++) {
+            at = step(state, grid, side, at, rnd);
+            long t0 = System.nanoTime();
+            String out = map.render(state, radius);
+            walking[i] = System.nanoTime() - t0;
+            if (i % 1000 == 0) match &= count(out) == explored(state, grid, side, at, radius);
+        }
+        print("Вывод после каждого шага", walking, gc);
+        System.out.println(map.stats());
+        System.out.println(match ? "Комнаты на карте совпадают с решёткой" : "КОМНАТЫ НА КАРТЕ НЕ СОВПАДАЮТ С РЕШЁТКОЙ");
+        if (!match) System.exit(1);
+    }
+
+    // Шаг блуждания в случайную соседнюю комнату; комната отмечается открытой
+    private static int step(GameState state, Room[] grid, int side, int at, SplittableRandom rnd) {
+        Room next = grid[at].getNeighbors().get(DIRECTIONS[rnd.nextInt(DIRECTIONS.length)]);
+        if (next == null) return at;
+        state.setCurrent(next);
+        state.getStats().discovered(next.getName());
+        return Integer.parseInt(next.getName().substring(1));
+    }
+
+    // Открытые комнаты на карте — по выводу (последняя строка — легенда)
+    private static int count(String map) {
+        int n = 0;
+        int legend = map.lastIndexOf('\n', map.length() - 2);
+        for (int i = 0; i < legend; i++) {
+            char c = map.charAt(i);
+            if (c == '#' || c == '+' || c == '@') n++;
+        }
+        return n;
+    }
+
+    // Открытые комнаты в окне карты — по координатам решётки
+    private static int explored(GameState state, Room[] grid, int side, int at, int radius) {
+        int n = 0;
+        int x = at % side;
+        int y = at / side;
+        for (int j = Math.max(0, y - radius); j <= Math.min(side - 1, y + radius); j++) {
+            for (int i = Math.max(0, x - radius); i <= Math.min(side - 1, x + radius); i++) {
+                if (state.getStats().rooms().contains(grid[j * side + i].getName())) n++;
+            }
+        }
+        return n;
+    }
+
+    // Медиана, 99-й перцентиль и максимум; паузы сборщика за серию попадают в хвост
+    private static void print(String what, long[] nanos, long[] gcBefore) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        long[] gc = gc();
+        System.out.printf("%s: медиана %.0f мкс, p99 %.0f мкс, максимум %.2f мс (сборок мусора: %d, %d мс)%n", what,
+                sorted[sorted.length / 2] / 1e3, sorted[sorted.length * 99 / 100] / 1e3, sorted[sorted.length - 1] / 1e6,
+                gc[0] - gcBefore[0], gc[1] - gcBefore[1]);
+    }
+
+    // Количество и суммарное время сборок мусора
+    private static long[] gc() {
+        long[] total = new long[2];
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total[0] += Math.max(0, bean.getCollectionCount());
+            total[1] += Math.max(0, bean.getCollectionTime());
+        }
+        return total;
+    }
+
+    // Мир-решётка; дверь в каждой пятидесятой комнате
+    private static GameState world(int side) {
+        Room[] grid = new Room[side * side];
+        Map<String, Room> byName = new LinkedHashMap<>(grid.length * 4 / 3 + 1);
+        for (int i = 0; i < grid.length; i++) {
+            grid[i] = new Room("r" + i, "Тестовая комната.");
+            if (i % 50 == 49) grid[i].setDoor(new Door("Дверь " + i));
+            byName.put(grid[i].getName(), grid[i]);
+        }
+        for (int i = 0; i < grid.length; i++) {
+            if (i % side + 1 < side) {
+                grid[i].getNeighbors().put("east", grid[i + 1]);
+                grid[i + 1].getNeighbors().put("west", grid[i]);
+            }
+            if (i + side < grid.length) {
+                grid[i].getNeighbors().put("south", grid[i + side]);
+                grid[i + side].getNeighbors().put("north", grid[i]);
+            }
+        }
+        GameState state = new GameState();
+        state.setPlayer(new Player("Бенч", 1, 1));
+        state.setRooms(byName);
+        return state;
+    }
+
+    // Приватный конструктор: класс содержит только точку входа
+    private MapBench() {
+    }
+}
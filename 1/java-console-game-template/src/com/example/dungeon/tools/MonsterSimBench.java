@@ -0,0 +1,91 @@
+package com.example.dungeon.tools;
+
+import com.example.dungeon.core.MonsterSimulation;
+import com.example.dungeon.model.GameState;
+import com.example.dungeon.model.Monster;
+import com.example.dungeon.model.Player;
+import com.example.dungeon.model.Room;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Замер шага симуляции бродячих монстров на большом мире.
+ * Запуск: java -Xmx4g -cp out com.example.dungeon.tools.MonsterSimBench [монстров] [ходов]
+ * Строит мир-сетку, в которой монстры занимают две трети комнат, и для разного параллелизма
+ * пула fork-join выполняет одинаковое число ходов с одним и тем же зерном.
+ */
+public final class MonsterSimBench {
+    // Уровни параллелизма пула, на которых выполняется замер
+    private static final int[] CORES = {1, 2, 4, 8};
+
+    /**
+     * Точка входа замера.
+     * @param args количество монстров и количество ходов (необязательно)
+     */
+    public static void main(String[] args) {
+        int monsterCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int turns = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        System.out.println("Ядер на машине: " + Runtime.getRuntime().availableProcessors()
+                + ", монстров: " + monsterCount + ", ходов: " + turns);
+        for (int cores : CORES) {
+            // Мир строится заново, чтобы каждый замер начинался с одинаковой расстановки
+            GameState state = world(monsterCount);
+            ForkJoinPool pool = new ForkJoinPool(cores);
+            MonsterSimulation sim = new MonsterSimulation(pool, 0.5, 42);
+            sim.tick(state); // первый ход строит индекс мира
+            long total = 0;
+            long max = 0;
+            for (int t = 0; t < turns; t++) {
+                sim.tick(state);
+                total += sim.lastStepNanos();
+                max = Math.max(max, sim.lastStepNanos());
+            }
+            pool.shutdown();
+            System.out.printf("ядер=%-2d  в среднем %8.2f мс/ход  максимум %8.2f мс%n", cores, total / 1e6 / turns, max / 1e6);
+        }
+    }
+
+    // Строит мир-сетку с монстрами в двух третях комнат; игрок стоит в отдельной комнате без выходов
+    private static GameState world(int monsterCount) {
+        int roomCount = monsterCount * 3 / 2 + 1;
+        int side = (int) Math.ceil(Math.sqrt(roomCount));
+        Room[] rooms = new Room[roomCount];
+        Map<String, Room> byName = new LinkedHashMap<>(roomCount * 4 / 3 + 1);
+        for (int i = 0; i < roomCount; i++) {
+            rooms[i] = new Room("r" + i, "Тестовая комната.");
+            byName.put(rooms[i].getName(), rooms[i]);
+        }
+        for (int i = 0; i < roomCount; i++) {
+            if (i % side + 1 < side && i + 1 < roomCount) link(rooms[i], "east", rooms[i + 1], "west");
+            if (i + side < roomCount) link(rooms[i], "south", rooms[i + side], "north");
+        }
+        SplittableRandom rnd = new SplittableRandom(7);
+        for (int placed = 0; placed < monsterCount; ) {
+            Room room = rooms[rnd.nextInt(roomCount)];
+            if (room.getMonster() == null) {
+                room.setMonster(new Monster("Монстр", 1, 5));
+                placed++;
+            }
+        }
+        Room camp = new Room("Лагерь", "Комната наблюдателя.");
+        byName.put(camp.getName(), camp);
+        GameState state = new GameState();
+        state.setPlayer(new Player("Бенч", 1, 1));
+        state.setRooms(byName);
+        state.setCurrent(camp);
+        return state;
+    }
+
+    // Связывает две комнаты выходами в обе стороны
+    private static void link(Room a, String there, Room b, String back) {
+        a.getNeighbors().put(there, b);
+        b.getNeighbors().put(back, a);
+    }
+
+    // Приватный конструктор: класс содержит только точку входа
+    private MonsterSimBench() {
+    }
+}
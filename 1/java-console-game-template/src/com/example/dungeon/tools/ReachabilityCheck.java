@@ -0,0 +1,37 @@
+package com.example.dungeon.tools;
+
+import com.example.dungeon.core.Reachability;
+import com.example.dungeon.core.WorldLoader;
+import com.example.dungeon.model.GameState;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Офлайн-проверка достижимости мира: какие комнаты можно пройти от старта с ключами,
+ * которые можно собрать по пути.
+ * Запуск: java -cp out com.example.dungeon.tools.ReachabilityCheck [файл мира]
+ * Выводит недостижимые комнаты, двери, которые нельзя открыть (soft-lock), ключи от несуществующих
+ * дверей, ключи в недостижимых комнатах и тупики. Завершается с кодом 1, если проблемы найдены.
+ */
+public final class ReachabilityCheck {
+
+    /**
+     * Точка входа проверки.
+     * @param args путь к файлу мира (необязательно, по умолчанию world.txt)
+     */
+    public static void main(String[] args) {
+        Path file = Paths.get(args.length > 0 ? args[0] : "world.txt");
+        GameState state = new GameState();
+        long t0 = System.nanoTime();
+        boolean cached = WorldLoader.load(file, state);
+        System.out.printf("Загрузка мира (%s): %d мс%n", cached ? "кэш" : "разбор текста", (System.nanoTime() - t0) / 1_000_000);
+        Reachability.Report report = Reachability.analyze(state);
+        System.out.print(report.format());
+        if (!report.ok()) System.exit(1);
+    }
+
+    // Приватный конструктор: класс содержит только точку входа
+    private ReachabilityCheck() {
+    }
+}
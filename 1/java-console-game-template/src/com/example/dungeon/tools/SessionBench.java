@@ -0,0 +1,128 @@
+package com.example.dungeon.tools;
+
+import com.example.dungeon.core.Sessions;
+import com.example.dungeon.model.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Замер усыпления сессий: память до и после усыпления и время пробуждения.
+ * Запуск: java -cp out com.example.dungeon.tools.SessionBench [сессий] [комнат]
+ * Создаёт сессии в общем мире, каждая делает несколько ходов и берёт предметы, затем все
+ * сессии усыпляются во временный каталог. Выводит занятую кучу с активными сессиями и после
+ * усыпления, перцентили времени пробуждения и сверяет разбуженные сессии с исходными.
+ */
+public final class SessionBench {
+
+    /**
+     * Точка входа замера.
+     * @param args количество сессий и комнат (необязательно)
+     * @throws IOException если не удалось создать временный каталог
+     */
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int roomCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        GameState world = new GameState();
+        world.setRooms(rooms(roomCount));
+        Room start = world.getRoom("r0");
+        Path dir = Files.createTempDirectory("sessions");
+        Sessions sessions = new Sessions(dir, 0, id -> {
+            GameState s = new GameState();
+            s.shareWorld(world);
+            s.setPlayer(new Player(id, 20, 5));
+            s.setCurrent(start);
+            return s;
+        }, s -> { });
+
+        long base = usedHeap();
+        SplittableRandom rnd = new SplittableRandom(42);
+        String[] expected = new String[count];
+        for (int i = 0; i < count; i++) {
+            expected[i] = sessions.run("s" + i, s -> {
+                for (int step = 0; step < 10; step++) {
+                    List<Room> exits = new ArrayList<>(s.getCurrent().getNeighbors().values());
+                    s.setCurrent(exits.get(rnd.nextInt(exits.size())));
+                    s.addScore(1);
+                }
+                s.getPlayer().getInventory().add(ItemCatalog.potion("Малое зелье", 5));
+                s.getPlayer().setHp(1 + rnd.nextInt(20));
+                return describe(s);
+            });
+        }
+        long withSessions = usedHeap();
+        long start0 = System.nanoTime();
+        int slept = sessions.hibernateIdle();
+        long hibernateMillis = (System.nanoTime() - start0) / 1_000_000;
+        long afterHibernate = usedHeap();
+        System.out.printf("Сессий: %,d, комнат: %,d%n", count, roomCount);
+        System.out.printf("Куча: мир %,d КБ, с активными сессиями +%,d КБ (%,d Б на сессию), после усыпления +%,d КБ%n",
+                base / 1024, (withSessions - base) / 1024, (withSessions - base) / count, (afterHibernate - base) / 1024);
+        System.out.printf("Усыплено %,d сессий за %d мс%n", slept, hibernateMillis);
+
+        // Пробуждение в случайном порядке со сверкой состояния
+        long[] nanos = new long[count];
+        int mismatches = 0;
+        int[] order = rnd.ints(count, 0, count).toArray();
+        for (int i = 0; i < count; i++) {
+            int id = order[i];
+            long t = System.nanoTime();
+            String got = sessions.run("s" + id, SessionBench::describe);
+            nanos[i] = System.nanoTime() - t;
+            if (!got.equals(expected[id])) mismatches++;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("Пробуждение: p50 %d мкс, p99 %d мкс, максимум %d мкс%n",
+                nanos[count / 2] / 1000, nanos[(int) (count * 0.99)] / 1000, nanos[count - 1] / 1000);
+        System.out.println(sessions.stats());
+        sessions.shutdown();
+        try (var files = Files.list(dir)) {
+            for (Path f : (Iterable<Path>) files::iterator) Files.delete(f);
+        }
+        Files.delete(dir);
+        System.out.println(mismatches == 0 ? "Разбуженные сессии совпадают с исходными" : "НЕ СОВПАЛО сессий: " + mismatches);
+        if (mismatches != 0) System.exit(1);
+    }
+
+    // Сводка состояния сессии для сверки
+    private static String describe(GameState s) {
+        Player p = s.getPlayer();
+        return p.getName() + "/" + p.getHp() + "/" + p.getAttack() + "/" + s.getCurrent().getName() + "/"
+                + s.getScore() + "/" + p.getInventory().size();
+    }
+
+    // Занятая куча после сборки мусора (в замере это допустимо)
+    private static long usedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    // Сетка комнат с выходами на восток и юг и обратно
+    private static Map<String, Room> rooms(int count) {
+        int side = Math.max(1, (int) Math.sqrt(count));
+        Map<String, Room> byName = new HashMap<>();
+        Room[] rooms = new Room[side * side];
+        for (int i = 0; i < rooms.length; i++) {
+            rooms[i] = new Room("r" + i, "Тестовая комната.");
+            byName.put(rooms[i].getName(), rooms[i]);
+        }
+        for (int i = 0; i < rooms.length; i++) {
+            if (i % side + 1 < side) {
+                rooms[i].getNeighbors().put("east", rooms[i + 1]);
+                rooms[i + 1].getNeighbors().put("west", rooms[i]);
+            }
+            if (i + side < rooms.length) {
+                rooms[i].getNeighbors().put("south", rooms[i + side]);
+                rooms[i + side].getNeighbors().put("north", rooms[i]);
+            }
+        }
+        return byName;
+    }
+
+    // Приватный конструктор: класс содержит только точку входа
+    private SessionBench() {
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.dungeon.tools;
+
+import com.example.dungeon.core.WorldShards;
+import com.example.dungeon.model.ItemCatalog;
+import com.example.dungeon.model.Item;
+import com.example.dungeon.model.Player;
+import com.example.dungeon.model.Room;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Замер пропускной способности региональных шардов на синтетической нагрузке многих игроков.
+ * Запуск: java -cp out com.example.dungeon.tools.ShardBench [игроков] [команд на игрока] [сторона сетки]
+ * Мир — сетка комнат с предметом в каждой. Каждый игрок выполняет цепочку команд без общего
+ * потока: команда выполняется шардом текущей комнаты игрока, а следующая отправляется шарду
+ * комнаты, где игрок оказался (при переходе через границу региона — передачей игрока).
+ * 70% команд — переход в случайную соседнюю комнату, 30% — взять предмет и положить обратно.
+ * Для 1, 4, 16 и 64 шардов выводит команды в секунду и долю переходов между шардами;
+ * ускорение ограничено числом ядер машины. Замеряются сами шарды, без Game: в игре команды
+ * выполняются по одной (Game.execute), и шарды там только учитывают нагрузку регионов.
+ */
+public final class ShardBench {
+    // Количество шардов, на которых выполняется замер
+    private static final int[] SHARDS = {1, 4, 16, 64};
+
+    /**
+     * Точка входа замера.
+     * @param args количество игроков, команд на игрока и сторона сетки (необязательно)
+     * @throws InterruptedException если ожидание было прервано
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int commands = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int side = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+        Room[] rooms = grid(side);
+        System.out.println("Ядер на машине: " + Runtime.getRuntime().availableProcessors() + ", игроков: " + players
+                + ", команд на игрока: " + commands + ", комнат: " + rooms.length);
+        run(rooms, players, commands / 4, 2); // прогрев JIT
+        double base = 0;
+        for (int count : SHARDS) {
+            Result r = run(rooms, players, commands, count);
+            if (base == 0) base = r.perSecond;
+            System.out.printf("шардов=%-2d %,12.0f команд/с  (x%.2f), переходов между шардами: %.1f%%%n",
+                    count, r.perSecond, r.perSecond / base, 100.0 * r.handoffs / Math.max(1, r.moves));
+            System.out.println(r.stats);
+        }
+    }
+
+    // Итог одного замера
+    private record Result(double perSecond, long moves, long handoffs, String stats) {
+    }
+
+    // Выполняет нагрузку на заданном числе шардов
+    private static Result run(Room[] rooms, int playerCount, int commands, int shardCount) throws InterruptedException {
+        WorldShards shards = new WorldShards(shardCount);
+        shards.assign(List.of(rooms), rooms[0]);
+        Player[] players = new Player[playerCount];
+        Room[] at = new Room[playerCount];
+        SplittableRandom[] randoms = new SplittableRandom[playerCount];
+        long[] moves = new long[playerCount];
+        long[] handoffs = new long[playerCount];
+        SplittableRandom root = new SplittableRandom(42);
+        for (int p = 0; p < playerCount; p++) {
+            players[p] = new Player("Игрок " + p, 10, 1);
+            randoms[p] = root.split();
+            at[p] = rooms[randoms[p].nextInt(rooms.length)];
+            shards.locate(players[p], at[p]);
+        }
+        CountDownLatch done = new CountDownLatch(playerCount);
+        Chain chain = new Chain(shards, players, at, randoms, moves, handoffs, done);
+        shards.stats(); // начало отсчёта команд в секунду
+        long start = System.nanoTime();
+        for (int p = 0; p < playerCount; p++) {
+            int player = p;
+            shards.tell(at[p], () -> chain.step(player, commands));
+        }
+        done.await();
+        long nanos = System.nanoTime() - start;
+        String stats = shards.stats();
+        shards.shutdown();
+        long totalMoves = 0;
+        long totalHandoffs = 0;
+        for (int p = 0; p < playerCount; p++) {
+            totalMoves += moves[p];
+            totalHandoffs += handoffs[p];
+        }
+        return new Result((double) playerCount * commands * 1e9 / nanos, totalMoves, totalHandoffs, stats);
+    }
+
+    /**
+     * Цепочки команд игроков. Состояние игрока трогает только шард, которому игрок сейчас
+     * принадлежит; передача через очередь шарда делает изменения видимыми следующему владельцу.
+     */
+    private record Chain(WorldShards shards, Player[] players, Room[] at, SplittableRandom[] randoms,
+                         long[] moves, long[] handoffs, CountDownLatch done) {
+
+        // Выполняет команду игрока потоком шарда его комнаты и отправляет следующую
+        void step(int p, int left) {
+            if (left == 0) {
+                done.countDown();
+                return;
+            }
+            Room room = at[p];
+            SplittableRandom rnd = randoms[p];
+            if (rnd.nextInt(10) < 7) {
+                List<Room> exits = new ArrayList<>(room.getNeighbors().values());
+                Room next = exits.get(rnd.nextInt(exits.size()));
+                moves[p]++;
+                if (shards.shardOf(next) != shards.shardOf(room)) handoffs[p]++;
+                at[p] = next;
+                shards.handoffAsync(players[p], next, () -> step(p, left - 1));
+                return;
+            }
+            // Взять предмет и положить обратно: комнату меняет только поток её шарда
+            List<Item> items = room.getItems();
+            Item item = items.remove(items.size() - 1);
+            players[p].getInventory().add(item);
+            items.add(players[p].getInventory().remove(players[p].getInventory().size() - 1));
+            shards.tell(room, () -> step(p, left - 1));
+        }
+    }
+
+    // Сетка комнат side x side с выходами во все стороны и предметом в каждой комнате
+    private static Room[] grid(int side) {
+        Room[] rooms = new Room[side * side];
+        Item potion = ItemCatalog.potion("Малое зелье", 5);
+        for (int i = 0; i < rooms.length; i++) {
+            rooms[i] = new Room("r" + i, "Тестовая комната.");
+            rooms[i].getItems().add(potion);
+        }
+        for (int i = 0; i < rooms.length; i++) {
+            if (i % side + 1 < side) {
+                rooms[i].getNeighbors().put("east", rooms[i + 1]);
+                rooms[i + 1].getNeighbors().put("west", rooms[i]);
+            }
+            if (i + side < rooms.length) {
+                rooms[i].getNeighbors().put("south", rooms[i + side]);
+                rooms[i + side].getNeighbors().put("north", rooms[i]);
+            }
+        }
+        return rooms;
+    }
+
+    // Приватный конструктор: класс содержит только точку входа
+    private ShardBench() {
+    }
+}
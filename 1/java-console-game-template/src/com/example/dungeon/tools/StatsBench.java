@@ -0,0 +1,65 @@
+package com.example.dungeon.tools;
+
+import com.example.dungeon.model.PlayerStats;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Замер счётчиков статистики игрока под конкуренцией.
+ * Запуск: java -cp out com.example.dungeon.tools.StatsBench [обновлений на поток] [потоков]
+ * Несколько потоков (как несколько сессий одного игрока) обновляют одну статистику: сначала
+ * PlayerStats на LongAdder, затем для сравнения один общий AtomicLong. Проверяет, что ни одно
+ * обновление не потерялось, и выводит скорость обновлений.
+ */
+public final class StatsBench {
+
+    /**
+     * Точка входа замера.
+     * @param args количество обновлений на поток и количество потоков (необязательно)
+     * @throws InterruptedException если ожидание потоков было прервано
+     */
+    public static void main(String[] args) throws InterruptedException {
+        long perThread = args.length > 0 ? Long.parseLong(args[0]) : 20_000_000L;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Math.max(4, Runtime.getRuntime().availableProcessors());
+        System.out.println("Потоков: " + threads + ", обновлений на поток: " + perThread);
+
+        PlayerStats stats = new PlayerStats();
+        long adderNanos = run(threads, () -> {
+            for (long i = 0; i < perThread; i++) {
+                stats.command();
+                stats.dealt(1);
+            }
+        });
+        AtomicLong shared = new AtomicLong();
+        long atomicNanos = run(threads, () -> {
+            for (long i = 0; i < perThread; i++) {
+                shared.incrementAndGet();
+                shared.addAndGet(1);
+            }
+        });
+
+        long expected = perThread * threads;
+        long updates = 2 * expected;
+        System.out.printf("LongAdder (PlayerStats): %,.0f обновлений/с%n", updates * 1e9 / adderNanos);
+        System.out.printf("общий AtomicLong:        %,.0f обновлений/с%n", updates * 1e9 / atomicNanos);
+        boolean ok = stats.commands() == expected && stats.damageDealt() == expected && shared.get() == updates;
+        System.out.println(ok ? "Обновления не потерялись" : "ПОТЕРЯНЫ ОБНОВЛЕНИЯ");
+        if (!ok) System.exit(1);
+    }
+
+    // Запускает задачу в нескольких потоках одновременно и возвращает время до завершения всех
+    private static long run(int threads, Runnable task) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(task);
+            workers[t].start();
+        }
+        for (Thread w : workers) w.join();
+        return System.nanoTime() - start;
+    }
+
+    // Приватный конструктор: класс содержит только точку входа
+    private StatsBench() {
+    }
+}
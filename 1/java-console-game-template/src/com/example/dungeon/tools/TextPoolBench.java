@@ -0,0 +1,70 @@
+package com.example.dungeon.tools;
+
+import com.example.dungeon.model.TextPool;
+
+/**
+ * Замер памяти под описания комнат: отдельная строка на каждую комнату против пула текстов.
+ * Запуск: java -cp out com.example.dungeon.tools.TextPoolBench [комнат] [шаблонов]
+ * Моделирует загрузку большого мира, где несколько сотен шаблонов описаний повторяются
+ * в миллионах комнат, а загрузчик создаёт для каждой строки свежий объект String.
+ */
+public final class TextPoolBench {
+
+    /**
+     * Точка входа замера.
+     * @param args количество комнат и количество шаблонов описаний (необязательно)
+     */
+    public static void main(String[] args) {
+        int rooms = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int templates = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        String[] source = new String[templates];
+        for (int i = 0; i < templates; i++) {
+            source[i] = "Тёмный коридор, вариант " + i + ". Пахнет сыростью, со стен капает вода.";
+        }
+
+        // Пул меряется первым: после большого замера куча сжимается и искажает следующий
+        long pooled = measurePooled(source, rooms);
+        long plain = measurePlain(source, rooms);
+        System.out.println("Уникальных текстов в пуле: " + TextPool.size() + " (" + TextPool.byteSize() + " байт)");
+
+        System.out.printf("Отдельные строки: %,d байт (%.1f на комнату)%n", plain, (double) plain / rooms);
+        System.out.printf("Пул текстов:      %,d байт (%.1f на комнату)%n", pooled, (double) pooled / rooms);
+        System.out.printf("Экономия: в %.1f раз%n", (double) plain / Math.max(1, pooled));
+    }
+
+    // Как раньше: у каждой комнаты своя копия описания
+    private static long measurePlain(String[] source, int rooms) {
+        long before = usedHeap();
+        String[] copies = new String[rooms];
+        for (int i = 0; i < rooms; i++) {
+            copies[i] = new String(source[i % source.length].toCharArray());
+        }
+        long used = usedHeap() - before;
+        // Обращение после замера, чтобы массив точно оставался живым во время замера
+        if (copies[rooms - 1].isEmpty()) System.out.println();
+        return used;
+    }
+
+    // С пулом: у комнаты только id, текст хранится один раз в UTF-8
+    private static long measurePooled(String[] source, int rooms) {
+        long before = usedHeap();
+        int[] ids = new int[rooms];
+        for (int i = 0; i < rooms; i++) {
+            ids[i] = TextPool.intern(new String(source[i % source.length].toCharArray()));
+        }
+        long used = usedHeap() - before;
+        if (ids[rooms - 1] < 0) System.out.println();
+        return used;
+    }
+
+    // Занятая память кучи после сборки мусора (в отдельном инструменте вызов GC допустим)
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    // Приватный конструктор: класс содержит только точку входа
+    private TextPoolBench() {
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.dungeon.tools;
+
+import com.example.dungeon.model.TimerWheel;
+
+import java.util.SplittableRandom;
+
+/**
+ * Проверка и замер колеса таймеров.
+ * Запуск: java -cp out com.example.dungeon.tools.TimerBench [таймеров] [горизонт]
+ * Планирует заданное число таймеров со случайными сроками (часть — за горизонтом колеса),
+ * отменяет каждый третий, затем продвигает колесо до конца и проверяет, что каждый
+ * неотменённый таймер сработал ровно в свой тик, а отменённые не сработали.
+ * Опоздание в метриках считается от срока до конца шага продвижения.
+ */
+public final class TimerBench {
+
+    /**
+     * Точка входа проверки.
+     * @param args количество таймеров и максимальная задержка в тиках (необязательно)
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        long horizon = args.length > 1 ? Long.parseLong(args[1]) : 50_000_000L;
+        TimerWheel wheel = new TimerWheel();
+        SplittableRandom rnd = new SplittableRandom(42);
+        long[] deadlines = new long[count];
+        long[] firedAt = new long[count];
+        TimerWheel.Timer[] timers = new TimerWheel.Timer[count];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            int id = i;
+            deadlines[i] = 1 + rnd.nextLong(horizon);
+            timers[i] = wheel.schedule(deadlines[i], () -> firedAt[id] = wheel.now());
+        }
+        long scheduled = System.nanoTime();
+        for (int i = 0; i < count; i += 3) wheel.cancel(timers[i]);
+        long cancelledAt = System.nanoTime();
+        System.out.println("Ожидают: " + wheel.pending());
+        // Продвигаем колесо шагами разной длины, как это делают команды игрока
+        while (wheel.pending() > 0) wheel.advanceTo(wheel.now() + 1 + rnd.nextInt(64));
+        long end = System.nanoTime();
+
+        int errors = 0;
+        for (int i = 0; i < count; i++) {
+            boolean cancelled = i % 3 == 0;
+            if (cancelled ? firedAt[i] != 0 : firedAt[i] != deadlines[i]) errors++;
+        }
+        System.out.printf("Добавление: %.0f нс/таймер, отмена: %.0f нс/таймер, продвижение до тика %d: %d мс%n",
+                (scheduled - start) / (double) count, (cancelledAt - scheduled) / (count / 3.0), wheel.now(),
+                (end - cancelledAt) / 1_000_000);
+        System.out.println("Колесо: " + wheel.stats());
+        System.out.println(errors == 0 ? "Все таймеры сработали вовремя" : "ОШИБОК: " + errors);
+        if (errors != 0) System.exit(1);
+    }
+
+    // Приватный конструктор: класс содержит только точку входа
+    private TimerBench() {
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.dungeon.tools;
+
+import com.example.dungeon.core.WorldLoader;
+import com.example.dungeon.model.GameState;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Генератор большого мира-решётки в формате файла мира и замер его загрузки.
+ * Запуск: java -cp out com.example.dungeon.tools.WorldGen [файл] [комнат]
+ * Комнаты соединены с соседями по решётке в обе стороны; в части комнат лежат предметы,
+ * живут монстры и стоят двери, ключ от каждой двери лежит в соседней комнате.
+ * После генерации мир загружается дважды: разбором текста (с записью кэша) и из двоичного кэша.
+ */
+public final class WorldGen {
+    // Шаблоны описаний: в больших мирах описания повторяются
+    private static final String[] DESCRIPTIONS = {
+            "Сырой каменный коридор.", "Зал с колоннами.", "Заброшенная кладовая.",
+            "Узкий проход, поросший мхом.", "Пещера с подземным ручьём.", "Старая оружейная."
+    };
+
+    /**
+     * Точка входа генератора.
+     * @param args путь к файлу мира и количество комнат (необязательно)
+     * @throws IOException если файл не удалось записать
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "big-world.txt");
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        generate(file, count);
+        System.out.println("Сгенерировано комнат: " + count + " -> " + file.toAbsolutePath());
+
+        long t0 = System.nanoTime();
+        boolean cached = WorldLoader.load(file, new GameState());
+        long t1 = System.nanoTime();
+        System.out.printf("Первая загрузка (%s): %d мс%n", cached ? "кэш" : "разбор текста + запись кэша", (t1 - t0) / 1_000_000);
+        cached = WorldLoader.load(file, new GameState());
+        long t2 = System.nanoTime();
+        System.out.printf("Повторная загрузка (%s): %d мс%n", cached ? "кэш" : "разбор текста", (t2 - t1) / 1_000_000);
+    }
+
+    /**
+     * Записывает мир-решётку в файл.
+     * @param file файл мира
+     * @param count количество комнат
+     * @throws IOException если файл не удалось записать
+     */
+    public static void generate(Path file, int count) throws IOException {
+        int side = (int) Math.ceil(Math.sqrt(count));
+        try (BufferedWriter w = Files.newBufferedWriter(file)) {
+            w.write("player;Герой;20;5\n");
+            for (int i = 0; i < count; i++) {
+                w.write("room;Зал " + i + ";" + DESCRIPTIONS[i % DESCRIPTIONS.length] + "\n");
+            }
+            for (int i = 0; i < count; i++) {
+                int x = i % side;
+                if (x + 1 < side && i + 1 < count) link(w, i, "east", i + 1, "west");
+                if (i + side < count) link(w, i, "south", i + side, "north");
+                if (i % 7 == 3) w.write("item;Зал " + i + ";Potion:Малое зелье:5\n");
+                if (i % 11 == 5) w.write("monster;Зал " + i + ";Волк;" + (1 + i % 3) + ";8\n");
+                if (i % 50 == 49) {
+                    w.write("door;Зал " + i + ";Дверь " + i + "\n");
+                    w.write("item;Зал " + (i - 1) + ";Key:Ключ " + i + ":Дверь " + i + "\n");
+                }
+            }
+            w.write("start;Зал 0\n");
+        }
+    }
+
+    // Записывает двусторонний выход между комнатами
+    private static void link(BufferedWriter w, int a, String dir, int b, String back) throws IOException {
+        w.write("exit;Зал " + a + ";" + dir + ";Зал " + b + "\n");
+        w.write("exit;Зал " + b + ";" + back + ";Зал " + a + "\n");
+    }
+
+    // Приватный конструктор: класс содержит только точку входа
+    private WorldGen() {
+    }
+}